@@ -0,0 +1,85 @@
+package demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.controller.TaskController;
+import demo.model.TareaDTO;
+import demo.repository.TareaRepository;
+
+/**
+ * PUT /tasks/{id} repetido con el mismo formulario (el caso de guardar sin
+ * tocar nada) frente a un PUT que sí cambia la descripción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActualizacionTareasBenchmark {
+
+    private TaskController taskController;
+    private TransactionTemplate peticion;
+    private Authentication autenticacion;
+    private final List<Integer> ids = new ArrayList<>();
+    private final List<Map<String, Object>> formularios = new ArrayList<>();
+    private long contador;
+
+    @Setup(Level.Trial)
+    public void preparar(BaseDatosBenchmark bd) {
+        taskController = bd.bean(TaskController.class);
+        // La transacción hace de open-in-view: la tarea cargada sigue gestionada
+        peticion = new TransactionTemplate(bd.bean(PlatformTransactionManager.class));
+
+        Integer usuarioId = bd.usuarioAleatorio();
+        autenticacion = bd.autenticacion(usuarioId);
+        // El formulario de edición tal como lo envía main.js con los valores actuales
+        for (TareaDTO t : bd.bean(TareaRepository.class).findDtoByUsuarioId(usuarioId)) {
+            Map<String, Object> f = new HashMap<>();
+            f.put("title", t.getTitle());
+            f.put("description", t.getDescription());
+            f.put("startDate", t.getStartDate());
+            f.put("dueDate", t.getDueDate());
+            f.put("status", t.getStatus());
+            f.put("priority", t.getPriority());
+            f.put("categoryId", t.getCategory() != null ? t.getCategory().getId().toString() : null);
+            ids.add(t.getId());
+            formularios.add(f);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<?> sinCambios() {
+        int i = ThreadLocalRandom.current().nextInt(ids.size());
+        return peticion.execute(status -> taskController.updateTask(ids.get(i), formularios.get(i), autenticacion));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> conCambios() {
+        int i = ThreadLocalRandom.current().nextInt(ids.size());
+        Map<String, Object> f = new HashMap<>(formularios.get(i));
+        f.put("description", "Descripción " + contador++);
+        return peticion.execute(status -> taskController.updateTask(ids.get(i), f, autenticacion));
+    }
+}
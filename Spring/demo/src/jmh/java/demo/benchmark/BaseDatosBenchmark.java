@@ -0,0 +1,150 @@
+package demo.benchmark;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import demo.AlineadorGeneradoresId;
+import demo.model.Usuario;
+import demo.service.ContadoresProyectoService;
+
+/**
+ * Aplicación completa sobre H2 en memoria (modo MySQL, esquema de Liquibase)
+ * con datos sintéticos. El volumen se ajusta con -p usuarios=... -p tareasPorUsuario=...
+ */
+@State(Scope.Benchmark)
+public class BaseDatosBenchmark {
+
+    @Param({"100"})
+    public int usuarios;
+
+    @Param({"200"})
+    public int tareasPorUsuario;
+
+    private ConfigurableApplicationContext contexto;
+    private List<Integer> idsUsuarios;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        // Como argumentos para que prevalezcan sobre application.properties (MySQL)
+        contexto = new SpringApplicationBuilder(AplicacionBenchmark.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--historial.escritor.modo=sincrono",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN");
+        sembrar(contexto.getBean(JdbcTemplate.class));
+        // Las filas sembradas usan AUTO_INCREMENT: los generadores por tabla deben quedar por encima
+        contexto.getBean(AlineadorGeneradoresId.class).alinear();
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    public <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    public Integer usuarioAleatorio() {
+        return idsUsuarios.get(ThreadLocalRandom.current().nextInt(idsUsuarios.size()));
+    }
+
+    // Lo mismo que deja Spring Security en el contexto tras el login
+    public Authentication autenticacion(Integer usuarioId) {
+        Usuario usuario = new Usuario("Usuario " + usuarioId, "bench" + usuarioId + "@local", "x");
+        usuario.setId(usuarioId);
+        return new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
+    }
+
+    /**
+     * Igual que DemoApplication, pero sin escanear el DemoApplication de
+     * src/test (demo.demo), que comparte classpath con los benchmarks.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @AutoConfigurationPackage(basePackages = "demo")
+    @EnableScheduling
+    @ComponentScan(basePackages = "demo", excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX,
+        pattern = {"demo\\.DemoApplication", "demo\\.demo\\..*", "demo\\.benchmark\\..*"}))
+    static class AplicacionBenchmark {
+    }
+
+    private void sembrar(JdbcTemplate jdbc) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate hoy = ahora.toLocalDate();
+
+        List<Object[]> filas = new ArrayList<>();
+        for (int u = 0; u < usuarios; u++) {
+            filas.add(new Object[] {"Usuario " + u, "bench" + u + "@local", "x", Timestamp.valueOf(ahora)});
+        }
+        jdbc.batchUpdate("INSERT INTO usuarios (nombre, correo, contraseña, fecha_registro) VALUES (?, ?, ?, ?)", filas);
+        idsUsuarios = jdbc.queryForList("SELECT id FROM usuarios WHERE correo LIKE 'bench%' ORDER BY id", Integer.class);
+
+        String[] estados = {"Pendiente", "En_progreso", "Completada", "Incompleta"};
+        String[] prioridades = {"Alta", "Media", "Baja"};
+        filas.clear();
+        for (Integer usuarioId : idsUsuarios) {
+            for (int t = 0; t < tareasPorUsuario; t++) {
+                // Vencimientos repartidos en ±30 días; una de cada diez sin fecha
+                Date limite = t % 10 == 0 ? null : Date.valueOf(hoy.plusDays(t % 61 - 30));
+                filas.add(new Object[] {usuarioId, 1 + t % 4, "Tarea " + t, "Descripción " + t,
+                    Date.valueOf(hoy.minusDays(t % 15)), limite, Timestamp.valueOf(ahora),
+                    estados[t % estados.length], prioridades[t % prioridades.length]});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO tareas (usuario_id, categoria_id, titulo, descripcion, fecha_inicio, "
+            + "fecha_limite, fecha_creacion, estado, prioridad) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", filas);
+
+        // Un registro de creación por tarea y otro de completada para las completadas
+        jdbc.update("INSERT INTO historial (tarea_id, usuario_id, accion, fecha, prioridad) "
+            + "SELECT id, usuario_id, 'CREADA', fecha_creacion, prioridad FROM tareas");
+        jdbc.update("INSERT INTO historial (tarea_id, usuario_id, accion, fecha, titulo, fecha_inicio, fecha_limite, prioridad) "
+            + "SELECT id, usuario_id, 'COMPLETADA', fecha_creacion, titulo, fecha_inicio, fecha_limite, prioridad "
+            + "FROM tareas WHERE estado = 'Completada'");
+
+        // Cinco proyectos por usuario con la mitad de sus tareas repartidas entre ellos
+        filas.clear();
+        for (Integer usuarioId : idsUsuarios) {
+            for (int p = 0; p < 5; p++) {
+                filas.add(new Object[] {usuarioId, "Proyecto " + p, "#3b82f6", Timestamp.valueOf(ahora), "ACTIVO"});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO proyectos (usuario_id, nombre, color, fecha_creacion, estado) VALUES (?, ?, ?, ?, ?)", filas);
+        jdbc.update("INSERT INTO proyecto_tareas (proyecto_id, tarea_id) "
+            + "SELECT p.id, t.id FROM tareas t JOIN proyectos p ON p.usuario_id = t.usuario_id "
+            + "WHERE MOD(t.id, 2) = 0 AND MOD(t.id / 2, 5) = MOD(p.id, 5)");
+        // Los contadores de proyecto se crean igual que al reparar una desviación
+        bean(ContadoresProyectoService.class).reconciliar();
+    }
+}
@@ -0,0 +1,95 @@
+package demo.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import demo.controller.ProyectoController;
+import demo.model.PaginaCursor;
+import demo.model.ProyectoResumenDTO;
+import demo.model.TareaCompletadaDTO;
+import demo.model.TareaDTO;
+import demo.model.TaskStatsDTO;
+import demo.repository.TareaRepository;
+import demo.service.ListadoTareasService;
+
+/**
+ * Consultas de lectura más frecuentes contra H2 con datos sembrados.
+ * Cada llamada usa un usuario al azar para no medir siempre las mismas páginas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsultasBenchmark {
+
+    private TareaRepository tareaRepository;
+    private ListadoTareasService listadoTareasService;
+    private ProyectoController proyectoController;
+    private TransactionTemplate lectura;
+
+    @Setup(Level.Trial)
+    public void preparar(BaseDatosBenchmark bd) {
+        tareaRepository = bd.bean(TareaRepository.class);
+        listadoTareasService = bd.bean(ListadoTareasService.class);
+        proyectoController = bd.bean(ProyectoController.class);
+        lectura = new TransactionTemplate(bd.bean(PlatformTransactionManager.class));
+        lectura.setReadOnly(true);
+    }
+
+    // Conteos del dashboard (/api/stats) sin pasar por la caché
+    @Benchmark
+    public TaskStatsDTO estadisticas(BaseDatosBenchmark bd) {
+        LocalDate hoy = LocalDate.now();
+        return tareaRepository.calcularEstadisticas(bd.usuarioAleatorio(), hoy,
+            hoy.atStartOfDay(), hoy.plusDays(1).atStartOfDay());
+    }
+
+    // Resúmenes por usuario de la generación diaria de notificaciones
+    @Benchmark
+    public int conteosAgrupados() {
+        LocalDate hoy = LocalDate.now();
+        return tareaRepository.contarProximasAVencerPorUsuario(hoy, hoy.plusDays(3)).size()
+            + tareaRepository.contarVencidasPorUsuario().size();
+    }
+
+    // GET /tasks
+    @Benchmark
+    public List<TareaDTO> listaTareas(BaseDatosBenchmark bd) {
+        return tareaRepository.findDtoByUsuarioId(bd.usuarioAleatorio());
+    }
+
+    // GET /api/tasks/completed (primera página del historial)
+    @Benchmark
+    public PaginaCursor<TareaCompletadaDTO> completadas(BaseDatosBenchmark bd) {
+        return listadoTareasService.listarCompletadas(bd.usuarioAleatorio(), null, null);
+    }
+
+    // GET /api/proyectos (resumen con los contadores materializados)
+    @Benchmark
+    public List<ProyectoResumenDTO> proyectos(BaseDatosBenchmark bd) {
+        // Sin If-None-Match: siempre consulta
+        ServletWebRequest peticion = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/proyectos"),
+            new MockHttpServletResponse());
+        return lectura.execute(status -> proyectoController.getAllProyectos(bd.autenticacion(bd.usuarioAleatorio()), peticion));
+    }
+}
@@ -0,0 +1,50 @@
+package demo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import demo.service.NotificacionService;
+
+/**
+ * Generación diaria de notificaciones para todos los usuarios sembrados.
+ * Antes de cada ejecución se vacía la tabla para que no se omitan por duplicadas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneracionNotificacionesBenchmark {
+
+    private NotificacionService notificacionService;
+    private JdbcTemplate jdbc;
+
+    @Setup(Level.Trial)
+    public void preparar(BaseDatosBenchmark bd) {
+        notificacionService = bd.bean(NotificacionService.class);
+        jdbc = bd.bean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void limpiar() {
+        jdbc.update("DELETE FROM notificaciones");
+    }
+
+    @Benchmark
+    public void generarAutomaticas() {
+        notificacionService.generarNotificacionesAutomaticas();
+    }
+}
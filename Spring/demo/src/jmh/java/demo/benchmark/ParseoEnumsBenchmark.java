@@ -0,0 +1,108 @@
+package demo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import demo.model.Tarea;
+
+/**
+ * Conversión de los valores de estado y prioridad que envía la UI
+ * (JSON y formulario) a los enums de Tarea: Tarea.Estado.desde/Prioridad.desde
+ * frente a la versión anterior basada en valueOf y excepciones.
+ * Con -prof gc, gc.alloc.rate.norm de estados/prioridades debe quedar en ~0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseoEnumsBenchmark {
+
+    // Valores tal como llegan desde la UI y la API
+    static final String[] ESTADOS = {"PENDIENTE", "Pendiente", "EN_PROGRESO", "En progreso", "COMPLETADA",
+        "Completada", "INCOMPLETA", "VENCIDA", "en_progreso", " Pendiente "};
+    static final String[] PRIORIDADES = {"ALTA", "Alta", "MEDIA", "media", "BAJA", " Baja "};
+
+    @Benchmark
+    public void estados(Blackhole bh) {
+        for (String s : ESTADOS) {
+            bh.consume(Tarea.Estado.desde(s));
+        }
+    }
+
+    @Benchmark
+    public void prioridades(Blackhole bh) {
+        for (String s : PRIORIDADES) {
+            bh.consume(Tarea.Prioridad.desde(s));
+        }
+    }
+
+    @Benchmark
+    public void estadosAnterior(Blackhole bh) {
+        for (String s : ESTADOS) {
+            bh.consume(parseEstado(s));
+        }
+    }
+
+    @Benchmark
+    public void prioridadesAnterior(Blackhole bh) {
+        for (String s : PRIORIDADES) {
+            bh.consume(parsePrioridad(s));
+        }
+    }
+
+    // Versión anterior de TaskController.parsePrioridad
+    static Tarea.Prioridad parsePrioridad(String prioridadStr) {
+        if (prioridadStr == null) return null;
+        try {
+            String t = prioridadStr.trim();
+            return Tarea.Prioridad.valueOf(t.substring(0, 1).toUpperCase() + t.substring(1).toLowerCase());
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            for (Tarea.Prioridad p : Tarea.Prioridad.values()) {
+                if (p.name().equalsIgnoreCase(prioridadStr)) {
+                    return p;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Versión anterior de TaskController.parseEstado
+    static Tarea.Estado parseEstado(String estadoStr) {
+        if (estadoStr == null) return null;
+        String s = estadoStr.trim();
+
+        try {
+            return Tarea.Estado.valueOf(s);
+        } catch (IllegalArgumentException ignored) {}
+
+        try {
+            return Tarea.Estado.valueOf(s.replace(" ", "_"));
+        } catch (IllegalArgumentException ignored) {}
+
+        String sUpper = s.toUpperCase();
+        if (sUpper.equals("INCOMPLETA") || sUpper.equals("VENCIDA")) {
+            return Tarea.Estado.Incompleta;
+        }
+
+        for (Tarea.Estado eVal : Tarea.Estado.values()) {
+            String name = eVal.name();
+            if (name.equalsIgnoreCase(s) || name.replace("_", " ").equalsIgnoreCase(s)) {
+                return eVal;
+            }
+        }
+
+        return null;
+    }
+}
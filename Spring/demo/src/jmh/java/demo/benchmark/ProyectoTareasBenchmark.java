@@ -0,0 +1,64 @@
+package demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import demo.model.Proyecto;
+import demo.model.Usuario;
+import demo.repository.UsuarioRepository;
+import demo.service.ContadoresProyectoService;
+import demo.service.ProyectoService;
+
+/**
+ * Añadir y quitar una tarea de un proyecto que ya contiene todas las demás
+ * tareas del usuario. El tamaño del proyecto se ajusta con -p tareasPorUsuario=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProyectoTareasBenchmark {
+
+    private ProyectoService proyectoService;
+    private Usuario usuario;
+    private Integer proyectoId;
+    private Integer tareaLibre;
+
+    @Setup(Level.Trial)
+    public void preparar(BaseDatosBenchmark bd) {
+        proyectoService = bd.bean(ProyectoService.class);
+        usuario = bd.bean(UsuarioRepository.class).findById(bd.usuarioAleatorio()).orElseThrow();
+
+        Proyecto proyecto = proyectoService.saveProyecto(new Proyecto("Proyecto grande", usuario));
+        proyectoId = proyecto.getId();
+
+        JdbcTemplate jdbc = bd.bean(JdbcTemplate.class);
+        List<Integer> tareas = jdbc.queryForList(
+            "SELECT id FROM tareas WHERE usuario_id = ? ORDER BY id", Integer.class, usuario.getId());
+        tareaLibre = tareas.get(0);
+        jdbc.update("INSERT INTO proyecto_tareas (proyecto_id, tarea_id) SELECT ?, id FROM tareas "
+            + "WHERE usuario_id = ? AND id <> ?", proyectoId, usuario.getId(), tareaLibre);
+        bd.bean(ContadoresProyectoService.class).reconciliar();
+    }
+
+    @Benchmark
+    public void agregarYQuitar() {
+        proyectoService.agregarTareaAProyecto(proyectoId, tareaLibre, usuario);
+        proyectoService.removerTareaDeProyecto(proyectoId, tareaLibre, usuario);
+    }
+}
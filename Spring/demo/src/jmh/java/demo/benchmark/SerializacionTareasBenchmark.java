@@ -0,0 +1,128 @@
+package demo.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import demo.model.Categoria;
+import demo.model.Tarea;
+import demo.model.TareaDTO;
+
+/**
+ * Compara la serialización de listas de tareas: el camino anterior
+ * (un HashMap por tarea y otro por categoría) frente a TareaDTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionTareasBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tareas;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private List<Tarea> lista;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        lista = DatosBenchmark.tareasEnMemoria(tareas);
+    }
+
+    @Benchmark
+    public byte[] mapas() throws JsonProcessingException {
+        List<Map<String, Object>> json = lista.stream()
+            .map(SerializacionTareasBenchmark::convertTareaToMap)
+            .collect(Collectors.toList());
+        return mapper.writeValueAsBytes(json);
+    }
+
+    @Benchmark
+    public byte[] dto() throws JsonProcessingException {
+        List<TareaDTO> json = new ArrayList<>(lista.size());
+        for (Tarea t : lista) {
+            json.add(TareaDTO.desde(t));
+        }
+        return mapper.writeValueAsBytes(json);
+    }
+
+    // Copia del conversor que usaba TaskController antes de TareaDTO
+    static Map<String, Object> convertTareaToMap(Tarea tarea) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", tarea.getId());
+        map.put("title", tarea.getTitulo());
+        map.put("description", tarea.getDescripcion() != null ? tarea.getDescripcion() : "");
+        map.put("dueDate", tarea.getFechaLimite() != null ? tarea.getFechaLimite().toString() : "");
+        map.put("startDate", tarea.getFechaInicio() != null ? tarea.getFechaInicio().toString() : "");
+        map.put("priority", tarea.getPrioridad() != null ? tarea.getPrioridad().toString().toUpperCase() : "MEDIA");
+        map.put("status", tarea.getEstado() != null ? tarea.getEstado().toString().toUpperCase() : "PENDIENTE");
+
+        if (tarea.getCategoria() != null) {
+            Map<String, Object> categoryMap = new HashMap<>();
+            categoryMap.put("id", tarea.getCategoria().getId());
+            categoryMap.put("nombre", tarea.getCategoria().getNombre());
+            categoryMap.put("color", tarea.getCategoria().getColor());
+            map.put("category", categoryMap);
+        } else {
+            map.put("category", null);
+        }
+
+        return map;
+    }
+
+    /**
+     * Datos sintéticos compartidos por los benchmarks en memoria.
+     */
+    static final class DatosBenchmark {
+
+        private DatosBenchmark() {}
+
+        static List<Tarea> tareasEnMemoria(int n) {
+            Categoria[] categorias = new Categoria[4];
+            for (int i = 0; i < categorias.length; i++) {
+                categorias[i] = new Categoria("Categoría " + i, null, "#3b82f6");
+                categorias[i].setId(i + 1);
+            }
+
+            Tarea.Prioridad[] prioridades = Tarea.Prioridad.values();
+            Tarea.Estado[] estados = Tarea.Estado.values();
+            LocalDate base = LocalDate.of(2025, 1, 1);
+
+            List<Tarea> lista = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Tarea t = new Tarea(null, "Tarea " + i);
+                t.setId(i + 1);
+                t.setDescripcion(i % 3 == 0 ? null : "Descripción de la tarea " + i);
+                t.setFechaInicio(base.plusDays(i % 365));
+                t.setFechaLimite(i % 5 == 0 ? null : base.plusDays(i % 365 + 7));
+                t.setPrioridad(prioridades[i % prioridades.length]);
+                t.setEstado(estados[i % estados.length]);
+                t.setCategoria(i % 2 == 0 ? categorias[i % categorias.length] : null);
+                lista.add(t);
+            }
+            return lista;
+        }
+    }
+}
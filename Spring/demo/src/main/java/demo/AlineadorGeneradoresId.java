@@ -0,0 +1,62 @@
+package demo;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Las entidades con ids por bloques (id_generadores) pueden venir de
+ * tablas que antes eran AUTO_INCREMENT. Al arrancar se asegura que el siguiente
+ * bloque de ids de cada entidad empiece por encima del id máximo existente.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AlineadorGeneradoresId {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlineadorGeneradoresId.class);
+
+    // Margen sobre el id máximo existente
+    private static final int HOLGURA = 100;
+
+    // Segmento de IdPorBloques -> tabla de la entidad
+    private static final Map<String, String> SEGMENTOS = Map.of(
+        "notificaciones", "notificaciones",
+        "tareas", "tareas",
+        "historial", "historial"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alinear() {
+        SEGMENTOS.forEach((segmento, tabla) -> {
+            try {
+                Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+                long minimo = (max != null ? max : 0) + HOLGURA;
+
+                int filas = jdbcTemplate.update(
+                    "UPDATE id_generadores SET siguiente_id = ? WHERE entidad = ? AND siguiente_id < ?",
+                    minimo, segmento, minimo);
+                if (filas == 0) {
+                    Integer existe = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM id_generadores WHERE entidad = ?", Integer.class, segmento);
+                    if (existe == null || existe == 0) {
+                        jdbcTemplate.update("INSERT INTO id_generadores (entidad, siguiente_id) VALUES (?, ?)",
+                            segmento, minimo);
+                    }
+                }
+            } catch (DataAccessException e) {
+                logger.warn("No se pudo alinear el generador de ids de {}: {}", segmento, e.getMessage());
+            }
+        });
+    }
+}
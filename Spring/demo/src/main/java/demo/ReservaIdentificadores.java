@@ -0,0 +1,84 @@
+package demo;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reserva bloques de ids en id_generadores para {@link demo.model.IdPorBloques}.
+ * Usa un pool aparte y pequeño, así que nunca compite con las conexiones de las
+ * peticiones que están esperando el id. Cada reserva es una transacción corta:
+ * el UPDATE bloquea la fila y hace la reserva atómica también entre varias
+ * instancias de la aplicación.
+ * Hibernate crea los generadores por su cuenta: este bean se les pasa como
+ * propiedad de Hibernate ({@link #PROPIEDAD}), igual que cualquier otro ajuste.
+ */
+@Component
+public class ReservaIdentificadores implements HibernatePropertiesCustomizer {
+
+    public static final String PROPIEDAD = "demo.ids.reserva";
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${ids.reserva.conexiones:2}")
+    private int conexiones;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate tx;
+
+    @PostConstruct
+    public void iniciar() {
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("ReservaIds");
+        dataSource.setMaximumPoolSize(conexiones);
+        dataSource.setMinimumIdle(1);
+        jdbcTemplate = new JdbcTemplate((DataSource) dataSource);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        dataSource.close();
+    }
+
+    @Override
+    public void customize(Map<String, Object> propiedades) {
+        propiedades.put(PROPIEDAD, this);
+    }
+
+    /**
+     * Reserva {@code cantidad} ids consecutivos del segmento y devuelve el primero.
+     * En la tabla queda el primer id libre.
+     */
+    public long reservar(String segmento, int cantidad) {
+        Long primero = tx.execute(status -> {
+            int filas = jdbcTemplate.update(
+                "UPDATE id_generadores SET siguiente_id = siguiente_id + ? WHERE entidad = ?", cantidad, segmento);
+            if (filas == 0) {
+                jdbcTemplate.update("INSERT INTO id_generadores (entidad, siguiente_id) VALUES (?, ?)",
+                    segmento, 1 + cantidad);
+                return 1L;
+            }
+            Long siguiente = jdbcTemplate.queryForObject(
+                "SELECT siguiente_id FROM id_generadores WHERE entidad = ?", Long.class, segmento);
+            return siguiente - cantidad;
+        });
+        return primero;
+    }
+}
@@ -36,6 +36,8 @@ public class SecurityConfig {
                     "/view-proyecto/**",
                     "/notificaciones"
                 ).authenticated()
+                // Métricas internas, solo administradores (seguridad.admins)
+                .requestMatchers("/api/cache/**", "/api/historial/escritor").hasRole("ADMIN")
                 // APIs autenticadas
                 .requestMatchers(
                     "/api/categories/**",
@@ -1,6 +1,7 @@
 package demo;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Service;
 
 import demo.model.Usuario;
 import demo.repository.UsuarioRepository;
+import demo.service.UsuarioActualService;
 
 @Service
 public class UserService implements UserDetailsService {
@@ -19,10 +21,22 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UsuarioActualService usuarioActualService;
+
+    // Correos con rol ADMIN (métricas internas); el rol no se guarda en la BD
+    @Value("${seguridad.admins:}")
+    private String[] admins;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         Usuario usuario = usuarioRepository.findByCorreo(email)
             .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+        for (String admin : admins) {
+            if (admin.trim().equalsIgnoreCase(usuario.getCorreo())) {
+                usuario.setRole("ADMIN");
+            }
+        }
         return usuario;
     }
 
@@ -31,6 +45,9 @@ public class UserService implements UserDetailsService {
         if (usuario.getRole() == null) {
             usuario.setRole("USER");
         }
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        // Por si el correo estaba en caché apuntando a un usuario anterior
+        usuarioActualService.invalidar(guardado);
+        return guardado;
     }
 }
\ No newline at end of file
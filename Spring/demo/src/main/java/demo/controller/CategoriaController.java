@@ -19,11 +19,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import demo.model.Categoria;
 import demo.model.Usuario;
-import demo.repository.UsuarioRepository;
 import demo.service.CategoriaService;
+import demo.service.UsuarioActualService;
+import demo.service.VersionesService;
+import demo.service.VersionesService.Recurso;
 
 @Controller
 public class CategoriaController {
@@ -33,7 +36,10 @@ public class CategoriaController {
     private CategoriaService categoriaService;
 
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private UsuarioActualService usuarioActualService;
+    
+    @Autowired
+    private VersionesService versionesService;
     
     @GetMapping("/categories")
     public String categoriesPage(Model model, Authentication auth) {
@@ -49,11 +55,15 @@ public class CategoriaController {
         return "create-categories";
     }
     
+    // Con ETag: 304 sin consultar si no cambió ninguna categoría
     @GetMapping("/api/categories")
     @ResponseBody
-    public List<Map<String, Object>> getAllCategories(Authentication auth) {
+    public List<Map<String, Object>> getAllCategories(Authentication auth, WebRequest peticion) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+        if (versionesService.noModificado(peticion, usuario.getId(), Recurso.CATEGORIAS)) {
+            return null;
+        }
+        Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
         List<Categoria> categorias = categoriaService.getCategoriasByUsuario(managedUser);
 
         List<Map<String, Object>> result = new ArrayList<>();
@@ -74,7 +84,7 @@ public class CategoriaController {
     public ResponseEntity<?> createCategory(@RequestBody Categoria categoria, Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
             
             if (categoriaService.existsByNombre(categoria.getNombre(), managedUser)) {
                 Map<String, String> error = new HashMap<>();
@@ -84,7 +94,14 @@ public class CategoriaController {
             
             categoria.setUsuario(managedUser);
             Categoria savedCategoria = categoriaService.saveCategoria(categoria);
-            return ResponseEntity.ok(savedCategoria);
+            
+            // Sin el usuario: es una referencia JPA y además expondría sus datos
+            Map<String, Object> response = new HashMap<>();
+            response.put("id", savedCategoria.getId());
+            response.put("nombre", savedCategoria.getNombre());
+            response.put("descripcion", savedCategoria.getDescripcion());
+            response.put("color", savedCategoria.getColor());
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error creando categoría", e);
             Map<String, String> error = new HashMap<>();
@@ -98,7 +115,7 @@ public class CategoriaController {
     public ResponseEntity<?> deleteCategory(@PathVariable Integer id, Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
             Categoria categoria = categoriaService.getCategoriaById(id, managedUser)
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada o no autorizada"));
 
@@ -0,0 +1,89 @@
+package demo.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import demo.model.Usuario;
+import demo.service.ExportacionService;
+import demo.service.ExportacionService.Formato;
+
+/**
+ * Descarga de tareas e historial en CSV (por defecto) o NDJSON (?formato=ndjson).
+ * La respuesta se escribe mientras se leen las filas; si el cliente acepta gzip
+ * (Accept-Encoding), se comprime al vuelo.
+ */
+@Controller
+public class ExportacionController {
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    @GetMapping("/api/export/tasks")
+    public ResponseEntity<StreamingResponseBody> exportarTareas(
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String aceptaCodificacion,
+            Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        return respuesta("tareas", formato, aceptaCodificacion,
+            (f, salida) -> exportacionService.exportarTareas(usuario.getId(), f, salida));
+    }
+
+    @GetMapping("/api/export/history")
+    public ResponseEntity<StreamingResponseBody> exportarHistorial(
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String aceptaCodificacion,
+            Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        return respuesta("historial", formato, aceptaCodificacion,
+            (f, salida) -> exportacionService.exportarHistorial(usuario.getId(), f, salida));
+    }
+
+    private ResponseEntity<StreamingResponseBody> respuesta(String nombre, String formato, String aceptaCodificacion, Exportacion exportacion) {
+        Formato f = Formato.desde(formato);
+        if (f == null) {
+            // El tipo de respuesta es siempre un stream, también para el error
+            byte[] error = "{\"error\":\"Formato no válido (csv o ndjson)\"}".getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(salida -> salida.write(error));
+        }
+        boolean gzip = aceptaCodificacion != null && aceptaCodificacion.toLowerCase().contains("gzip");
+
+        StreamingResponseBody cuerpo = salida -> {
+            if (gzip) {
+                GZIPOutputStream comprimida = new GZIPOutputStream(salida, 16 * 1024);
+                exportacion.escribir(f, comprimida);
+                comprimida.finish();
+            } else {
+                exportacion.escribir(f, salida);
+            }
+        };
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_TYPE, f.getTipoContenido() + ";charset=UTF-8")
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nombre + "." + f.getExtension() + "\"")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return respuesta.body(cuerpo);
+    }
+
+    @FunctionalInterface
+    private interface Exportacion {
+        void escribir(Formato formato, OutputStream salida) throws IOException;
+    }
+}
@@ -1,6 +1,6 @@
 package demo.controller;
 
-import java.time.LocalDate;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -9,13 +9,16 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import demo.UserService;
 import demo.model.TaskStatsDTO;
 import demo.model.Tarea;
 import demo.model.Usuario;
 import demo.repository.HistorialRepository;
-import demo.repository.TareaRepository;
+import demo.service.EscritorHistorialService;
+import demo.service.EstadisticasService;
+import demo.service.UsuarioActualService;
 
 @Controller
 public class MainController {
@@ -24,10 +27,16 @@ public class MainController {
     private UserService userService;
     
     @Autowired
-    private TareaRepository tareaRepository;
+    private HistorialRepository historialRepository;
     
     @Autowired
-    private HistorialRepository historialRepository;
+    private EstadisticasService estadisticasService;
+    
+    @Autowired
+    private UsuarioActualService usuarioActualService;
+
+    @Autowired
+    private EscritorHistorialService escritorHistorial;
 
     @GetMapping("/")
     public String showLoginForm() {
@@ -50,14 +59,9 @@ public class MainController {
     @GetMapping("/dashboard")
     public String showDashboard(Authentication auth, Model model) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        LocalDate hoy = LocalDate.now();
         
-        // Calcular estadísticas
-        TaskStatsDTO stats = new TaskStatsDTO();
-        stats.setTotalActivas(tareaRepository.countActivasByUsuarioId(usuario.getId()));
-        stats.setVencenHoy(tareaRepository.countVencenHoyByUsuarioId(usuario.getId(), hoy));
-        stats.setPrioridadAlta(tareaRepository.countPrioridadAltaByUsuarioId(usuario.getId()));
-        stats.setCompletadasHoy(tareaRepository.countCompletadasEnFecha(usuario.getId(), hoy));
+        // Calcular estadísticas (una consulta agregada, cacheada por usuario)
+        TaskStatsDTO stats = estadisticasService.obtenerEstadisticas(usuario.getId());
         
         model.addAttribute("userName", usuario.getNombre());
         model.addAttribute("stats", stats);
@@ -72,4 +76,18 @@ public class MainController {
         model.addAttribute("task", new Tarea());
         return "create-task";
     }
+
+    // Aciertos/fallos de la caché de usuarios autenticados
+    @GetMapping("/api/cache/usuarios")
+    @ResponseBody
+    public Map<String, Object> getEstadisticasCacheUsuarios() {
+        return usuarioActualService.getEstadisticas();
+    }
+
+    // Cola, lag y tamaño de lote del escritor de historial (solo ADMIN, ver SecurityConfig)
+    @GetMapping("/api/historial/escritor")
+    @ResponseBody
+    public Map<String, Object> getMetricasEscritorHistorial() {
+        return escritorHistorial.getMetricas();
+    }
 }
\ No newline at end of file
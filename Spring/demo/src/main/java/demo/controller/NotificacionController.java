@@ -1,14 +1,18 @@
 package demo.controller;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -17,12 +21,25 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import demo.model.Notificacion;
+import demo.model.EstadoGeneracion;
+import demo.model.EstadoRecordatorios;
+import demo.model.NotificacionDTO;
+import demo.model.ResultadoLoteNotificaciones;
+import demo.model.ResultadoRetencion;
+import demo.model.SeleccionNotificaciones;
 import demo.model.Usuario;
 import demo.repository.UsuarioRepository;
+import demo.service.CanalNotificacionesService;
 import demo.service.NotificacionService;
+import demo.service.VersionesService;
+import demo.service.VersionesService.Recurso;
 
 @Controller
 public class NotificacionController {
@@ -34,6 +51,15 @@ public class NotificacionController {
     @Autowired
     private UsuarioRepository usuarioRepository;
     
+    @Autowired
+    private CanalNotificacionesService canalNotificacionesService;
+    
+    @Autowired
+    private VersionesService versionesService;
+    
+    @Value("${notificaciones.lote.max-ids:1000}")
+    private int maxLote;
+    
     @GetMapping("/notificaciones")
     public String notificacionesPage(Model model, Authentication auth) {
         Usuario usuario = (Usuario) auth.getPrincipal();
@@ -41,26 +67,51 @@ public class NotificacionController {
         return "notificaciones";
     }
     
+    // Con ETag: 304 sin consultar si no cambió ninguna notificación ni el título de sus tareas
     @GetMapping("/api/notificaciones")
     @ResponseBody
-    public List<Map<String, Object>> getAllNotificaciones(Authentication auth) {
+    public List<NotificacionDTO> getAllNotificaciones(Authentication auth, WebRequest peticion) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        List<Notificacion> notificaciones = notificacionService.getNotificacionesByUsuario(usuario.getId());
-        
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (Notificacion n : notificaciones) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", n.getId());
-            m.put("tipo", n.getTipo());
-            m.put("mensaje", n.getMensaje());
-            m.put("leida", n.getLeida());
-            m.put("fechaCreacion", n.getFechaCreacion().toString());
-            m.put("tareaId", n.getTarea() != null ? n.getTarea().getId() : null);
-            m.put("tareaTitulo", n.getTarea() != null ? n.getTarea().getTitulo() : null);
-            result.add(m);
-        }
-        
-        return result;
+        if (versionesService.noModificado(peticion, usuario.getId(), Recurso.NOTIFICACIONES, Recurso.TAREAS)) {
+            return null;
+        }
+        return notificacionService.getNotificacionesDTO(usuario.getId());
+    }
+    
+    // Feed paginado por cursor: ?noLeidas=true solo las no leídas; ?desde=fecha solo las creadas desde entonces
+    @GetMapping("/api/notificaciones/pagina")
+    @ResponseBody
+    public ResponseEntity<?> getPaginaNotificaciones(
+            @RequestParam(defaultValue = "false") boolean noLeidas,
+            @RequestParam(required = false) String desde,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        try {
+            return ResponseEntity.ok(notificacionService.listar(usuario.getId(), noLeidas, desde, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Notificaciones nuevas en vivo (SSE). El navegador reconecta solo y envía
+    // Last-Event-ID; "desde" sirve para la primera conexión tras cargar la lista.
+    @GetMapping(value = "/api/notificaciones/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamNotificaciones(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                           @RequestParam(required = false) Integer desde,
+                                           Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        Integer ultimoId = desde;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                ultimoId = Integer.valueOf(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                logger.debug("Last-Event-ID no válido: {}", lastEventId);
+            }
+        }
+        return canalNotificacionesService.suscribir(usuario.getId(), ultimoId);
     }
     
     @GetMapping("/api/notificaciones/count")
@@ -75,8 +126,9 @@ public class NotificacionController {
     @ResponseBody
     public ResponseEntity<?> marcarComoLeida(@PathVariable Integer id, Authentication auth) {
         try {
-            notificacionService.marcarComoLeida(id);
-            return ResponseEntity.ok(Map.of("success", true));
+            Usuario usuario = (Usuario) auth.getPrincipal();
+            return respuesta(usuario, notificacionService.marcarLeidas(
+                usuario.getId(), SeleccionNotificaciones.porIds(List.of(id))));
         } catch (Exception e) {
             logger.error("Error marcando notificación como leída", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -89,8 +141,7 @@ public class NotificacionController {
     public ResponseEntity<?> marcarTodasComoLeidas(Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            notificacionService.marcarTodasComoLeidas(usuario.getId());
-            return ResponseEntity.ok(Map.of("success", true));
+            return respuesta(usuario, notificacionService.marcarLeidas(usuario.getId(), new SeleccionNotificaciones()));
         } catch (Exception e) {
             logger.error("Error marcando todas las notificaciones", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -102,8 +153,9 @@ public class NotificacionController {
     @ResponseBody
     public ResponseEntity<?> deleteNotificacion(@PathVariable Integer id, Authentication auth) {
         try {
-            notificacionService.eliminarNotificacion(id);
-            return ResponseEntity.ok(Map.of("success", true));
+            Usuario usuario = (Usuario) auth.getPrincipal();
+            return respuesta(usuario, notificacionService.eliminar(
+                usuario.getId(), SeleccionNotificaciones.porIds(List.of(id))));
         } catch (Exception e) {
             logger.error("Error eliminando notificación", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -116,8 +168,9 @@ public class NotificacionController {
     public ResponseEntity<?> limpiarLeidas(Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            notificacionService.eliminarLeidasDelUsuario(usuario.getId());
-            return ResponseEntity.ok(Map.of("success", true));
+            SeleccionNotificaciones leidas = new SeleccionNotificaciones();
+            leidas.setLeida(true);
+            return respuesta(usuario, notificacionService.eliminar(usuario.getId(), leidas));
         } catch (Exception e) {
             logger.error("Error limpiando notificaciones leídas", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -125,6 +178,126 @@ public class NotificacionController {
         }
     }
     
+    /**
+     * Acciones en lote: {"ids": [..]} o un filtro {"tipo": "...", "hasta": "fecha"}
+     * (sin filtro = todas las que existían al hacer la petición). Al eliminar,
+     * "leida" limita a leídas (true) o no leídas (false). Solo afectan a las
+     * notificaciones del usuario, en una sola sentencia; devuelven cuántas
+     * cambiaron y la variación y el valor del contador de no leídas.
+     */
+    @PostMapping("/api/notificaciones/lote/marcar-leidas")
+    @ResponseBody
+    public ResponseEntity<?> marcarLeidasEnLote(@RequestBody Map<String, Object> payload, Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        SeleccionNotificaciones seleccion;
+        try {
+            seleccion = seleccion(payload);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        try {
+            return respuesta(usuario, notificacionService.marcarLeidas(usuario.getId(), seleccion));
+        } catch (Exception e) {
+            logger.error("Error marcando notificaciones en lote", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al marcar las notificaciones"));
+        }
+    }
+    
+    @PostMapping("/api/notificaciones/lote/eliminar")
+    @ResponseBody
+    public ResponseEntity<?> eliminarEnLote(@RequestBody Map<String, Object> payload, Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        SeleccionNotificaciones seleccion;
+        try {
+            seleccion = seleccion(payload);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        try {
+            return respuesta(usuario, notificacionService.eliminar(usuario.getId(), seleccion));
+        } catch (Exception e) {
+            logger.error("Error eliminando notificaciones en lote", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al eliminar las notificaciones"));
+        }
+    }
+    
+    // El contador se lee después del commit de la acción
+    private ResponseEntity<?> respuesta(Usuario usuario, ResultadoLoteNotificaciones resultado) {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "afectadas", resultado.getAfectadas(),
+            "deltaNoLeidas", resultado.getDeltaNoLeidas(),
+            "noLeidas", notificacionService.countNotificacionesNoLeidas(usuario.getId())));
+    }
+    
+    private SeleccionNotificaciones seleccion(Map<String, Object> payload) {
+        SeleccionNotificaciones seleccion = new SeleccionNotificaciones();
+        Object ids = payload.get("ids");
+        if (ids != null) {
+            if (payload.get("tipo") != null || payload.get("hasta") != null) {
+                throw new IllegalArgumentException("Indica una lista de ids o un filtro, no ambos");
+            }
+            if (!(ids instanceof Collection<?> lista)) {
+                throw new IllegalArgumentException("Se esperaba una lista de ids de notificación");
+            }
+            if (lista.size() > maxLote) {
+                throw new IllegalArgumentException("Como máximo " + maxLote + " notificaciones por petición");
+            }
+            List<Integer> valores = new ArrayList<>(lista.size());
+            for (Object o : lista) {
+                try {
+                    valores.add(Integer.valueOf(String.valueOf(o)));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Id de notificación no válido: " + o);
+                }
+            }
+            seleccion.setIds(valores);
+        }
+        Object tipo = payload.get("tipo");
+        if (tipo != null && !String.valueOf(tipo).isBlank()) {
+            seleccion.setTipo(String.valueOf(tipo).trim());
+        }
+        Object hasta = payload.get("hasta");
+        if (hasta != null && !String.valueOf(hasta).isBlank()) {
+            try {
+                seleccion.setHasta(LocalDateTime.parse(String.valueOf(hasta).trim()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Fecha 'hasta' no válida: " + hasta);
+            }
+        }
+        Object leida = payload.get("leida");
+        if (leida != null) {
+            if (!(leida instanceof Boolean valor)) {
+                throw new IllegalArgumentException("'leida' debe ser true o false");
+            }
+            seleccion.setLeida(valor);
+        }
+        return seleccion;
+    }
+    
+    // Progreso y duración de la última generación automática
+    @GetMapping("/api/notificaciones/generacion")
+    @ResponseBody
+    public EstadoGeneracion getEstadoGeneracion() {
+        return notificacionService.getEstadoGeneracion();
+    }
+    
+    // Filas compactadas y caducadas en la última retención
+    @GetMapping("/api/notificaciones/retencion")
+    @ResponseBody
+    public ResultadoRetencion getResultadoRetencion() {
+        return notificacionService.getResultadoRetencion();
+    }
+    
+    // Recordatorios de vencimiento en cola y enviados desde el arranque
+    @GetMapping("/api/notificaciones/recordatorios")
+    @ResponseBody
+    public EstadoRecordatorios getEstadoRecordatorios() {
+        return notificacionService.getEstadoRecordatorios();
+    }
+    
     @PostMapping("/api/notificaciones/generar")
     @ResponseBody
     public ResponseEntity<?> generarNotificaciones(Authentication auth) {
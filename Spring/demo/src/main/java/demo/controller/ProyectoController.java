@@ -1,6 +1,7 @@
 package demo.controller;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +10,7 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,13 +22,21 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import demo.model.Proyecto;
+import demo.model.ProyectoContadores;
+import demo.model.ProyectoResumenDTO;
 import demo.model.Tarea;
+import demo.model.TareaProyectoDTO;
 import demo.model.Usuario;
-import demo.repository.UsuarioRepository;
+import demo.service.ContadoresProyectoService;
 import demo.service.ProyectoService;
+import demo.service.UsuarioActualService;
+import demo.service.VersionesService;
+import demo.service.VersionesService.Recurso;
 
 @Controller
 public class ProyectoController {
@@ -36,7 +46,16 @@ public class ProyectoController {
     private ProyectoService proyectoService;
     
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private UsuarioActualService usuarioActualService;
+    
+    @Autowired
+    private VersionesService versionesService;
+    
+    @Autowired
+    private ContadoresProyectoService contadoresProyectoService;
+    
+    @Value("${proyectos.tareas.max-lote:1000}")
+    private int maxLote;
     
     @GetMapping("/proyectos")
     public String proyectosPage(Model model, Authentication auth) {
@@ -60,37 +79,25 @@ public class ProyectoController {
         return "view-proyecto";
     }
     
+    // Con ETag: 304 sin consultar si el usuario no cambió proyectos ni tareas (cuentan para el progreso)
     @GetMapping("/api/proyectos")
     @ResponseBody
-    public List<Map<String, Object>> getAllProyectos(Authentication auth) {
+    public List<ProyectoResumenDTO> getAllProyectos(Authentication auth, WebRequest peticion) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
-        List<Proyecto> proyectos = proyectoService.getProyectosByUsuario(managedUser);
-        
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (Proyecto p : proyectos) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("id", p.getId());
-            m.put("nombre", p.getNombre());
-            m.put("descripcion", p.getDescripcion());
-            m.put("color", p.getColor());
-            m.put("fechaInicio", p.getFechaInicio() != null ? p.getFechaInicio().toString() : null);
-            m.put("fechaFin", p.getFechaFin() != null ? p.getFechaFin().toString() : null);
-            m.put("estado", p.getEstado().toString());
-            m.put("cantidadTareas", p.getTareas() != null ? p.getTareas().size() : 0);
-            result.add(m);
+        if (versionesService.noModificado(peticion, usuario.getId(), Recurso.PROYECTOS, Recurso.TAREAS)) {
+            return null;
         }
-        
-        return result;
+        return proyectoService.getResumenProyectos(usuario.getId());
     }
     
+    // Cabecera del proyecto con sus contadores; las tareas se piden aparte, por páginas
     @GetMapping("/api/proyectos/{id}")
     @ResponseBody
     public ResponseEntity<?> getProyecto(@PathVariable Integer id, Authentication auth) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+        Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
         
-        Optional<Proyecto> proyectoOpt = proyectoService.getProyectoWithTareas(id, managedUser);
+        Optional<Proyecto> proyectoOpt = proyectoService.getProyectoById(id, managedUser);
         
         if (proyectoOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -107,20 +114,74 @@ public class ProyectoController {
         result.put("fechaFin", p.getFechaFin() != null ? p.getFechaFin().toString() : null);
         result.put("estado", p.getEstado().toString());
         
-        List<Map<String, Object>> tareas = new ArrayList<>();
-        if (p.getTareas() != null) {
-            for (Tarea t : p.getTareas()) {
-                Map<String, Object> tareaMap = new HashMap<>();
-                tareaMap.put("id", t.getId());
-                tareaMap.put("titulo", t.getTitulo());
-                tareaMap.put("estado", t.getEstado().toString());
-                tareaMap.put("prioridad", t.getPrioridad().toString());
-                tareas.add(tareaMap);
+        ProyectoContadores c = contadoresProyectoService.obtener(p.getId())
+            .orElseGet(() -> new ProyectoContadores(p.getId()));
+        result.put("contadores", Map.of(
+            "total", c.getTotal(),
+            "pendientes", c.getPendientes(),
+            "enProgreso", c.getEnProgreso(),
+            "completadas", c.getCompletadas(),
+            "incompletas", c.getIncompletas()));
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    // Tareas del proyecto paginadas por cursor, con filtros opcionales de estado y prioridad
+    @GetMapping("/api/proyectos/{id}/tareas")
+    @ResponseBody
+    public ResponseEntity<?> getTareasProyecto(
+            @PathVariable Integer id,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String prioridad,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
+        if (proyectoService.getProyectoById(id, managedUser).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Proyecto no encontrado"));
+        }
+        
+        try {
+            Tarea.Estado e = null;
+            if (estado != null && !estado.isBlank()) {
+                e = requerido(Tarea.Estado.desde(estado), "Estado no válido: " + estado);
+            }
+            Tarea.Prioridad pr = null;
+            if (prioridad != null && !prioridad.isBlank()) {
+                pr = requerido(Tarea.Prioridad.desde(prioridad), "Prioridad no válida: " + prioridad);
             }
+            return ResponseEntity.ok(proyectoService.listarTareas(id, e, pr, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Sugerencias para el selector "Agregar tarea": ?q=texto del título
+    @GetMapping("/api/proyectos/{id}/tareas/disponibles")
+    @ResponseBody
+    public ResponseEntity<?> getTareasDisponibles(
+            @PathVariable Integer id,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limite,
+            Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
+        if (proyectoService.getProyectoById(id, managedUser).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Proyecto no encontrado"));
         }
-        result.put("tareas", tareas);
         
-        return ResponseEntity.ok(result);
+        List<TareaProyectoDTO> tareas = proyectoService.buscarTareasDisponibles(id, usuario.getId(), q, limite);
+        return ResponseEntity.ok(tareas);
+    }
+    
+    private static <T> T requerido(T valor, String mensaje) {
+        if (valor == null) {
+            throw new IllegalArgumentException(mensaje);
+        }
+        return valor;
     }
     
     @PostMapping("/api/proyectos")
@@ -128,7 +189,7 @@ public class ProyectoController {
     public ResponseEntity<?> createProyecto(@RequestBody Map<String, Object> payload, Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
             
             Proyecto proyecto = new Proyecto();
             proyecto.setNombre((String) payload.get("nombre"));
@@ -164,7 +225,7 @@ public class ProyectoController {
     public ResponseEntity<?> updateProyecto(@PathVariable Integer id, @RequestBody Map<String, Object> payload, Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
             
             Optional<Proyecto> proyectoOpt = proyectoService.getProyectoById(id, managedUser);
             
@@ -205,7 +266,7 @@ public class ProyectoController {
     public ResponseEntity<?> deleteProyecto(@PathVariable Integer id, Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
             
             Optional<Proyecto> proyectoOpt = proyectoService.getProyectoById(id, managedUser);
             
@@ -229,7 +290,7 @@ public class ProyectoController {
     public ResponseEntity<?> agregarTarea(@PathVariable Integer proyectoId, @PathVariable Integer tareaId, Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
             
             proyectoService.agregarTareaAProyecto(proyectoId, tareaId, managedUser);
             
@@ -241,12 +302,70 @@ public class ProyectoController {
         }
     }
     
+    /**
+     * Alta y baja masiva de tareas en un proyecto: {"agregar": [ids], "quitar": [ids]}.
+     * Es idempotente: las que ya están (o ya no están) se ignoran. Devuelve
+     * cuántas se añadieron y cuántas se quitaron.
+     */
+    @PostMapping("/api/proyectos/{proyectoId}/tareas")
+    @ResponseBody
+    public ResponseEntity<?> cambiarTareas(@PathVariable Integer proyectoId, @RequestBody Map<String, Object> payload, Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        List<Integer> agregar;
+        List<Integer> quitar;
+        try {
+            agregar = ids(payload.get("agregar"));
+            quitar = ids(payload.get("quitar"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (agregar.size() + quitar.size() > maxLote) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Como máximo " + maxLote + " tareas por petición"));
+        }
+        
+        Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
+        if (proyectoService.getProyectoById(proyectoId, managedUser).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Proyecto no encontrado"));
+        }
+        
+        try {
+            int agregadas = proyectoService.agregarTareas(proyectoId, agregar, managedUser);
+            int quitadas = proyectoService.quitarTareas(proyectoId, quitar, managedUser);
+            return ResponseEntity.ok(Map.of("success", true, "agregadas", agregadas, "quitadas", quitadas));
+        } catch (Exception e) {
+            logger.error("Error cambiando tareas del proyecto", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error al actualizar las tareas del proyecto"));
+        }
+    }
+    
+    // Lista de ids del cuerpo JSON (ausente = vacía)
+    private static List<Integer> ids(Object valor) {
+        if (valor == null) {
+            return List.of();
+        }
+        if (!(valor instanceof Collection<?> lista)) {
+            throw new IllegalArgumentException("Se esperaba una lista de ids de tarea");
+        }
+        List<Integer> ids = new ArrayList<>(lista.size());
+        for (Object o : lista) {
+            try {
+                ids.add(Integer.valueOf(String.valueOf(o)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Id de tarea no válido: " + o);
+            }
+        }
+        return ids;
+    }
+    
     @DeleteMapping("/api/proyectos/{proyectoId}/tareas/{tareaId}")
     @ResponseBody
     public ResponseEntity<?> removerTarea(@PathVariable Integer proyectoId, @PathVariable Integer tareaId, Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(usuario);
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(usuario);
             
             proyectoService.removerTareaDeProyecto(proyectoId, tareaId, managedUser);
             
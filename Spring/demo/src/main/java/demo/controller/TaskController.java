@@ -1,5 +1,6 @@
 package demo.controller;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -24,21 +25,37 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import demo.model.FiltroTareas;
 import demo.model.Historial;
+import demo.model.PaginaCursor;
+import demo.model.ResultadoImportacion;
+import demo.model.TaskStatsDTO;
 import demo.model.Tarea;
+import demo.model.TareaCompletadaDTO;
+import demo.model.TareaDTO;
 import demo.model.Usuario;
 import demo.repository.HistorialRepository;
 import demo.repository.TareaRepository;
-import demo.repository.UsuarioRepository;
 import demo.service.CategoriaService;
+import demo.service.EdicionTareasService;
+import demo.service.EscritorHistorialService;
+import demo.service.EstadisticasService;
+import demo.service.EstadisticasService.Huella;
+import demo.service.ImportacionTareasService;
+import demo.service.ListadoTareasService;
+import demo.service.PlanificadorRecordatoriosService;
 import demo.service.TareaService;
+import demo.service.UsuarioActualService;
+import demo.service.VersionesService;
+import demo.service.VersionesService.Recurso;
 
 @Controller
 public class TaskController {
     private static final Logger logger = LoggerFactory.getLogger(TaskController.class);
-    
+
     @Autowired
     private CategoriaService categoriaService;
 
@@ -49,21 +66,38 @@ public class TaskController {
     private TareaRepository tareaRepository;
     
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private UsuarioActualService usuarioActualService;
 
     @Autowired
     private TareaService tareaService;
 
+    @Autowired
+    private EstadisticasService estadisticasService;
+
+    @Autowired
+    private ListadoTareasService listadoTareasService;
+
+    @Autowired
+    private ImportacionTareasService importacionTareasService;
+
+    @Autowired
+    private EscritorHistorialService escritorHistorial;
+
+    @Autowired
+    private EdicionTareasService edicionTareasService;
+
+    @Autowired
+    private VersionesService versionesService;
+
+    @Autowired
+    private PlanificadorRecordatoriosService planificadorRecordatorios;
+
     @PostMapping("/save-task")
     @ResponseBody
     public ResponseEntity<?> saveTask(@RequestBody Map<String, Object> payload, Authentication auth) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(null);
-            
-            if (managedUser == null) {
-                managedUser = usuarioRepository.findByCorreo(usuario.getCorreo()).orElse(null);
-            }
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(null);
             if (managedUser == null) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Usuario no encontrado en la base de datos"));
@@ -88,23 +122,15 @@ public class TaskController {
             // Convertir prioridad
             String prioridadStr = (String) payload.get("priority");
             if (prioridadStr != null) {
-                try {
-                    Tarea.Prioridad prioridad = parsePrioridad(prioridadStr);
-                    tarea.setPrioridad(prioridad != null ? prioridad : Tarea.Prioridad.Media);
-                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
-                    tarea.setPrioridad(Tarea.Prioridad.Media);
-                }
+                Tarea.Prioridad prioridad = Tarea.Prioridad.desde(prioridadStr);
+                tarea.setPrioridad(prioridad != null ? prioridad : Tarea.Prioridad.Media);
             }
 
             // Convertir estado
             String estadoStr = (String) payload.get("status");
             if (estadoStr != null) {
-                try {
-                    Tarea.Estado estado = parseEstado(estadoStr);
-                    tarea.setEstado(estado != null ? estado : Tarea.Estado.Pendiente);
-                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
-                    tarea.setEstado(Tarea.Estado.Pendiente);
-                }
+                Tarea.Estado estado = Tarea.Estado.desde(estadoStr);
+                tarea.setEstado(estado != null ? estado : Tarea.Estado.Pendiente);
             }
             
             // Asignar categoría
@@ -121,11 +147,16 @@ public class TaskController {
             
             tarea.setUsuario(managedUser);
             Tarea saved = tareaRepository.save(tarea);
+            versionesService.incrementar(managedUser.getId(), Recurso.TAREAS);
+            planificadorRecordatorios.tareaCambiada(saved);
             
             // Crear registro en historial (sin campo 'accion')
-            historialRepository.save(new Historial(saved, managedUser));
+            Historial h = new Historial(saved, managedUser);
+            escritorHistorial.registrar(h);
+            estadisticasService.registrarCambio(managedUser.getId(),
+                estadisticasService.capturar(null), estadisticasService.capturar(saved), esCompletada(h) ? 1 : 0);
             
-            return ResponseEntity.ok(convertTareaToMap(saved));
+            return ResponseEntity.ok(TareaDTO.desde(saved));
         } catch (RuntimeException e) {
             logger.error("Error guardando tarea", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -133,92 +164,16 @@ public class TaskController {
         }
     }
 
-    // Método para convertir String a Prioridad
-    private Tarea.Prioridad parsePrioridad(String prioridadStr) {
-        if (prioridadStr == null) return null;
-        try {
-            String t = prioridadStr.trim();
-            return Tarea.Prioridad.valueOf(t.substring(0, 1).toUpperCase() + t.substring(1).toLowerCase());
-        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
-            // Si falla, intenta comparar manualmente
-            for (Tarea.Prioridad p : Tarea.Prioridad.values()) {
-                if (p.name().equalsIgnoreCase(prioridadStr)) {
-                    return p;
-                }
-            }
-        }
-        return null;
-    }
-
-    // Método para convertir String a Estado
-    // Método para convertir String a Estado
-    private Tarea.Estado parseEstado(String estadoStr) {
-        if (estadoStr == null) return null;
-        String s = estadoStr.trim();
-    
-        // Intentar coincidencia directa con el nombre del enum
-        try {
-            return Tarea.Estado.valueOf(s);
-        } catch (IllegalArgumentException ignored) {}
-
-        // Reemplazar espacios por guiones bajos y volver a intentar
-        try {
-            return Tarea.Estado.valueOf(s.replace(" ", "_"));
-        } catch (IllegalArgumentException ignored) {}
-
-        // Mapeo manual para casos especiales
-        String sUpper = s.toUpperCase();
-            if (sUpper.equals("INCOMPLETA") || sUpper.equals("VENCIDA")) {
-                return Tarea.Estado.Incompleta;
-        }
-
-        // Igualar de forma insensible a mayúsculas/minúsculas
-        for (Tarea.Estado eVal : Tarea.Estado.values()) {
-            String name = eVal.name();
-            if (name.equalsIgnoreCase(s) || name.replace("_", " ").equalsIgnoreCase(s)) {
-                return eVal;
-            }
-        }
-
-        return null;
-    }
-
-    // Método para convertir Tarea a Map<String, Object> - CORREGIDO
-    private Map<String, Object> convertTareaToMap(Tarea tarea) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", tarea.getId());
-        map.put("title", tarea.getTitulo());
-        map.put("description", tarea.getDescripcion() != null ? tarea.getDescripcion() : "");
-        map.put("dueDate", tarea.getFechaLimite() != null ? tarea.getFechaLimite().toString() : "");
-        map.put("startDate", tarea.getFechaInicio() != null ? tarea.getFechaInicio().toString() : "");
-        map.put("priority", tarea.getPrioridad() != null ? tarea.getPrioridad().toString().toUpperCase() : "MEDIA");
-        // Enviamos el estado en mayúsculas con guiones bajos para que el cliente
-        // (JS) lo maneje fácilmente: PENDIENTE, EN_PROGRESO, COMPLETADA
-        map.put("status", tarea.getEstado() != null ? tarea.getEstado().toString().toUpperCase() : "PENDIENTE");
-        
-        // Devolver objeto completo de categoría con todos sus datos
-        if (tarea.getCategoria() != null) {
-            Map<String, Object> categoryMap = new HashMap<>();
-            categoryMap.put("id", tarea.getCategoria().getId());
-            categoryMap.put("nombre", tarea.getCategoria().getNombre());
-            categoryMap.put("color", tarea.getCategoria().getColor());
-            map.put("category", categoryMap);
-        } else {
-            map.put("category", null);
-        }
-        
-        return map;
+    // Un registro de historial con título corresponde a una tarea completada
+    private boolean esCompletada(Historial h) {
+        return h.getTitulo() != null;
     }
 
     @PostMapping(value = "/save-task", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
     public String saveTaskForm(@RequestParam Map<String, String> params, Authentication auth, RedirectAttributes redirectAttributes) {
         try {
             Usuario usuario = (Usuario) auth.getPrincipal();
-            Usuario managedUser = usuarioRepository.findById(usuario.getId()).orElse(null);
-            
-            if (managedUser == null) {
-                managedUser = usuarioRepository.findByCorreo(usuario.getCorreo()).orElse(null);
-            }
+            Usuario managedUser = usuarioActualService.referencia(usuario).orElse(null);
             if (managedUser == null) {
                 throw new IllegalStateException("Usuario no encontrado en la base de datos");
             }
@@ -241,7 +196,7 @@ public class TaskController {
             
             String prioridadStr = params.get("priority");
             if (prioridadStr != null) {
-                Tarea.Prioridad prioridad = parsePrioridad(prioridadStr);
+                Tarea.Prioridad prioridad = Tarea.Prioridad.desde(prioridadStr);
                 tarea.setPrioridad(prioridad != null ? prioridad : Tarea.Prioridad.Media);
             } else {
                 tarea.setPrioridad(Tarea.Prioridad.Media);
@@ -249,7 +204,7 @@ public class TaskController {
 
             String estadoStr = params.get("status");
             if (estadoStr != null) {
-                Tarea.Estado estado = parseEstado(estadoStr);
+                Tarea.Estado estado = Tarea.Estado.desde(estadoStr);
                 tarea.setEstado(estado != null ? estado : Tarea.Estado.Pendiente);
             } else {
                 tarea.setEstado(Tarea.Estado.Pendiente);
@@ -268,6 +223,10 @@ public class TaskController {
             
             tarea.setUsuario(managedUser);
             tareaRepository.save(tarea);
+            versionesService.incrementar(managedUser.getId(), Recurso.TAREAS);
+            planificadorRecordatorios.tareaCambiada(tarea);
+            estadisticasService.registrarCambio(managedUser.getId(),
+                estadisticasService.capturar(null), estadisticasService.capturar(tarea), 0);
             redirectAttributes.addFlashAttribute("success", "Tarea guardada correctamente");
             return "redirect:/dashboard";
         } catch (RuntimeException e) {
@@ -277,11 +236,29 @@ public class TaskController {
         }
     }
 
+    /**
+     * Alta masiva: array JSON o NDJSON con los mismos campos que /save-task.
+     * Devuelve cuántas filas se importaron y el error de cada fila rechazada.
+     */
+    @PostMapping("/api/tasks/bulk")
+    @ResponseBody
+    public ResponseEntity<?> importarTareas(InputStream cuerpo, Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        Usuario managedUser = usuarioActualService.referencia(usuario).orElse(null);
+        if (managedUser == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Usuario no encontrado en la base de datos"));
+        }
+        ResultadoImportacion resultado = importacionTareasService.importar(cuerpo, managedUser);
+        return ResponseEntity.ok(resultado);
+    }
+
     @PostMapping("/api/tasks/marcar-vencidas")
     @ResponseBody
     public ResponseEntity<?> marcarTareasVencidas(Authentication auth) {
         try {
-            int tareasActualizadas = tareaService.marcarTareasVencidasManual();
+            Usuario usuario = (Usuario) auth.getPrincipal();
+            int tareasActualizadas = tareaService.marcarTareasVencidasManual(usuario.getId());
         
             return ResponseEntity.ok(Map.of(
                 "success", true,
@@ -295,13 +272,75 @@ public class TaskController {
         }
     }
 
+    // Todas las tareas por páginas, como /api/tasks/pagina sin filtros.
+    // Con ETag: si no cambió nada (tampoco las categorías, que van en cada tarea), 304 sin consultar
     @GetMapping("/tasks")
     @ResponseBody
-    public List<Map<String, Object>> getTasks(Authentication auth) {
+    public ResponseEntity<?> getTasks(
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            Authentication auth, WebRequest peticion) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        List<Tarea> tareas = tareaRepository.findByUsuarioId(usuario.getId());
-        
-        return tareas.stream().map(this::convertTareaToMap).collect(Collectors.toList());
+        if (versionesService.noModificado(peticion, usuario.getId(), Recurso.TAREAS, Recurso.CATEGORIAS)) {
+            return null;
+        }
+        return pagina(usuario.getId(), new FiltroTareas(), orden, cursor, limite);
+    }
+
+    // Listado paginado por cursor con filtros del lado del servidor.
+    // orden: VENCIMIENTO (por defecto), VENCIMIENTO_DESC o RECIENTES
+    @GetMapping("/api/tasks/pagina")
+    @ResponseBody
+    public ResponseEntity<?> getTasksPagina(
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String prioridad,
+            @RequestParam(required = false) Integer categoriaId,
+            @RequestParam(required = false) String desde,
+            @RequestParam(required = false) String hasta,
+            @RequestParam(defaultValue = "false") boolean activas,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            Authentication auth) {
+        Usuario usuario = (Usuario) auth.getPrincipal();
+        try {
+            FiltroTareas filtro = new FiltroTareas();
+            if (estado != null && !estado.isBlank()) {
+                filtro.setEstado(requerido(Tarea.Estado.desde(estado), "Estado no válido: " + estado));
+            }
+            if (prioridad != null && !prioridad.isBlank()) {
+                filtro.setPrioridad(requerido(Tarea.Prioridad.desde(prioridad), "Prioridad no válida: " + prioridad));
+            }
+            filtro.setCategoriaId(categoriaId);
+            filtro.setDesde(desde != null && !desde.isBlank() ? LocalDate.parse(desde) : null);
+            filtro.setHasta(hasta != null && !hasta.isBlank() ? LocalDate.parse(hasta) : null);
+            filtro.setSoloActivas(activas);
+            return pagina(usuario.getId(), filtro, orden, cursor, limite);
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> pagina(Integer usuarioId, FiltroTareas filtro, String orden, String cursor,
+            Integer limite) {
+        try {
+            PaginaCursor<Tarea> pagina = listadoTareasService.listar(usuarioId, filtro,
+                ListadoTareasService.Orden.desde(orden), cursor, limite);
+
+            List<TareaDTO> items = pagina.getItems().stream()
+                .map(TareaDTO::desde).collect(Collectors.toList());
+            return ResponseEntity.ok(new PaginaCursor<>(items, pagina.getNextCursor()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static <T> T requerido(T valor, String mensaje) {
+        if (valor == null) {
+            throw new IllegalArgumentException(mensaje);
+        }
+        return valor;
     }
 
     @GetMapping("/edit-task/{id}")
@@ -326,42 +365,36 @@ public class TaskController {
 
     @GetMapping("/api/tasks/proximas-vencer")
     @ResponseBody
-    public List<Map<String, Object>> getProximasAVencer(Authentication auth) {
+    public List<TareaDTO> getProximasAVencer(Authentication auth) {
         Usuario usuario = (Usuario) auth.getPrincipal();
         LocalDate hoy = LocalDate.now();
         LocalDate dentroTresDias = hoy.plusDays(3);
         
-        List<Tarea> tareas = tareaRepository.findProximasAVencer(
+        return tareaRepository.findDtoProximasAVencer(
             usuario.getId(), 
             hoy, 
             dentroTresDias
         );
-        
-        return tareas.stream().map(this::convertTareaToMap).collect(Collectors.toList());
     }
 
     @GetMapping("/api/tasks/vencidas")
     @ResponseBody
-    public List<Map<String, Object>> getVencidas(Authentication auth) {
+    public List<TareaDTO> getVencidas(Authentication auth) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        LocalDate hoy = LocalDate.now();
-        
-        List<Tarea> tareas = tareaRepository.findVencidas(usuario.getId(), hoy);
-        
-        return tareas.stream().map(this::convertTareaToMap).collect(Collectors.toList());
+        return tareaRepository.findDtoVencidas(usuario.getId());
     }
 
     @GetMapping("/api/stats")
     @ResponseBody
     public Map<String, Object> getStats(Authentication auth) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        LocalDate hoy = LocalDate.now();
+        TaskStatsDTO dto = estadisticasService.obtenerEstadisticas(usuario.getId());
         
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalActivas", tareaRepository.countActivasByUsuarioId(usuario.getId()));
-        stats.put("vencenHoy", tareaRepository.countVencenHoyByUsuarioId(usuario.getId(), hoy));
-        stats.put("prioridadAlta", tareaRepository.countPrioridadAltaByUsuarioId(usuario.getId()));
-        stats.put("completadasHoy", tareaRepository.countCompletadasEnFecha(usuario.getId(), hoy));
+        stats.put("totalActivas", dto.getTotalActivas());
+        stats.put("vencenHoy", dto.getVencenHoy());
+        stats.put("prioridadAlta", dto.getPrioridadAlta());
+        stats.put("completadasHoy", dto.getCompletadasHoy());
         
         return stats;
     }
@@ -397,39 +430,34 @@ public class TaskController {
         return "history";
     }
 
+    // Las no completadas por páginas, como /api/tasks/pagina?activas=true
     @GetMapping("/api/tasks/active")
     @ResponseBody
-    public List<Map<String, Object>> getActiveTasks(Authentication auth) {
+    public ResponseEntity<?> getActiveTasks(
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            Authentication auth) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        List<Tarea> tareas = tareaRepository.findByUsuarioIdAndEstadoNot(
-            usuario.getId(), 
-            Tarea.Estado.Completada
-        );
-        
-        return tareas.stream().map(this::convertTareaToMap).collect(Collectors.toList());
+        FiltroTareas filtro = new FiltroTareas();
+        filtro.setSoloActivas(true);
+        return pagina(usuario.getId(), filtro, orden, cursor, limite);
     }
 
+    // Completadas por páginas (más recientes primero), en una sola consulta sobre historial
     @GetMapping("/api/tasks/completed")
     @ResponseBody
-    public List<Map<String, Object>> getCompletedTasks(Authentication auth) {
+    public ResponseEntity<?> getCompletedTasks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            Authentication auth) {
         Usuario usuario = (Usuario) auth.getPrincipal();
-        List<Historial> historial = historialRepository.findByUsuarioIdAndTituloIsNotNullOrderByFechaDesc(
-            usuario.getId()
-        );
-        
-        return historial.stream().map(h -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", h.getTarea().getId());
-            map.put("historialId", h.getId());
-            map.put("title", h.getTitulo());
-            map.put("description", h.getDescripcion() != null ? h.getDescripcion() : "");
-            map.put("category", h.getCategoriaNombre() != null ? h.getCategoriaNombre() : "Sin categoría");
-            map.put("startDate", h.getFechaInicio() != null ? h.getFechaInicio().toString() : ""); 
-            map.put("dueDate", h.getFechaLimite() != null ? h.getFechaLimite().toString() : "");
-            map.put("priority", h.getTarea().getPrioridad().toString().toUpperCase());
-            map.put("status", "COMPLETADA");
-            return map;
-        }).collect(Collectors.toList());
+        try {
+            PaginaCursor<TareaCompletadaDTO> pagina = listadoTareasService.listarCompletadas(usuario.getId(), cursor, limite);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @PostMapping("/tasks/{id}/restore")
@@ -445,22 +473,19 @@ public class TaskController {
             }
             
             Tarea tarea = tareaOpt.get();
+            Tarea.Estado estadoAnterior = tarea.getEstado();
             
             // Cambiar el estado a Pendiente
             tarea.setEstado(Tarea.Estado.Pendiente);
-            tareaRepository.save(tarea);
-            
-            // Eliminar los registros de "Tarea completada" del historial
-            List<Historial> historialesCompletados = historialRepository.findByTareaIdAndTituloIsNotNull(
-                tarea.getId()
-            );
-            
-            if (!historialesCompletados.isEmpty()) {
-                historialRepository.deleteAll(historialesCompletados);
-            }
+            edicionTareasService.guardar(tarea, estadoAnterior);
+            versionesService.incrementar(usuario.getId(), Recurso.TAREAS);
+            planificadorRecordatorios.tareaCambiada(tarea);
             
-            // Registrar la restauración en el historial (sin campo 'accion')
-            historialRepository.save(new Historial(tarea, usuario));
+            // Registrar la restauración en el historial (sin campo 'accion'). El escritor
+            // borra antes los registros de "Tarea completada", también los que aún tenga en cola
+            escritorHistorial.registrarRestauracion(new Historial(tarea, usuario));
+            // Cuántas completadas de hoy se van no se sabe hasta que se escriba
+            estadisticasService.invalidar(usuario.getId());
             
             return ResponseEntity.ok(Map.of("success", true, "message", "Tarea restaurada al dashboard"));
         } catch (RuntimeException e) {
@@ -514,9 +539,13 @@ public class TaskController {
         Optional<Tarea> tarea = tareaRepository.findById(id);
         
         if (tarea.isPresent() && tarea.get().getUsuario().getId().equals(usuario.getId())) {
-            // Registrar eliminación en historial antes de borrar (sin campo 'accion')
-            historialRepository.save(new Historial(tarea.get(), usuario));
-            tareaRepository.deleteById(id);
+            // Sin registro de eliminación: el borrado en cascada se lo llevaría con la tarea.
+            // Su historial aún en cola ya no se escribe (el escritor lo descarta al no existir la tarea)
+            edicionTareasService.eliminar(tarea.get());
+            // El recuento de tareas de sus proyectos también cambia
+            versionesService.incrementar(usuario.getId(), Recurso.TAREAS, Recurso.PROYECTOS);
+            // Con ella se van sus completadas de hoy, escritas o no: se recalcula
+            estadisticasService.invalidar(usuario.getId());
             return Map.of("success", true);
         }
         return Map.of("success", false);
@@ -535,71 +564,32 @@ public class TaskController {
             }
             
             Tarea tarea = existingTarea.get();
+            Huella antes = estadisticasService.capturar(tarea);
+            Tarea.Estado estadoAnterior = tarea.getEstado();
             
-            
-            tarea.setTitulo((String) payload.get("title"));
-            tarea.setDescripcion((String) payload.get("description"));
-            
-            String dueDateStr = (String) payload.get("dueDate");
-            if (dueDateStr != null && !dueDateStr.isEmpty()) {
-                try {
-                    String ds3 = dueDateStr.trim();
-                    String part3 = ds3.length() >= 10 ? ds3.substring(0, 10) : ds3;
-                    LocalDate fechaLimite = LocalDate.parse(part3);
-                    tarea.setFechaLimite(fechaLimite);
-                } catch (java.time.format.DateTimeParseException | IndexOutOfBoundsException e) {
-                    logger.warn("Error parseando fecha: " + dueDateStr, e);
-                }
+            List<String> cambios = edicionTareasService.aplicar(tarea, payload, usuario);
+            if (cambios.isEmpty()) {
+                // Formulario reenviado sin cambios: ni UPDATE ni historial, la tarea tal cual
+                return ResponseEntity.ok(TareaDTO.desde(tarea));
             }
             
-            String prioridadStr = (String) payload.get("priority");
-            if (prioridadStr != null) {
-                try {
-                    Tarea.Prioridad prioridad = parsePrioridad(prioridadStr);
-                    if (prioridad != null) {
-                        tarea.setPrioridad(prioridad);
-                    }
-                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
-                    // mantener prioridad existente
-                }
-            }
-            
-            String estadoStr = (String) payload.get("status");
-            if (estadoStr != null) {
-                try {
-                    Tarea.Estado estado = parseEstado(estadoStr);
-                    if (estado != null) {
-                        tarea.setEstado(estado);
-                    }
-                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
-                    // mantener estado existente
-                }
-            }
-            
-            // Actualizar categoría
-            Object categoriaIdObj = payload.get("categoryId");
-            if (categoriaIdObj != null) {
-                if (categoriaIdObj.toString().isEmpty()) {
-                    tarea.setCategoria(null);
-                } else {
-                    try {
-                        Integer categoriaId = Integer.parseInt(categoriaIdObj.toString());
-                        categoriaService.getCategoriaById(categoriaId, usuario)
-                            .ifPresent(tarea::setCategoria);
-                    } catch (NumberFormatException e) {
-                        logger.warn("Error actualizando categoría - id no numérico: {}", categoriaIdObj, e);
-                    }
-                }
-            }
-            
-            Tarea saved = tareaRepository.save(tarea);
+            // @DynamicUpdate: el UPDATE solo lleva las columnas cambiadas
+            Tarea saved = edicionTareasService.guardar(tarea, estadoAnterior);
+            versionesService.incrementar(usuario.getId(), Recurso.TAREAS);
+            planificadorRecordatorios.tareaCambiada(saved);
             
             // Guardar en historial. Los datos relevantes de la tarea completada
             // se almacenan automáticamente en el constructor cuando el estado
-            // de la tarea es `Completada`.
-            historialRepository.save(new Historial(saved, usuario));
+            // de la tarea es `Completada`; el resto de ediciones anotan qué cambió.
+            Historial h = new Historial(saved, usuario);
+            if (!esCompletada(h)) {
+                h.setAccion("Editada: " + String.join(", ", cambios));
+            }
+            escritorHistorial.registrar(h);
+            estadisticasService.registrarCambio(usuario.getId(), antes, estadisticasService.capturar(saved),
+                esCompletada(h) ? 1 : 0);
             
-            return ResponseEntity.ok(convertTareaToMap(saved));
+            return ResponseEntity.ok(TareaDTO.desde(saved));
         } catch (RuntimeException e) {
             logger.error("Error actualizando tarea", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
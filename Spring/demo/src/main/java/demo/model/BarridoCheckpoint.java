@@ -0,0 +1,86 @@
+package demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+
+/**
+ * Punto de control de un barrido por lotes. Guarda el último id procesado
+ * para poder reanudar el barrido si la aplicación se detiene a mitad.
+ */
+@Entity
+@Table(name = "barrido_checkpoints")
+public class BarridoCheckpoint {
+    
+    @Id
+    @Column(length = 50)
+    private String nombre;
+    
+    // Fecha de corte con la que se inició el barrido
+    @Column(name = "fecha_corte", nullable = false)
+    private LocalDate fechaCorte;
+    
+    @Column(name = "ultimo_id", nullable = false)
+    private Integer ultimoId = 0;
+    
+    @Column(name = "filas_actualizadas", nullable = false)
+    private Long filasActualizadas = 0L;
+    
+    @Column(nullable = false)
+    private Integer lotes = 0;
+    
+    @Column(nullable = false)
+    private Boolean completado = false;
+    
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        fechaActualizacion = LocalDateTime.now();
+    }
+    
+    public BarridoCheckpoint() {}
+    
+    public BarridoCheckpoint(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    // Reinicia el punto de control para un barrido nuevo
+    public void reiniciar(LocalDate fechaCorte) {
+        this.fechaCorte = fechaCorte;
+        this.ultimoId = 0;
+        this.filasActualizadas = 0L;
+        this.lotes = 0;
+        this.completado = false;
+    }
+    
+    // Getters y Setters
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    
+    public LocalDate getFechaCorte() { return fechaCorte; }
+    public void setFechaCorte(LocalDate fechaCorte) { this.fechaCorte = fechaCorte; }
+    
+    public Integer getUltimoId() { return ultimoId; }
+    public void setUltimoId(Integer ultimoId) { this.ultimoId = ultimoId; }
+    
+    public Long getFilasActualizadas() { return filasActualizadas; }
+    public void setFilasActualizadas(Long filasActualizadas) { this.filasActualizadas = filasActualizadas; }
+    
+    public Integer getLotes() { return lotes; }
+    public void setLotes(Integer lotes) { this.lotes = lotes; }
+    
+    public Boolean getCompletado() { return completado; }
+    public void setCompletado(Boolean completado) { this.completado = completado; }
+    
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
@@ -0,0 +1,118 @@
+package demo.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Convierte texto a una constante de enum sin lanzar excepciones ni crear
+ * objetos: ignora mayúsculas/minúsculas y espacios alrededor, y trata igual
+ * ' ', '-' y '_' ("En progreso", "EN_PROGRESO", "en-progreso").
+ * Los nombres del enum y los alias se normalizan una vez en una tabla hash
+ * abierta; la búsqueda normaliza carácter a carácter mientras compara.
+ */
+public final class CodificadorEnum<E extends Enum<E>> {
+
+    private final char[][] claves;
+    private final int[] hashes;
+    private final E[] valores;
+    private final int mascara;
+
+    public CodificadorEnum(Class<E> tipo, Map<String, E> alias) {
+        Map<String, E> entradas = new LinkedHashMap<>();
+        for (E valor : tipo.getEnumConstants()) {
+            entradas.put(normalizar(valor.name()), valor);
+        }
+        for (Map.Entry<String, E> a : alias.entrySet()) {
+            entradas.put(normalizar(a.getKey()), a.getValue());
+        }
+
+        int capacidad = Integer.highestOneBit(Math.max(entradas.size(), 1) * 4);
+        claves = new char[capacidad][];
+        hashes = new int[capacidad];
+        @SuppressWarnings("unchecked")
+        E[] tabla = (E[]) new Enum<?>[capacidad];
+        valores = tabla;
+        mascara = capacidad - 1;
+
+        for (Map.Entry<String, E> e : entradas.entrySet()) {
+            char[] clave = e.getKey().toCharArray();
+            int h = hash(clave);
+            int i = h & mascara;
+            while (claves[i] != null) {
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clave;
+            hashes[i] = h;
+            valores[i] = e.getValue();
+        }
+    }
+
+    /**
+     * Constante que corresponde al texto, o null si es nulo, vacío o desconocido.
+     */
+    public E parse(CharSequence texto) {
+        if (texto == null) {
+            return null;
+        }
+        int inicio = 0;
+        int fin = texto.length();
+        while (inicio < fin && Character.isWhitespace(texto.charAt(inicio))) {
+            inicio++;
+        }
+        while (fin > inicio && Character.isWhitespace(texto.charAt(fin - 1))) {
+            fin--;
+        }
+        if (inicio == fin) {
+            return null;
+        }
+
+        int h = 0;
+        for (int k = inicio; k < fin; k++) {
+            h = 31 * h + normalizar(texto.charAt(k));
+        }
+        h ^= h >>> 16;
+
+        for (int i = h & mascara; claves[i] != null; i = (i + 1) & mascara) {
+            if (hashes[i] == h && coincide(claves[i], texto, inicio, fin)) {
+                return valores[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean coincide(char[] clave, CharSequence texto, int inicio, int fin) {
+        if (clave.length != fin - inicio) {
+            return false;
+        }
+        for (int k = 0; k < clave.length; k++) {
+            if (clave[k] != normalizar(texto.charAt(inicio + k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(char[] clave) {
+        int h = 0;
+        for (char c : clave) {
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static String normalizar(String texto) {
+        String t = texto.trim();
+        StringBuilder sb = new StringBuilder(t.length());
+        for (int k = 0; k < t.length(); k++) {
+            sb.append(normalizar(t.charAt(k)));
+        }
+        return sb.toString();
+    }
+
+    private static char normalizar(char c) {
+        if (c == ' ' || c == '-') {
+            return '_';
+        }
+        return Character.toUpperCase(c);
+    }
+}
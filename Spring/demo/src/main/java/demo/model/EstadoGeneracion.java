@@ -0,0 +1,102 @@
+package demo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progreso y métricas de la última generación automática de notificaciones.
+ */
+public class EstadoGeneracion {
+    private boolean enCurso;
+    private LocalDateTime inicio;
+    private long duracionMs;
+    private int usuariosTotales;
+    private int usuariosProcesados;
+    private int insertadas;
+    private int omitidas;
+    private int lotes;
+    
+    public EstadoGeneracion() {}
+    
+    // Copia para exponer el estado sin compartir la instancia en curso
+    public EstadoGeneracion copia() {
+        EstadoGeneracion c = new EstadoGeneracion();
+        c.enCurso = enCurso;
+        c.inicio = inicio;
+        c.duracionMs = duracionMs;
+        c.usuariosTotales = usuariosTotales;
+        c.usuariosProcesados = usuariosProcesados;
+        c.insertadas = insertadas;
+        c.omitidas = omitidas;
+        c.lotes = lotes;
+        return c;
+    }
+    
+    // Getters y Setters
+    public boolean isEnCurso() {
+        return enCurso;
+    }
+    
+    public void setEnCurso(boolean enCurso) {
+        this.enCurso = enCurso;
+    }
+    
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+    
+    public void setInicio(LocalDateTime inicio) {
+        this.inicio = inicio;
+    }
+    
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+    
+    public void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+    
+    public int getUsuariosTotales() {
+        return usuariosTotales;
+    }
+    
+    public void setUsuariosTotales(int usuariosTotales) {
+        this.usuariosTotales = usuariosTotales;
+    }
+    
+    public int getUsuariosProcesados() {
+        return usuariosProcesados;
+    }
+    
+    public void setUsuariosProcesados(int usuariosProcesados) {
+        this.usuariosProcesados = usuariosProcesados;
+    }
+    
+    public int getInsertadas() {
+        return insertadas;
+    }
+    
+    public void setInsertadas(int insertadas) {
+        this.insertadas = insertadas;
+    }
+    
+    public int getOmitidas() {
+        return omitidas;
+    }
+    
+    public void setOmitidas(int omitidas) {
+        this.omitidas = omitidas;
+    }
+    
+    public int getLotes() {
+        return lotes;
+    }
+    
+    public void setLotes(int lotes) {
+        this.lotes = lotes;
+    }
+    
+    public double getProgreso() {
+        return usuariosTotales == 0 ? (enCurso ? 0.0 : 1.0) : (double) usuariosProcesados / usuariosTotales;
+    }
+}
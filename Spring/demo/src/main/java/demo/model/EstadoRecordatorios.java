@@ -0,0 +1,51 @@
+package demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Estado del planificador de recordatorios de vencimiento.
+ */
+public class EstadoRecordatorios {
+    private final boolean activo;
+    private final int pendientes;
+    private final LocalDate cargadosHasta;
+    private final long enviados;
+    private final long descartados;
+    private final LocalDateTime ultimoEnvio;
+
+    public EstadoRecordatorios(boolean activo, int pendientes, LocalDate cargadosHasta,
+                               long enviados, long descartados, LocalDateTime ultimoEnvio) {
+        this.activo = activo;
+        this.pendientes = pendientes;
+        this.cargadosHasta = cargadosHasta;
+        this.enviados = enviados;
+        this.descartados = descartados;
+        this.ultimoEnvio = ultimoEnvio;
+    }
+
+    // Getters
+    public boolean isActivo() {
+        return activo;
+    }
+
+    public int getPendientes() {
+        return pendientes;
+    }
+
+    public LocalDate getCargadosHasta() {
+        return cargadosHasta;
+    }
+
+    public long getEnviados() {
+        return enviados;
+    }
+
+    public long getDescartados() {
+        return descartados;
+    }
+
+    public LocalDateTime getUltimoEnvio() {
+        return ultimoEnvio;
+    }
+}
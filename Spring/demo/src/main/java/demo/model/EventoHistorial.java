@@ -0,0 +1,129 @@
+package demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Registro de historial pendiente de escribir: copia inmutable de los datos de
+ * un Historial recién creado, con la secuencia que le asigna el escritor.
+ * Es también el formato (JSON, una línea por evento) del fichero de pendientes.
+ * Un evento de restauración borra antes los registros de "Tarea completada" de
+ * su tarea, en el orden en que llegó respecto a los demás eventos.
+ */
+public final class EventoHistorial {
+    private final long secuencia;
+    private final Integer tareaId;
+    private final Integer usuarioId;
+    private final String accion;
+    private final LocalDateTime fecha;
+    private final String titulo;
+    private final String descripcion;
+    private final String categoriaNombre;
+    private final LocalDate fechaLimite;
+    private final LocalDate fechaInicio;
+    private final Tarea.Prioridad prioridad;
+    private final boolean restauracion;
+
+    @JsonCreator
+    public EventoHistorial(
+            @JsonProperty("secuencia") long secuencia,
+            @JsonProperty("tareaId") Integer tareaId,
+            @JsonProperty("usuarioId") Integer usuarioId,
+            @JsonProperty("accion") String accion,
+            @JsonProperty("fecha") LocalDateTime fecha,
+            @JsonProperty("titulo") String titulo,
+            @JsonProperty("descripcion") String descripcion,
+            @JsonProperty("categoriaNombre") String categoriaNombre,
+            @JsonProperty("fechaLimite") LocalDate fechaLimite,
+            @JsonProperty("fechaInicio") LocalDate fechaInicio,
+            @JsonProperty("prioridad") Tarea.Prioridad prioridad,
+            @JsonProperty("restauracion") boolean restauracion) {
+        this.secuencia = secuencia;
+        this.tareaId = tareaId;
+        this.usuarioId = usuarioId;
+        this.accion = accion;
+        this.fecha = fecha;
+        this.titulo = titulo;
+        this.descripcion = descripcion;
+        this.categoriaNombre = categoriaNombre;
+        this.fechaLimite = fechaLimite;
+        this.fechaInicio = fechaInicio;
+        this.prioridad = prioridad;
+        this.restauracion = restauracion;
+    }
+
+    // La tarea debe tener id (ya guardada)
+    public static EventoHistorial desde(Historial h, long secuencia, LocalDateTime fecha, boolean restauracion) {
+        return new EventoHistorial(secuencia, h.getTareaId(), h.getUsuario().getId(), h.getAccion(), fecha,
+            h.getTitulo(), h.getDescripcion(), h.getCategoriaNombre(), h.getFechaLimite(), h.getFechaInicio(),
+            h.getPrioridad(), restauracion);
+    }
+
+    // Entidad lista para persistir; tarea y usuario pueden ser referencias sin cargar
+    public Historial aHistorial(Tarea tarea, Usuario usuario) {
+        Historial h = new Historial();
+        h.setTarea(tarea);
+        h.setUsuario(usuario);
+        h.setAccion(accion != null ? accion : "");
+        h.setFecha(fecha);
+        h.setTitulo(titulo);
+        h.setDescripcion(descripcion);
+        h.setCategoriaNombre(categoriaNombre);
+        h.setFechaLimite(fechaLimite);
+        h.setFechaInicio(fechaInicio);
+        h.setPrioridad(prioridad);
+        return h;
+    }
+
+    // Getters
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    public Integer getTareaId() {
+        return tareaId;
+    }
+
+    public Integer getUsuarioId() {
+        return usuarioId;
+    }
+
+    public String getAccion() {
+        return accion;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public String getCategoriaNombre() {
+        return categoriaNombre;
+    }
+
+    public LocalDate getFechaLimite() {
+        return fechaLimite;
+    }
+
+    public LocalDate getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public Tarea.Prioridad getPrioridad() {
+        return prioridad;
+    }
+
+    public boolean isRestauracion() {
+        return restauracion;
+    }
+}
@@ -0,0 +1,66 @@
+package demo.model;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros opcionales del listado paginado de tareas (null = sin filtro).
+ */
+public class FiltroTareas {
+    private Tarea.Estado estado;
+    private Tarea.Prioridad prioridad;
+    private Integer categoriaId;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private boolean soloActivas;
+    
+    public FiltroTareas() {}
+    
+    // Getters y Setters
+    public Tarea.Estado getEstado() {
+        return estado;
+    }
+    
+    public void setEstado(Tarea.Estado estado) {
+        this.estado = estado;
+    }
+    
+    public Tarea.Prioridad getPrioridad() {
+        return prioridad;
+    }
+    
+    public void setPrioridad(Tarea.Prioridad prioridad) {
+        this.prioridad = prioridad;
+    }
+    
+    public Integer getCategoriaId() {
+        return categoriaId;
+    }
+    
+    public void setCategoriaId(Integer categoriaId) {
+        this.categoriaId = categoriaId;
+    }
+    
+    public LocalDate getDesde() {
+        return desde;
+    }
+    
+    public void setDesde(LocalDate desde) {
+        this.desde = desde;
+    }
+    
+    public LocalDate getHasta() {
+        return hasta;
+    }
+    
+    public void setHasta(LocalDate hasta) {
+        this.hasta = hasta;
+    }
+    
+    public boolean isSoloActivas() {
+        return soloActivas;
+    }
+    
+    public void setSoloActivas(boolean soloActivas) {
+        this.soloActivas = soloActivas;
+    }
+}
@@ -0,0 +1,57 @@
+package demo.model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import demo.ReservaIdentificadores;
+
+/**
+ * Generador de {@link IdPorBloques}. Reparte en memoria los ids de un bloque y,
+ * cuando se agota, reserva el siguiente con ReservaIdentificadores, que usa una
+ * conexión propia: el TableGenerator de Hibernate pide una segunda conexión al
+ * pool mientras la petición ya tiene una, y con el pool lleno se bloquean todas.
+ */
+public class GeneradorIdPorBloques implements IdentifierGenerator {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String segmento;
+    private final int tamanoBloque;
+    private final boolean largo;
+    // Bean de Spring que llega en las propiedades de Hibernate; no se serializa
+    private final transient ReservaIdentificadores reserva;
+
+    // Protegidos por this
+    private long siguiente;
+    private long limite;
+
+    public GeneradorIdPorBloques(IdPorBloques config, Member miembro, CustomIdGeneratorCreationContext contexto) {
+        this.segmento = config.segmento();
+        this.tamanoBloque = config.tamanoBloque();
+        Class<?> tipo = miembro instanceof Field f ? f.getType() : ((Method) miembro).getReturnType();
+        this.largo = tipo == Long.class || tipo == long.class;
+        Object reserva = contexto.getServiceRegistry().requireService(ConfigurationService.class)
+            .getSettings().get(ReservaIdentificadores.PROPIEDAD);
+        if (!(reserva instanceof ReservaIdentificadores r)) {
+            throw new IllegalStateException("Falta la propiedad de Hibernate " + ReservaIdentificadores.PROPIEDAD
+                + " (ReservaIdentificadores) para los ids de " + segmento);
+        }
+        this.reserva = r;
+    }
+
+    @Override
+    public synchronized Object generate(SharedSessionContractImplementor session, Object entidad) {
+        if (siguiente >= limite) {
+            siguiente = reserva.reservar(segmento, tamanoBloque);
+            limite = siguiente + tamanoBloque;
+        }
+        long id = siguiente++;
+        return largo ? (Object) id : (Object) Math.toIntExact(id);
+    }
+}
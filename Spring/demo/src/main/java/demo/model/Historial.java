@@ -5,9 +5,9 @@ import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -19,13 +19,23 @@ import jakarta.persistence.Table;
 public class Historial {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdPorBloques(segmento = "historial")
     private Integer id;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tarea_id", nullable = false)
     private Tarea tarea;
     
+    // Misma columna que la relación, de solo lectura: el listado de completadas
+    // obtiene el id de la tarea sin cargarla
+    @Column(name = "tarea_id", insertable = false, updatable = false)
+    private Integer tareaId;
+    
+    // Prioridad de la tarea cuando se creó el registro
+    @Enumerated(EnumType.STRING)
+    @Column(length = 5)
+    private Tarea.Prioridad prioridad;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
@@ -54,9 +64,12 @@ public class Historial {
     @Column(name = "fecha_inicio")  // ← AGREGAR ESTE CAMPO
     private LocalDate fechaInicio;
     
+    // Los registros escritos en diferido ya traen la fecha de la petición
     @PrePersist
     protected void onCreate() {
-        fecha = LocalDateTime.now();
+        if (fecha == null) {
+            fecha = LocalDateTime.now();
+        }
     }
     
     public Historial() {}
@@ -64,6 +77,10 @@ public class Historial {
     public Historial(Tarea tarea, Usuario usuario) {
         this.tarea = tarea;
         this.usuario = usuario;
+        if (tarea != null) {
+            this.tareaId = tarea.getId();
+            this.prioridad = tarea.getPrioridad();
+        }
 
         // Si la tarea está en estado "Completada", guardamos los datos relevantes
         if (tarea != null && tarea.getEstado() == Tarea.Estado.Completada) {
@@ -89,6 +106,11 @@ public class Historial {
     public Tarea getTarea() { return tarea; }
     public void setTarea(Tarea tarea) { this.tarea = tarea; }
     
+    public Integer getTareaId() { return tareaId != null ? tareaId : (tarea != null ? tarea.getId() : null); }
+    
+    public Tarea.Prioridad getPrioridad() { return prioridad; }
+    public void setPrioridad(Tarea.Prioridad prioridad) { this.prioridad = prioridad; }
+    
     public Usuario getUsuario() { return usuario; }
     public void setUsuario(Usuario usuario) { this.usuario = usuario; }
     
@@ -0,0 +1,23 @@
+package demo.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Id reservado por bloques en la tabla id_generadores (fila = segmento).
+ * Como no es IDENTITY, Hibernate puede agrupar los INSERT en lotes JDBC.
+ */
+@IdGeneratorType(GeneradorIdPorBloques.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface IdPorBloques {
+
+    // Valor de la columna entidad en id_generadores
+    String segmento();
+
+    int tamanoBloque() default 50;
+}
@@ -5,8 +5,6 @@ import java.time.LocalDateTime;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -17,8 +15,11 @@ import jakarta.persistence.Table;
 @Table(name = "notificaciones")
 public class Notificacion {
     
+    // Ids por bloques de 50 (id_generadores): a diferencia de IDENTITY,
+    // permite que Hibernate agrupe los INSERT en lotes JDBC. Los bloques se reservan
+    // con conexiones propias, no del pool de las peticiones (ver GeneradorIdPorBloques)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdPorBloques(segmento = "notificaciones")
     private Integer id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,71 @@
+package demo.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Representación JSON de una notificación, igual a la que devuelve
+ * /api/notificaciones. También es el payload de los eventos SSE.
+ */
+public class NotificacionDTO {
+    private final Integer id;
+    private final String tipo;
+    private final String mensaje;
+    private final Boolean leida;
+    private final String fechaCreacion;
+    private final Integer tareaId;
+    private final String tareaTitulo;
+
+    public NotificacionDTO(Integer id, String tipo, String mensaje, Boolean leida, String fechaCreacion,
+                           Integer tareaId, String tareaTitulo) {
+        this.id = id;
+        this.tipo = tipo;
+        this.mensaje = mensaje;
+        this.leida = leida;
+        this.fechaCreacion = fechaCreacion;
+        this.tareaId = tareaId;
+        this.tareaTitulo = tareaTitulo;
+    }
+
+    // Proyección JPQL (NotificacionRepository.SELECT_NOTIFICACION_DTO)
+    public NotificacionDTO(Integer id, String tipo, String mensaje, Boolean leida, LocalDateTime fechaCreacion,
+                           Integer tareaId, String tareaTitulo) {
+        this(id, tipo, mensaje, leida, fechaCreacion != null ? fechaCreacion.toString() : null, tareaId, tareaTitulo);
+    }
+
+    // La tarea, si la hay, debe estar inicializada
+    public static NotificacionDTO desde(Notificacion n) {
+        Tarea t = n.getTarea();
+        return new NotificacionDTO(n.getId(), n.getTipo(), n.getMensaje(), n.getLeida(),
+            n.getFechaCreacion() != null ? n.getFechaCreacion().toString() : null,
+            t != null ? t.getId() : null, t != null ? t.getTitulo() : null);
+    }
+
+    // Getters
+    public Integer getId() {
+        return id;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public Boolean getLeida() {
+        return leida;
+    }
+
+    public String getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public Integer getTareaId() {
+        return tareaId;
+    }
+
+    public String getTareaTitulo() {
+        return tareaTitulo;
+    }
+}
@@ -0,0 +1,40 @@
+package demo.model;
+
+import java.util.List;
+
+/**
+ * Página de un listado con paginación por cursor (keyset).
+ * nextCursor es null cuando no quedan más resultados.
+ */
+public class PaginaCursor<T> {
+    private List<T> items;
+    private String nextCursor;
+    
+    public PaginaCursor() {}
+    
+    public PaginaCursor(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters y Setters
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
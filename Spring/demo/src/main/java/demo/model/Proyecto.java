@@ -54,6 +54,8 @@ public class Proyecto {
     @Column(name = "fecha_creacion", nullable = false, updatable = false)
     private LocalDateTime fechaCreacion;
     
+    // Solo lectura en la práctica: las altas y bajas van directas a proyecto_tareas
+    // (ProyectoService.agregarTareas/quitarTareas) para no reescribir la colección
     @ManyToMany
     @JoinTable(
         name = "proyecto_tareas",
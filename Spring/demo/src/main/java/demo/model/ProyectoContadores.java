@@ -0,0 +1,107 @@
+package demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Contadores materializados de las tareas de un proyecto por estado.
+ * Se ajustan con UPDATE relativos (ver ContadoresProyectoService) en la misma
+ * transacción que el cambio que los provoca, así que el progreso de un
+ * proyecto se lee sin recorrer sus tareas.
+ */
+@Entity
+@Table(name = "proyecto_contadores")
+public class ProyectoContadores {
+
+    @Id
+    @Column(name = "proyecto_id")
+    private Integer proyectoId;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Column(nullable = false)
+    private long pendientes;
+
+    @Column(name = "en_progreso", nullable = false)
+    private long enProgreso;
+
+    @Column(nullable = false)
+    private long completadas;
+
+    @Column(nullable = false)
+    private long incompletas;
+
+    public ProyectoContadores() {}
+
+    public ProyectoContadores(Integer proyectoId) {
+        this.proyectoId = proyectoId;
+    }
+
+    // Para los recuentos calculados desde proyecto_tareas (SELECT new ...)
+    public ProyectoContadores(Integer proyectoId, long total, long pendientes, long enProgreso,
+                              long completadas, long incompletas) {
+        this.proyectoId = proyectoId;
+        this.total = total;
+        this.pendientes = pendientes;
+        this.enProgreso = enProgreso;
+        this.completadas = completadas;
+        this.incompletas = incompletas;
+    }
+
+    public boolean mismosValores(ProyectoContadores otro) {
+        return total == otro.total && pendientes == otro.pendientes && enProgreso == otro.enProgreso
+            && completadas == otro.completadas && incompletas == otro.incompletas;
+    }
+
+    // Getters y Setters
+    public Integer getProyectoId() {
+        return proyectoId;
+    }
+
+    public void setProyectoId(Integer proyectoId) {
+        this.proyectoId = proyectoId;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getPendientes() {
+        return pendientes;
+    }
+
+    public void setPendientes(long pendientes) {
+        this.pendientes = pendientes;
+    }
+
+    public long getEnProgreso() {
+        return enProgreso;
+    }
+
+    public void setEnProgreso(long enProgreso) {
+        this.enProgreso = enProgreso;
+    }
+
+    public long getCompletadas() {
+        return completadas;
+    }
+
+    public void setCompletadas(long completadas) {
+        this.completadas = completadas;
+    }
+
+    public long getIncompletas() {
+        return incompletas;
+    }
+
+    public void setIncompletas(long incompletas) {
+        this.incompletas = incompletas;
+    }
+}
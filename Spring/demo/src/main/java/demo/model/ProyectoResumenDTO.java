@@ -0,0 +1,91 @@
+package demo.model;
+
+import java.time.LocalDate;
+
+/**
+ * Fila del listado de proyectos con sus contadores de tareas.
+ * Sale de una única consulta (SELECT new ...) que lee los contadores
+ * materializados de proyecto_contadores, así que el coste no depende del
+ * número de tareas de cada proyecto.
+ */
+public class ProyectoResumenDTO {
+    private final Integer id;
+    private final String nombre;
+    private final String descripcion;
+    private final String color;
+    private final LocalDate fechaInicio;
+    private final LocalDate fechaFin;
+    private final Proyecto.EstadoProyecto estado;
+    private final long cantidadTareas;
+    private final long pendientes;
+    private final long enProgreso;
+    private final long completadas;
+    private final long incompletas;
+
+    public ProyectoResumenDTO(Integer id, String nombre, String descripcion, String color,
+                              LocalDate fechaInicio, LocalDate fechaFin, Proyecto.EstadoProyecto estado,
+                              long cantidadTareas, long pendientes, long enProgreso,
+                              long completadas, long incompletas) {
+        this.id = id;
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+        this.color = color;
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.estado = estado;
+        this.cantidadTareas = cantidadTareas;
+        this.pendientes = pendientes;
+        this.enProgreso = enProgreso;
+        this.completadas = completadas;
+        this.incompletas = incompletas;
+    }
+
+    // Getters (nombres de la API JSON)
+    public Integer getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public String getFechaInicio() {
+        return fechaInicio != null ? fechaInicio.toString() : null;
+    }
+
+    public String getFechaFin() {
+        return fechaFin != null ? fechaFin.toString() : null;
+    }
+
+    public String getEstado() {
+        return estado.toString();
+    }
+
+    public long getCantidadTareas() {
+        return cantidadTareas;
+    }
+
+    public long getPendientes() {
+        return pendientes;
+    }
+
+    public long getEnProgreso() {
+        return enProgreso;
+    }
+
+    public long getCompletadas() {
+        return completadas;
+    }
+
+    public long getIncompletas() {
+        return incompletas;
+    }
+}
@@ -0,0 +1,55 @@
+package demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultadoBarrido {
+    private long totalActualizadas;
+    private List<Integer> filasPorLote = new ArrayList<>();
+    private boolean reanudado;
+    private long duracionMs;
+    
+    public ResultadoBarrido() {}
+    
+    public void registrarLote(int filas) {
+        filasPorLote.add(filas);
+        totalActualizadas += filas;
+    }
+    
+    // Getters y Setters
+    public long getTotalActualizadas() {
+        return totalActualizadas;
+    }
+    
+    public void setTotalActualizadas(long totalActualizadas) {
+        this.totalActualizadas = totalActualizadas;
+    }
+    
+    public List<Integer> getFilasPorLote() {
+        return filasPorLote;
+    }
+    
+    public void setFilasPorLote(List<Integer> filasPorLote) {
+        this.filasPorLote = filasPorLote;
+    }
+    
+    public int getLotes() {
+        return filasPorLote.size();
+    }
+    
+    public boolean isReanudado() {
+        return reanudado;
+    }
+    
+    public void setReanudado(boolean reanudado) {
+        this.reanudado = reanudado;
+    }
+    
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+    
+    public void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+}
@@ -0,0 +1,92 @@
+package demo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva de tareas. Las filas se numeran desde 1
+ * en el orden en que llegan; los errores se devuelven hasta un máximo y el
+ * resto solo se cuenta.
+ */
+public class ResultadoImportacion {
+    private int filas;
+    private int importadas;
+    private int conErrores;
+    private int lotes;
+    private List<ErrorFila> errores = new ArrayList<>();
+    private boolean interrumpida;
+    private long duracionMs;
+
+    public ResultadoImportacion() {}
+
+    public void registrarError(int fila, String mensaje, int maximo) {
+        conErrores++;
+        if (errores.size() < maximo) {
+            errores.add(new ErrorFila(fila, mensaje));
+        }
+    }
+
+    public void registrarLote(int guardadas) {
+        importadas += guardadas;
+        lotes++;
+    }
+
+    // Getters y Setters
+    public int getFilas() {
+        return filas;
+    }
+
+    public void setFilas(int filas) {
+        this.filas = filas;
+    }
+
+    public int getImportadas() {
+        return importadas;
+    }
+
+    public int getConErrores() {
+        return conErrores;
+    }
+
+    public int getLotes() {
+        return lotes;
+    }
+
+    public List<ErrorFila> getErrores() {
+        return errores;
+    }
+
+    public boolean isInterrumpida() {
+        return interrumpida;
+    }
+
+    public void setInterrumpida(boolean interrumpida) {
+        this.interrumpida = interrumpida;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+
+    public static class ErrorFila {
+        private final int fila;
+        private final String error;
+
+        public ErrorFila(int fila, String error) {
+            this.fila = fila;
+            this.error = error;
+        }
+
+        public int getFila() {
+            return fila;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package demo.model;
+
+/**
+ * Resultado de una acción en lote sobre notificaciones: cuántas cambiaron y
+ * cuánto varió el contador de no leídas (0 o negativo).
+ */
+public class ResultadoLoteNotificaciones {
+    private final int afectadas;
+    private final long deltaNoLeidas;
+
+    public ResultadoLoteNotificaciones(int afectadas, long deltaNoLeidas) {
+        this.afectadas = afectadas;
+        this.deltaNoLeidas = deltaNoLeidas;
+    }
+
+    // Getters
+    public int getAfectadas() {
+        return afectadas;
+    }
+
+    public long getDeltaNoLeidas() {
+        return deltaNoLeidas;
+    }
+}
@@ -0,0 +1,83 @@
+package demo.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Filas recuperadas por la última ejecución de la retención de notificaciones.
+ */
+public class ResultadoRetencion {
+    private LocalDateTime inicio;
+    private long compactadas;
+    private long caducadas;
+    private Map<String, Long> caducadasPorTipo = new TreeMap<>();
+    private int lotes;
+    private long duracionMs;
+
+    public ResultadoRetencion() {}
+
+    public void registrarCompactadas(int filas) {
+        compactadas += filas;
+        lotes++;
+    }
+
+    public void registrarCaducadas(String tipo, int filas) {
+        caducadas += filas;
+        caducadasPorTipo.merge(tipo, (long) filas, Long::sum);
+        lotes++;
+    }
+
+    public long getRecuperadas() {
+        return compactadas + caducadas;
+    }
+
+    // Getters y Setters
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    public void setInicio(LocalDateTime inicio) {
+        this.inicio = inicio;
+    }
+
+    public long getCompactadas() {
+        return compactadas;
+    }
+
+    public void setCompactadas(long compactadas) {
+        this.compactadas = compactadas;
+    }
+
+    public long getCaducadas() {
+        return caducadas;
+    }
+
+    public void setCaducadas(long caducadas) {
+        this.caducadas = caducadas;
+    }
+
+    public Map<String, Long> getCaducadasPorTipo() {
+        return caducadasPorTipo;
+    }
+
+    public void setCaducadasPorTipo(Map<String, Long> caducadasPorTipo) {
+        this.caducadasPorTipo = caducadasPorTipo;
+    }
+
+    public int getLotes() {
+        return lotes;
+    }
+
+    public void setLotes(int lotes) {
+        this.lotes = lotes;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+}
@@ -0,0 +1,61 @@
+package demo.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Notificaciones sobre las que actúa una acción en lote: una lista de ids o,
+ * si no la hay, un filtro (tipo y fecha de creación hasta; null = sin filtro).
+ * "leida" solo se usa al eliminar: true = solo leídas, false = solo no leídas.
+ */
+public class SeleccionNotificaciones {
+    private List<Integer> ids;
+    private String tipo;
+    private LocalDateTime hasta;
+    private Boolean leida;
+
+    public SeleccionNotificaciones() {}
+
+    public static SeleccionNotificaciones porIds(List<Integer> ids) {
+        SeleccionNotificaciones s = new SeleccionNotificaciones();
+        s.setIds(ids);
+        return s;
+    }
+
+    public boolean isPorIds() {
+        return ids != null;
+    }
+
+    // Getters y Setters
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(LocalDateTime hasta) {
+        this.hasta = hasta;
+    }
+
+    public Boolean getLeida() {
+        return leida;
+    }
+
+    public void setLeida(Boolean leida) {
+        this.leida = leida;
+    }
+}
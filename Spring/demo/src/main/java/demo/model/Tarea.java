@@ -3,6 +3,9 @@ package demo.model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+
+import org.hibernate.annotations.DynamicUpdate;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -10,9 +13,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -20,11 +22,19 @@ import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "tareas")
+@Table(name = "tareas", indexes = {
+    // Listado paginado por vencimiento (keyset sobre fecha_limite, id)
+    @Index(name = "idx_tareas_usuario_fecha_limite", columnList = "usuario_id, fecha_limite, id"),
+    @Index(name = "idx_tareas_usuario_estado_fecha", columnList = "usuario_id, estado, fecha_limite")
+})
+// Los UPDATE solo llevan las columnas que cambiaron (las ediciones suelen tocar uno o dos campos)
+@DynamicUpdate
 public class Tarea {
     
+    // Ids por bloques (como Notificacion) para que las altas masivas
+    // se agrupen en lotes JDBC; IDENTITY obliga a un INSERT por fila
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdPorBloques(segmento = "tareas")
     private Integer id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -63,11 +73,27 @@ public class Tarea {
     
     // ENUMS PÚBLICOS
     public enum Prioridad {
-        Baja, Media, Alta
+        Baja, Media, Alta;
+
+        private static final CodificadorEnum<Prioridad> CODIFICADOR =
+            new CodificadorEnum<>(Prioridad.class, Map.of());
+
+        // Acepta "ALTA", "media", " Baja "...; null si no se reconoce
+        public static Prioridad desde(String texto) {
+            return CODIFICADOR.parse(texto);
+        }
     }
     
     public enum Estado {
-        Pendiente, En_progreso, Completada, Incompleta
+        Pendiente, En_progreso, Completada, Incompleta;
+
+        private static final CodificadorEnum<Estado> CODIFICADOR =
+            new CodificadorEnum<>(Estado.class, Map.of("VENCIDA", Incompleta));
+
+        // Acepta "EN_PROGRESO", "En progreso", "VENCIDA"...; null si no se reconoce
+        public static Estado desde(String texto) {
+            return CODIFICADOR.parse(texto);
+        }
     }
     
     @PrePersist
@@ -0,0 +1,84 @@
+package demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Tarea completada tal como la muestra el historial. Sale de una sola consulta
+ * sobre historial (SELECT new ...), con los datos copiados al completarla,
+ * sin cargar la tarea. Los nombres de las propiedades coinciden con los del JS.
+ */
+public class TareaCompletadaDTO {
+    private final Integer historialId;
+    private final Integer tareaId;
+    private final String titulo;
+    private final String descripcion;
+    private final String categoriaNombre;
+    private final LocalDate fechaInicio;
+    private final LocalDate fechaLimite;
+    private final Tarea.Prioridad prioridad;
+    private final LocalDateTime fecha;
+
+    public TareaCompletadaDTO(Integer historialId, Integer tareaId, String titulo, String descripcion,
+                              String categoriaNombre, LocalDate fechaInicio, LocalDate fechaLimite,
+                              Tarea.Prioridad prioridad, LocalDateTime fecha) {
+        this.historialId = historialId;
+        this.tareaId = tareaId;
+        this.titulo = titulo;
+        this.descripcion = descripcion;
+        this.categoriaNombre = categoriaNombre;
+        this.fechaInicio = fechaInicio;
+        this.fechaLimite = fechaLimite;
+        this.prioridad = prioridad;
+        this.fecha = fecha;
+    }
+
+    // Getters (nombres de la API JSON)
+    public Integer getId() {
+        return tareaId;
+    }
+
+    public Integer getHistorialId() {
+        return historialId;
+    }
+
+    public String getTitle() {
+        return titulo;
+    }
+
+    public String getDescription() {
+        return descripcion != null ? descripcion : "";
+    }
+
+    public String getCategory() {
+        return categoriaNombre != null ? categoriaNombre : "Sin categoría";
+    }
+
+    public String getStartDate() {
+        return fechaInicio != null ? fechaInicio.toString() : "";
+    }
+
+    public String getDueDate() {
+        return fechaLimite != null ? fechaLimite.toString() : "";
+    }
+
+    public String getPriority() {
+        return prioridad != null ? prioridad.name().toUpperCase() : "MEDIA";
+    }
+
+    public String getStatus() {
+        return "COMPLETADA";
+    }
+
+    public String getCompletedAt() {
+        return fecha != null ? fecha.toString() : "";
+    }
+
+    // Para el cursor de la página siguiente
+    @JsonIgnore
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+}
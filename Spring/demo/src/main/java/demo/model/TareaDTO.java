@@ -0,0 +1,99 @@
+package demo.model;
+
+import java.time.LocalDate;
+
+/**
+ * Representación JSON de una tarea para la API.
+ * Se construye directamente desde JPQL (SELECT new ...) con la categoría en el
+ * mismo JOIN, así que no hace falta cargar la entidad ni un Map por tarea.
+ * Los nombres de las propiedades coinciden con los que espera el JS.
+ */
+public class TareaDTO {
+    private final Integer id;
+    private final String titulo;
+    private final String descripcion;
+    private final LocalDate fechaLimite;
+    private final LocalDate fechaInicio;
+    private final Tarea.Prioridad prioridad;
+    private final Tarea.Estado estado;
+    private final CategoriaResumen categoria;
+    
+    public TareaDTO(Integer id, String titulo, String descripcion, LocalDate fechaLimite, LocalDate fechaInicio,
+                    Tarea.Prioridad prioridad, Tarea.Estado estado,
+                    Integer categoriaId, String categoriaNombre, String categoriaColor) {
+        this.id = id;
+        this.titulo = titulo;
+        this.descripcion = descripcion;
+        this.fechaLimite = fechaLimite;
+        this.fechaInicio = fechaInicio;
+        this.prioridad = prioridad;
+        this.estado = estado;
+        this.categoria = categoriaId != null ? new CategoriaResumen(categoriaId, categoriaNombre, categoriaColor) : null;
+    }
+    
+    // Para entidades ya cargadas (la categoría debe estar inicializada)
+    public static TareaDTO desde(Tarea tarea) {
+        Categoria c = tarea.getCategoria();
+        return new TareaDTO(tarea.getId(), tarea.getTitulo(), tarea.getDescripcion(),
+            tarea.getFechaLimite(), tarea.getFechaInicio(), tarea.getPrioridad(), tarea.getEstado(),
+            c != null ? c.getId() : null, c != null ? c.getNombre() : null, c != null ? c.getColor() : null);
+    }
+    
+    // Getters (nombres de la API JSON)
+    public Integer getId() {
+        return id;
+    }
+    
+    public String getTitle() {
+        return titulo;
+    }
+    
+    public String getDescription() {
+        return descripcion != null ? descripcion : "";
+    }
+    
+    public String getDueDate() {
+        return fechaLimite != null ? fechaLimite.toString() : "";
+    }
+    
+    public String getStartDate() {
+        return fechaInicio != null ? fechaInicio.toString() : "";
+    }
+    
+    public String getPriority() {
+        return prioridad != null ? prioridad.name().toUpperCase() : "MEDIA";
+    }
+    
+    // Estado en mayúsculas con guiones bajos: PENDIENTE, EN_PROGRESO, COMPLETADA
+    public String getStatus() {
+        return estado != null ? estado.name().toUpperCase() : "PENDIENTE";
+    }
+    
+    public CategoriaResumen getCategory() {
+        return categoria;
+    }
+    
+    public static class CategoriaResumen {
+        private final Integer id;
+        private final String nombre;
+        private final String color;
+        
+        public CategoriaResumen(Integer id, String nombre, String color) {
+            this.id = id;
+            this.nombre = nombre;
+            this.color = color;
+        }
+        
+        public Integer getId() {
+            return id;
+        }
+        
+        public String getNombre() {
+            return nombre;
+        }
+        
+        public String getColor() {
+            return color;
+        }
+    }
+}
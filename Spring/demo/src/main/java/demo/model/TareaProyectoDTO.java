@@ -0,0 +1,36 @@
+package demo.model;
+
+/**
+ * Tarea tal como se muestra en el detalle de un proyecto y en el buscador
+ * para añadir tareas: solo lo que pinta la lista, sin cargar la entidad.
+ */
+public class TareaProyectoDTO {
+    private final Integer id;
+    private final String titulo;
+    private final Tarea.Estado estado;
+    private final Tarea.Prioridad prioridad;
+
+    public TareaProyectoDTO(Integer id, String titulo, Tarea.Estado estado, Tarea.Prioridad prioridad) {
+        this.id = id;
+        this.titulo = titulo;
+        this.estado = estado;
+        this.prioridad = prioridad;
+    }
+
+    // Getters (nombres de la API JSON)
+    public Integer getId() {
+        return id;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public String getEstado() {
+        return estado != null ? estado.toString() : null;
+    }
+
+    public String getPrioridad() {
+        return prioridad != null ? prioridad.toString() : null;
+    }
+}
@@ -0,0 +1,53 @@
+package demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Contadores materializados por usuario. Por ahora solo las notificaciones
+ * no leídas: se ajustan con UPDATE relativos (ver ContadoresUsuarioService)
+ * en la misma transacción que el cambio, así la insignia se lee por clave
+ * primaria sin contar notificaciones.
+ */
+@Entity
+@Table(name = "usuario_contadores")
+public class UsuarioContadores {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Integer usuarioId;
+
+    @Column(name = "notificaciones_no_leidas", nullable = false)
+    private long notificacionesNoLeidas;
+
+    public UsuarioContadores() {}
+
+    // Para los recuentos calculados desde notificaciones (SELECT new ...)
+    public UsuarioContadores(Integer usuarioId, long notificacionesNoLeidas) {
+        this.usuarioId = usuarioId;
+        this.notificacionesNoLeidas = notificacionesNoLeidas;
+    }
+
+    public boolean mismosValores(UsuarioContadores otro) {
+        return notificacionesNoLeidas == otro.notificacionesNoLeidas;
+    }
+
+    // Getters y Setters
+    public Integer getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(Integer usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public long getNotificacionesNoLeidas() {
+        return notificacionesNoLeidas;
+    }
+
+    public void setNotificacionesNoLeidas(long notificacionesNoLeidas) {
+        this.notificacionesNoLeidas = notificacionesNoLeidas;
+    }
+}
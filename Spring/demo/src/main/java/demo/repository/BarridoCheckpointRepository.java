@@ -0,0 +1,10 @@
+package demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import demo.model.BarridoCheckpoint;
+
+@Repository
+public interface BarridoCheckpointRepository extends JpaRepository<BarridoCheckpoint, String> {
+}
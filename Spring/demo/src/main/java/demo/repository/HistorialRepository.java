@@ -1,26 +1,74 @@
 package demo.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import demo.model.Historial;
+import demo.model.TareaCompletadaDTO;
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface HistorialRepository extends JpaRepository<Historial, Integer> {
+    // Las búsquedas por tarea o usuario filtran por la columna de la FK (ver TareaRepository)
+
     // Buscar historial por tarea
-    List<Historial> findByTareaId(Integer tareaId);
+    @Query("SELECT h FROM Historial h WHERE h.tarea.id = :tareaId")
+    List<Historial> findByTareaId(@Param("tareaId") Integer tareaId);
     
     // Buscar historial por usuario
-    List<Historial> findByUsuarioId(Integer usuarioId);
+    @Query("SELECT h FROM Historial h WHERE h.usuario.id = :usuarioId")
+    List<Historial> findByUsuarioId(@Param("usuarioId") Integer usuarioId);
     
     // Buscar historial por tarea ordenado por fecha
-    List<Historial> findByTareaIdOrderByFechaDesc(Integer tareaId);
+    @Query("SELECT h FROM Historial h WHERE h.tarea.id = :tareaId ORDER BY h.fecha DESC")
+    List<Historial> findByTareaIdOrderByFechaDesc(@Param("tareaId") Integer tareaId);
     
     // Buscar solo tareas completadas por usuario (las completadas tienen `titulo` no nulo)
-    List<Historial> findByUsuarioIdAndTituloIsNotNullOrderByFechaDesc(Integer usuarioId);
+    @Query("SELECT h FROM Historial h WHERE h.usuario.id = :usuarioId AND h.titulo IS NOT NULL ORDER BY h.fecha DESC")
+    List<Historial> findByUsuarioIdAndTituloIsNotNullOrderByFechaDesc(@Param("usuarioId") Integer usuarioId);
+
+    // LISTADO DE COMPLETADAS paginado por (fecha, id) descendente, sin cargar las tareas
+
+    String SELECT_COMPLETADA_DTO = "SELECT new demo.model.TareaCompletadaDTO(h.id, h.tareaId, h.titulo, h.descripcion, "
+        + "h.categoriaNombre, h.fechaInicio, h.fechaLimite, h.prioridad, h.fecha) FROM Historial h "
+        + "WHERE h.usuario.id = :usuarioId AND h.titulo IS NOT NULL ";
+
+    @Query(SELECT_COMPLETADA_DTO + "ORDER BY h.fecha DESC, h.id DESC")
+    List<TareaCompletadaDTO> findCompletadas(@Param("usuarioId") Integer usuarioId, Pageable pageable);
+
+    @Query(SELECT_COMPLETADA_DTO + "AND (h.fecha < :fecha OR (h.fecha = :fecha AND h.id < :id)) "
+        + "ORDER BY h.fecha DESC, h.id DESC")
+    List<TareaCompletadaDTO> findCompletadasAntesDe(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("fecha") LocalDateTime fecha,
+        @Param("id") Integer id,
+        Pageable pageable
+    );
 
     // Buscar historiales de completadas para una tarea
-    List<Historial> findByTareaIdAndTituloIsNotNull(Integer tareaId);
+    @Query("SELECT h FROM Historial h WHERE h.tarea.id = :tareaId AND h.titulo IS NOT NULL")
+    List<Historial> findByTareaIdAndTituloIsNotNull(@Param("tareaId") Integer tareaId);
+
+    // Restaurar una tarea: sus registros de "Tarea completada" se borran (ver EscritorHistorialService)
+    @Modifying
+    @Query("DELETE FROM Historial h WHERE h.tarea.id = :tareaId AND h.titulo IS NOT NULL")
+    int borrarCompletadasDeTarea(@Param("tareaId") Integer tareaId);
+
+    // Exportación en streaming con la tarea ya cargada (ver TareaRepository.streamParaExportar)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT h FROM Historial h JOIN FETCH h.tarea WHERE h.usuario.id = :usuarioId ORDER BY h.fecha DESC, h.id DESC")
+    Stream<Historial> streamParaExportar(@Param("usuarioId") Integer usuarioId);
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package demo.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,23 +12,161 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import demo.model.Notificacion;
+import demo.model.NotificacionDTO;
 
 @Repository
 public interface NotificacionRepository extends JpaRepository<Notificacion, Integer> {
     
-    List<Notificacion> findByUsuarioIdOrderByFechaCreacionDesc(Integer usuarioId);
+    // Por la columna de la FK, sin JOIN a usuarios (ver TareaRepository)
+    @Query("SELECT n FROM Notificacion n WHERE n.usuario.id = :usuarioId ORDER BY n.fechaCreacion DESC")
+    List<Notificacion> findByUsuarioIdOrderByFechaCreacionDesc(@Param("usuarioId") Integer usuarioId);
     
-    List<Notificacion> findByUsuarioIdAndLeidaOrderByFechaCreacionDesc(Integer usuarioId, Boolean leida);
+    @Query("SELECT n FROM Notificacion n WHERE n.usuario.id = :usuarioId AND n.leida = :leida ORDER BY n.fechaCreacion DESC")
+    List<Notificacion> findByUsuarioIdAndLeidaOrderByFechaCreacionDesc(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("leida") Boolean leida
+    );
     
     @Query("SELECT COUNT(n) FROM Notificacion n WHERE n.usuario.id = :usuarioId AND n.leida = false")
     long countNoLeidasByUsuarioId(@Param("usuarioId") Integer usuarioId);
     
+    // ACCIONES EN LOTE: una sentencia acotada al dueño, por lista de ids o por filtro
+    // (tipo opcional y fecha de creación hasta). Los UPDATE/DELETE condicionados devuelven
+    // cuántas no leídas cambiaron de verdad, aunque otra petición toque las mismas a la vez;
+    // por eso los borrados van por separado para leídas y no leídas.
+    
+    @Modifying
+    @Query("UPDATE Notificacion n SET n.leida = true WHERE n.usuario.id = :usuarioId AND n.id IN :ids AND n.leida = false")
+    int marcarLeidasPorIds(@Param("usuarioId") Integer usuarioId, @Param("ids") Collection<Integer> ids);
+    
+    @Modifying
+    @Query("UPDATE Notificacion n SET n.leida = true WHERE n.usuario.id = :usuarioId AND n.leida = false "
+        + "AND (:tipo IS NULL OR n.tipo = :tipo) AND n.fechaCreacion <= :hasta")
+    int marcarLeidasPorFiltro(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("tipo") String tipo,
+        @Param("hasta") LocalDateTime hasta
+    );
+    
+    @Modifying
+    @Query("DELETE FROM Notificacion n WHERE n.usuario.id = :usuarioId AND n.id IN :ids AND n.leida = :leida")
+    int borrarDelUsuarioPorIds(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("ids") Collection<Integer> ids,
+        @Param("leida") Boolean leida
+    );
+    
+    @Modifying
+    @Query("DELETE FROM Notificacion n WHERE n.usuario.id = :usuarioId AND n.leida = :leida "
+        + "AND (:tipo IS NULL OR n.tipo = :tipo) AND n.fechaCreacion <= :hasta")
+    int borrarDelUsuarioPorFiltro(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("tipo") String tipo,
+        @Param("hasta") LocalDateTime hasta,
+        @Param("leida") Boolean leida
+    );
+    
+    // Notificaciones de una tarea que se va a borrar (la FK no borra en cascada)
+    @Modifying
+    @Query("DELETE FROM Notificacion n WHERE n.usuario.id = :usuarioId AND n.tarea.id = :tareaId AND n.leida = :leida")
+    int borrarDeTarea(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("tareaId") Integer tareaId,
+        @Param("leida") Boolean leida
+    );
+    
+    // LISTADO paginado por (fecha_creacion, id) descendente, con el título de la tarea en la misma consulta.
+    // "fecha" es el límite inferior (creadas desde entonces); la primera página no lleva cursor.
+
+    String SELECT_NOTIFICACION_DTO = "SELECT new demo.model.NotificacionDTO(n.id, n.tipo, n.mensaje, n.leida, "
+        + "n.fechaCreacion, t.id, t.titulo) FROM Notificacion n LEFT JOIN n.tarea t "
+        + "WHERE n.usuario.id = :usuarioId AND n.fechaCreacion >= :fecha ";
+
+    String ANTES_DEL_CURSOR = "AND (n.fechaCreacion < :cursorFecha OR (n.fechaCreacion = :cursorFecha AND n.id < :cursorId)) ";
+
+    String ORDEN_RECIENTES = "ORDER BY n.fechaCreacion DESC, n.id DESC";
+
+    @Query(SELECT_NOTIFICACION_DTO + ORDEN_RECIENTES)
+    List<NotificacionDTO> findRecentesByUsuarioId(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("fecha") LocalDateTime fecha,
+        Pageable pageable
+    );
+
+    @Query(SELECT_NOTIFICACION_DTO + ANTES_DEL_CURSOR + ORDEN_RECIENTES)
+    List<NotificacionDTO> findRecentesAntesDe(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("fecha") LocalDateTime fecha,
+        @Param("cursorFecha") LocalDateTime cursorFecha,
+        @Param("cursorId") Integer cursorId,
+        Pageable pageable
+    );
+
+    // Solo no leídas: recorren idx_notificaciones_usuario_leida_fecha
+    @Query(SELECT_NOTIFICACION_DTO + "AND n.leida = false " + ORDEN_RECIENTES)
+    List<NotificacionDTO> findNoLeidasRecientes(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("fecha") LocalDateTime fecha,
+        Pageable pageable
+    );
+
+    @Query(SELECT_NOTIFICACION_DTO + "AND n.leida = false " + ANTES_DEL_CURSOR + ORDEN_RECIENTES)
+    List<NotificacionDTO> findNoLeidasRecientesAntesDe(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("fecha") LocalDateTime fecha,
+        @Param("cursorFecha") LocalDateTime cursorFecha,
+        @Param("cursorId") Integer cursorId,
+        Pageable pageable
+    );
+    
+    // Resúmenes diarios (sin tarea) ya creados desde una fecha: [usuarioId, tipo]
+    @Query("SELECT n.usuario.id, n.tipo FROM Notificacion n WHERE n.tarea IS NULL AND n.tipo IN :tipos AND n.fechaCreacion >= :desde")
+    List<Object[]> findResumenesCreadosDesde(@Param("tipos") List<String> tipos, @Param("desde") LocalDateTime desde);
+    
+    // Retención: tipos que tienen notificaciones anteriores a una fecha
+    @Query("SELECT DISTINCT n.tipo FROM Notificacion n WHERE n.fechaCreacion < :antesDe")
+    List<String> findTiposAnterioresA(@Param("antesDe") LocalDateTime antesDe);
+    
+    // Un lote de notificaciones caducadas de un tipo (el lote anterior ya se borró: no hace falta cursor)
+    @Query("SELECT n.id FROM Notificacion n WHERE n.tipo = :tipo AND n.fechaCreacion < :antesDe")
+    List<Integer> findIdsCaducadas(@Param("tipo") String tipo, @Param("antesDe") LocalDateTime antesDe, Pageable lote);
+    
+    // Repetidas: hay otra más reciente del mismo usuario, tipo y tarea (keyset sobre id)
+    @Query("SELECT n.id FROM Notificacion n WHERE n.id > :desde AND n.tipo IN :tipos AND EXISTS ("
+        + "SELECT 1 FROM Notificacion m WHERE m.usuario.id = n.usuario.id AND m.tipo = n.tipo "
+        + "AND (m.tarea.id = n.tarea.id OR (m.tarea IS NULL AND n.tarea IS NULL)) "
+        + "AND (m.fechaCreacion > n.fechaCreacion OR (m.fechaCreacion = n.fechaCreacion AND m.id > n.id))) "
+        + "ORDER BY n.id")
+    List<Integer> findIdsRepetidasDesde(@Param("desde") Integer desde, @Param("tipos") List<String> tipos, Pageable lote);
+    
+    // Resúmenes diarios de días anteriores que sustituye el resumen nuevo de cada usuario
+    @Query("SELECT n.id FROM Notificacion n WHERE n.tarea IS NULL AND n.tipo = :tipo "
+        + "AND n.usuario.id IN :usuarioIds AND n.fechaCreacion < :antesDe")
+    List<Integer> findIdsResumenesAnteriores(
+        @Param("tipo") String tipo,
+        @Param("usuarioIds") Collection<Integer> usuarioIds,
+        @Param("antesDe") LocalDateTime antesDe
+    );
+    
+    // [usuarioId, no leídas] de un conjunto de notificaciones
+    @Query("SELECT n.usuario.id, SUM(CASE WHEN n.leida = false THEN 1 ELSE 0 END) FROM Notificacion n "
+        + "WHERE n.id IN :ids GROUP BY n.usuario.id")
+    List<Object[]> contarNoLeidasPorUsuario(@Param("ids") Collection<Integer> ids);
+    
     @Modifying
-    @Query("UPDATE Notificacion n SET n.leida = true WHERE n.usuario.id = :usuarioId AND n.leida = false")
-    void marcarTodasComoLeidas(@Param("usuarioId") Integer usuarioId);
+    @Query("DELETE FROM Notificacion n WHERE n.id IN :ids")
+    int borrarPorIds(@Param("ids") Collection<Integer> ids);
     
-    @Query("SELECT n FROM Notificacion n WHERE n.usuario.id = :usuarioId AND n.fechaCreacion >= :fecha ORDER BY n.fechaCreacion DESC")
-    List<Notificacion> findRecentesByUsuarioId(@Param("usuarioId") Integer usuarioId, @Param("fecha") LocalDateTime fecha);
+    // [tareaId, fecha del último aviso] de un tipo para un lote de tareas (recordatorios ya enviados)
+    @Query("SELECT n.tarea.id, MAX(n.fechaCreacion) FROM Notificacion n WHERE n.usuario.id IN :usuarioIds "
+        + "AND n.tipo = :tipo AND n.tarea.id IN :tareaIds GROUP BY n.tarea.id")
+    List<Object[]> findUltimoAvisoPorTarea(
+        @Param("usuarioIds") Collection<Integer> usuarioIds,
+        @Param("tipo") String tipo,
+        @Param("tareaIds") Collection<Integer> tareaIds
+    );
     
-    void deleteByUsuarioIdAndLeida(Integer usuarioId, Boolean leida);
+    // Notificaciones posteriores a un id (reenvío al reconectar el stream SSE)
+    @Query("SELECT n FROM Notificacion n LEFT JOIN FETCH n.tarea WHERE n.usuario.id = :usuarioId AND n.id > :id ORDER BY n.id ASC")
+    List<Notificacion> findPosterioresA(@Param("usuarioId") Integer usuarioId, @Param("id") Integer id, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package demo.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import demo.model.ProyectoContadores;
+
+@Repository
+public interface ProyectoContadoresRepository extends JpaRepository<ProyectoContadores, Integer> {
+
+    String SUMAR_DELTAS = "UPDATE ProyectoContadores c SET c.total = c.total + :total, "
+        + "c.pendientes = c.pendientes + :pendientes, c.enProgreso = c.enProgreso + :enProgreso, "
+        + "c.completadas = c.completadas + :completadas, c.incompletas = c.incompletas + :incompletas ";
+
+    String CONTAR_TAREAS = "(SELECT COUNT(t) FROM Proyecto p JOIN p.tareas t WHERE p.id = c.proyectoId";
+
+    // Ajuste relativo: no pisa los cambios concurrentes de otras transacciones
+    @Modifying
+    @Query(SUMAR_DELTAS + "WHERE c.proyectoId = :proyectoId")
+    int sumar(
+        @Param("proyectoId") Integer proyectoId,
+        @Param("total") long total,
+        @Param("pendientes") long pendientes,
+        @Param("enProgreso") long enProgreso,
+        @Param("completadas") long completadas,
+        @Param("incompletas") long incompletas
+    );
+
+    // El mismo ajuste en todos los proyectos que contienen la tarea
+    @Modifying
+    @Query(SUMAR_DELTAS + "WHERE c.proyectoId IN (SELECT p.id FROM Proyecto p JOIN p.tareas t WHERE t.id = :tareaId)")
+    int sumarEnProyectosDeTarea(
+        @Param("tareaId") Integer tareaId,
+        @Param("total") long total,
+        @Param("pendientes") long pendientes,
+        @Param("enProgreso") long enProgreso,
+        @Param("completadas") long completadas,
+        @Param("incompletas") long incompletas
+    );
+
+    // Recalcula desde proyecto_tareas los contadores de los proyectos indicados
+    @Modifying
+    @Query("UPDATE ProyectoContadores c SET "
+        + "c.total = " + CONTAR_TAREAS + "), "
+        + "c.pendientes = " + CONTAR_TAREAS + " AND t.estado = 'Pendiente'), "
+        + "c.enProgreso = " + CONTAR_TAREAS + " AND t.estado = 'En_progreso'), "
+        + "c.completadas = " + CONTAR_TAREAS + " AND t.estado = 'Completada'), "
+        + "c.incompletas = " + CONTAR_TAREAS + " AND t.estado = 'Incompleta') "
+        + "WHERE c.proyectoId IN :proyectoIds")
+    int recalcular(@Param("proyectoIds") Collection<Integer> proyectoIds);
+
+    // Recuento real de un lote de proyectos (keyset sobre id), para la reconciliación
+    @Query("SELECT new demo.model.ProyectoContadores(p.id, COUNT(t), "
+        + "COALESCE(SUM(CASE WHEN t.estado = 'Pendiente' THEN 1 ELSE 0 END), 0), "
+        + "COALESCE(SUM(CASE WHEN t.estado = 'En_progreso' THEN 1 ELSE 0 END), 0), "
+        + "COALESCE(SUM(CASE WHEN t.estado = 'Completada' THEN 1 ELSE 0 END), 0), "
+        + "COALESCE(SUM(CASE WHEN t.estado = 'Incompleta' THEN 1 ELSE 0 END), 0)) "
+        + "FROM Proyecto p LEFT JOIN p.tareas t WHERE p.id > :desde GROUP BY p.id ORDER BY p.id")
+    List<ProyectoContadores> calcularDesde(@Param("desde") Integer desde, Pageable lote);
+}
@@ -1,16 +1,23 @@
 package demo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import demo.model.Proyecto;
 import demo.model.Proyecto.EstadoProyecto;
+import demo.model.ProyectoResumenDTO;
+import demo.model.TareaProyectoDTO;
 import demo.model.Usuario;
+import jakarta.persistence.LockModeType;
 
 @Repository
 public interface ProyectoRepository extends JpaRepository<Proyecto, Integer> {
@@ -27,6 +34,74 @@ public interface ProyectoRepository extends JpaRepository<Proyecto, Integer> {
     @Query("SELECT COUNT(p) FROM Proyecto p WHERE p.usuario.id = :usuarioId AND p.estado = 'ACTIVO'")
     long countActivosByUsuarioId(@Param("usuarioId") Integer usuarioId);
     
-    @Query("SELECT p FROM Proyecto p LEFT JOIN FETCH p.tareas WHERE p.id = :proyectoId AND p.usuario = :usuario")
-    Optional<Proyecto> findByIdAndUsuarioWithTareas(@Param("proyectoId") Integer proyectoId, @Param("usuario") Usuario usuario);
+    // Listado con los contadores materializados: una fila por proyecto, sin tocar proyecto_tareas
+    @Query("SELECT new demo.model.ProyectoResumenDTO(p.id, p.nombre, p.descripcion, p.color, p.fechaInicio, p.fechaFin, "
+        + "p.estado, COALESCE(c.total, 0), COALESCE(c.pendientes, 0), COALESCE(c.enProgreso, 0), "
+        + "COALESCE(c.completadas, 0), COALESCE(c.incompletas, 0)) "
+        + "FROM Proyecto p LEFT JOIN ProyectoContadores c ON c.proyectoId = p.id "
+        + "WHERE p.usuario.id = :usuarioId ORDER BY p.id")
+    List<ProyectoResumenDTO> findResumenByUsuarioId(@Param("usuarioId") Integer usuarioId);
+    
+    @Query("SELECT DISTINCT p.id FROM Proyecto p JOIN p.tareas t WHERE t.id IN :tareaIds")
+    List<Integer> findIdsConTareas(@Param("tareaIds") Collection<Integer> tareaIds);
+    
+    // Altas y bajas de tareas directamente sobre proyecto_tareas, sin cargar la colección
+    
+    // Bloquea el proyecto del usuario: las altas y bajas de tareas en él se serializan
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Proyecto p WHERE p.id = :proyectoId AND p.usuario.id = :usuarioId")
+    Optional<Proyecto> bloquear(@Param("proyectoId") Integer proyectoId, @Param("usuarioId") Integer usuarioId);
+    
+    // Tareas del usuario (id, estado) que todavía no están en el proyecto
+    @Query("SELECT t.id, t.estado FROM Tarea t WHERE t.id IN :tareaIds AND t.usuario.id = :usuarioId "
+        + "AND NOT EXISTS (SELECT 1 FROM Proyecto p JOIN p.tareas x WHERE p.id = :proyectoId AND x.id = t.id)")
+    List<Object[]> findTareasFueraDeProyecto(
+        @Param("proyectoId") Integer proyectoId,
+        @Param("tareaIds") Collection<Integer> tareaIds,
+        @Param("usuarioId") Integer usuarioId
+    );
+    
+    // Tareas (id, estado) que sí están en el proyecto
+    @Query("SELECT t.id, t.estado FROM Proyecto p JOIN p.tareas t WHERE p.id = :proyectoId AND t.id IN :tareaIds")
+    List<Object[]> findTareasEnProyecto(@Param("proyectoId") Integer proyectoId, @Param("tareaIds") Collection<Integer> tareaIds);
+    
+    @Modifying
+    @Query(value = "INSERT INTO proyecto_tareas (proyecto_id, tarea_id) SELECT :proyectoId, t.id FROM tareas t WHERE t.id IN (:tareaIds)",
+        nativeQuery = true)
+    int insertarTareas(@Param("proyectoId") Integer proyectoId, @Param("tareaIds") Collection<Integer> tareaIds);
+    
+    @Modifying
+    @Query(value = "DELETE FROM proyecto_tareas WHERE proyecto_id = :proyectoId AND tarea_id IN (:tareaIds)", nativeQuery = true)
+    int borrarTareas(@Param("proyectoId") Integer proyectoId, @Param("tareaIds") Collection<Integer> tareaIds);
+
+    // Tarea borrada: sale de todos sus proyectos (por idx_proyecto_tareas_tarea)
+    @Modifying
+    @Query(value = "DELETE FROM proyecto_tareas WHERE tarea_id = :tareaId", nativeQuery = true)
+    int borrarTareaDeProyectos(@Param("tareaId") Integer tareaId);
+
+    // Página de tareas del proyecto (id, titulo, estado, prioridad): keyset sobre tarea_id,
+    // así se recorre un rango de la PK (proyecto_id, tarea_id) ya ordenado
+    @Query(value = "SELECT t.id, t.titulo, t.estado, t.prioridad FROM proyecto_tareas pt "
+        + "JOIN tareas t ON t.id = pt.tarea_id WHERE pt.proyecto_id = :proyectoId AND pt.tarea_id > :despuesDe "
+        + "AND (:estado IS NULL OR t.estado = :estado) AND (:prioridad IS NULL OR t.prioridad = :prioridad) "
+        + "ORDER BY pt.tarea_id LIMIT :limite", nativeQuery = true)
+    List<Object[]> findPaginaTareas(
+        @Param("proyectoId") Integer proyectoId,
+        @Param("despuesDe") Integer despuesDe,
+        @Param("estado") String estado,
+        @Param("prioridad") String prioridad,
+        @Param("limite") int limite
+    );
+    
+    // Buscador para añadir tareas: las del usuario que no están en el proyecto, las más recientes primero
+    @Query("SELECT new demo.model.TareaProyectoDTO(t.id, t.titulo, t.estado, t.prioridad) "
+        + "FROM Tarea t WHERE t.usuario.id = :usuarioId AND LOWER(t.titulo) LIKE :patron ESCAPE '!' "
+        + "AND NOT EXISTS (SELECT 1 FROM Proyecto p JOIN p.tareas x WHERE p.id = :proyectoId AND x.id = t.id) "
+        + "ORDER BY t.id DESC")
+    List<TareaProyectoDTO> buscarTareasDisponibles(
+        @Param("proyectoId") Integer proyectoId,
+        @Param("usuarioId") Integer usuarioId,
+        @Param("patron") String patron,
+        Pageable pagina
+    );
 }
\ No newline at end of file
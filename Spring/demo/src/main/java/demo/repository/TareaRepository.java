@@ -1,26 +1,57 @@
 package demo.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import demo.model.TaskStatsDTO;
 import demo.model.Tarea;
+import demo.model.TareaDTO;
 import demo.model.Tarea.Estado;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface TareaRepository extends JpaRepository<Tarea, Integer> {
-    // Métodos existentes
-    List<Tarea> findByUsuarioId(Integer usuarioId);
+public interface TareaRepository extends JpaRepository<Tarea, Integer>, JpaSpecificationExecutor<Tarea> {
+    // Proyección a TareaDTO con la categoría en el mismo JOIN
+    String SELECT_TAREA_DTO = "SELECT new demo.model.TareaDTO(t.id, t.titulo, t.descripcion, t.fechaLimite, "
+        + "t.fechaInicio, t.prioridad, t.estado, c.id, c.nombre, c.color) FROM Tarea t LEFT JOIN t.categoria c ";
+    
+    // Métodos existentes. Los que filtran por usuario o categoría van con @Query sobre
+    // la columna de la FK: derivados del nombre hacen LEFT JOIN a la otra tabla y el
+    // filtro queda sobre ella, así que la base de datos puede acabar recorriendo tareas entera
+    @Query("SELECT t FROM Tarea t WHERE t.usuario.id = :usuarioId")
+    List<Tarea> findByUsuarioId(@Param("usuarioId") Integer usuarioId);
     List<Tarea> findByEstado(Tarea.Estado estado);
-    List<Tarea> findByUsuarioIdAndEstadoNot(Integer usuarioId, Estado estado);
-    List<Tarea> findByUsuarioIdAndEstado(Integer usuarioId, Estado estado);
-    List<Tarea> findByCategoriaId(Integer categoriaId);
+    @Query("SELECT t FROM Tarea t WHERE t.usuario.id = :usuarioId AND t.estado <> :estado")
+    List<Tarea> findByUsuarioIdAndEstadoNot(@Param("usuarioId") Integer usuarioId, @Param("estado") Estado estado);
+    @Query("SELECT t FROM Tarea t WHERE t.usuario.id = :usuarioId AND t.estado = :estado")
+    List<Tarea> findByUsuarioIdAndEstado(@Param("usuarioId") Integer usuarioId, @Param("estado") Estado estado);
+    @Query("SELECT t FROM Tarea t WHERE t.categoria.id = :categoriaId")
+    List<Tarea> findByCategoriaId(@Param("categoriaId") Integer categoriaId);
     List<Tarea> findByPrioridad(Tarea.Prioridad prioridad);
-    List<Tarea> findByUsuarioIdAndPrioridad(Integer usuarioId, Tarea.Prioridad prioridad);
+    @Query("SELECT t FROM Tarea t WHERE t.usuario.id = :usuarioId AND t.prioridad = :prioridad")
+    List<Tarea> findByUsuarioIdAndPrioridad(@Param("usuarioId") Integer usuarioId, @Param("prioridad") Tarea.Prioridad prioridad);
+    
+    // Bloquea la tarea antes de borrarla: quien inserte filas que la referencian
+    // (recordatorios) espera a que el borrado termine
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Tarea t WHERE t.id = :id")
+    Optional<Tarea> bloquear(@Param("id") Integer id);
     
     // NUEVOS MÉTODOS PARA ESTADÍSTICAS
     
@@ -40,6 +71,21 @@ public interface TareaRepository extends JpaRepository<Tarea, Integer> {
     @Query("SELECT COUNT(h) FROM Historial h WHERE h.usuario.id = :usuarioId AND h.titulo IS NOT NULL AND DATE(h.fecha) = :fecha")
     long countCompletadasEnFecha(@Param("usuarioId") Integer usuarioId, @Param("fecha") LocalDate fecha);
     
+    // Las cuatro estadísticas del dashboard en una sola consulta
+    @Query("SELECT new demo.model.TaskStatsDTO("
+        + "COALESCE(SUM(CASE WHEN t.estado <> 'Completada' AND t.estado <> 'Incompleta' THEN 1 ELSE 0 END), 0), "
+        + "COALESCE(SUM(CASE WHEN t.fechaLimite = :fecha AND t.estado <> 'Completada' THEN 1 ELSE 0 END), 0), "
+        + "(SELECT COUNT(h) FROM Historial h WHERE h.usuario.id = :usuarioId AND h.titulo IS NOT NULL "
+        + "AND h.fecha >= :inicioDia AND h.fecha < :finDia), "
+        + "COALESCE(SUM(CASE WHEN t.prioridad = 'Alta' AND t.estado <> 'Completada' THEN 1 ELSE 0 END), 0)) "
+        + "FROM Tarea t WHERE t.usuario.id = :usuarioId")
+    TaskStatsDTO calcularEstadisticas(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("fecha") LocalDate fecha,
+        @Param("inicioDia") LocalDateTime inicioDia,
+        @Param("finDia") LocalDateTime finDia
+    );
+    
     // Buscar tareas próximas a vencer (solo activas)
     @Query("SELECT t FROM Tarea t WHERE t.usuario.id = :usuarioId AND t.estado != 'Completada' AND t.estado != 'Incompleta' AND t.fechaLimite BETWEEN :desde AND :hasta ORDER BY t.fechaLimite ASC")
     List<Tarea> findProximasAVencer(
@@ -51,4 +97,103 @@ public interface TareaRepository extends JpaRepository<Tarea, Integer> {
     // Buscar tareas incompletas
     @Query("SELECT t FROM Tarea t WHERE t.usuario.id = :usuarioId AND t.estado = 'Incompleta' ORDER BY t.fechaLimite ASC")
     List<Tarea> findVencidas(@Param("usuarioId") Integer usuarioId, @Param("fecha") LocalDate fecha);
-}
\ No newline at end of file
+    
+    // CONTEOS AGRUPADOS PARA LAS NOTIFICACIONES DIARIAS: [usuarioId, cantidad]
+    
+    @Query("SELECT t.usuario.id, COUNT(t) FROM Tarea t WHERE t.estado <> 'Completada' AND t.estado <> 'Incompleta' "
+        + "AND t.fechaLimite BETWEEN :desde AND :hasta GROUP BY t.usuario.id")
+    List<Object[]> contarProximasAVencerPorUsuario(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+    
+    @Query("SELECT t.usuario.id, COUNT(t) FROM Tarea t WHERE t.estado = 'Incompleta' GROUP BY t.usuario.id")
+    List<Object[]> contarVencidasPorUsuario();
+    
+    // VERSIONES PROYECTADAS PARA LA API (una sola consulta, sin N+1 de categoría)
+    
+    @Query(SELECT_TAREA_DTO + "WHERE t.usuario.id = :usuarioId")
+    List<TareaDTO> findDtoByUsuarioId(@Param("usuarioId") Integer usuarioId);
+    
+    @Query(SELECT_TAREA_DTO + "WHERE t.usuario.id = :usuarioId AND t.estado <> 'Completada' AND t.estado <> 'Incompleta' "
+        + "AND t.fechaLimite BETWEEN :desde AND :hasta ORDER BY t.fechaLimite ASC")
+    List<TareaDTO> findDtoProximasAVencer(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+    
+    @Query(SELECT_TAREA_DTO + "WHERE t.usuario.id = :usuarioId AND t.estado = 'Incompleta' ORDER BY t.fechaLimite ASC")
+    List<TareaDTO> findDtoVencidas(@Param("usuarioId") Integer usuarioId);
+
+    // BARRIDO DE TAREAS VENCIDAS POR LOTES (keyset sobre id)
+    
+    // Ids de tareas vencidas a partir de un id, en orden ascendente
+    @Query("SELECT t.id FROM Tarea t WHERE t.id > :ultimoId AND t.fechaLimite < :hoy AND t.estado IN :estados ORDER BY t.id ASC")
+    List<Integer> findIdsVencidasDesde(
+        @Param("ultimoId") Integer ultimoId,
+        @Param("hoy") LocalDate hoy,
+        @Param("estados") List<Estado> estados,
+        Pageable pageable
+    );
+    
+    // Igual que el anterior pero limitado a un usuario
+    @Query("SELECT t.id FROM Tarea t WHERE t.usuario.id = :usuarioId AND t.id > :ultimoId AND t.fechaLimite < :hoy AND t.estado IN :estados ORDER BY t.id ASC")
+    List<Integer> findIdsVencidasDeUsuarioDesde(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("ultimoId") Integer ultimoId,
+        @Param("hoy") LocalDate hoy,
+        @Param("estados") List<Estado> estados,
+        Pageable pageable
+    );
+    
+    // Actualiza en una sola sentencia las tareas vencidas dentro del rango de ids (desde, hasta]
+    @Modifying
+    @Query("UPDATE Tarea t SET t.estado = :nuevoEstado WHERE t.id > :desde AND t.id <= :hasta AND t.fechaLimite < :hoy AND t.estado IN :estados")
+    int marcarVencidasEnRango(
+        @Param("desde") Integer desde,
+        @Param("hasta") Integer hasta,
+        @Param("hoy") LocalDate hoy,
+        @Param("estados") List<Estado> estados,
+        @Param("nuevoEstado") Estado nuevoEstado
+    );
+    
+    @Modifying
+    @Query("UPDATE Tarea t SET t.estado = :nuevoEstado WHERE t.usuario.id = :usuarioId AND t.id > :desde AND t.id <= :hasta AND t.fechaLimite < :hoy AND t.estado IN :estados")
+    int marcarVencidasDeUsuarioEnRango(
+        @Param("usuarioId") Integer usuarioId,
+        @Param("desde") Integer desde,
+        @Param("hasta") Integer hasta,
+        @Param("hoy") LocalDate hoy,
+        @Param("estados") List<Estado> estados,
+        @Param("nuevoEstado") Estado nuevoEstado
+    );
+
+    // RECORDATORIOS DE VENCIMIENTO (keyset sobre fecha_limite, id; ver PlanificadorRecordatoriosService)
+    
+    // [id, usuarioId, fechaLimite] de las tareas activas que vencen después de (fecha, id) y hasta "hasta"
+    @Query("SELECT t.id, t.usuario.id, t.fechaLimite FROM Tarea t WHERE t.fechaLimite <= :hasta "
+        + "AND (t.fechaLimite > :fecha OR (t.fechaLimite = :fecha AND t.id > :id)) AND t.estado IN :estados "
+        + "ORDER BY t.fechaLimite ASC, t.id ASC")
+    List<Object[]> findVencimientosDesde(
+        @Param("fecha") LocalDate fecha,
+        @Param("id") Integer id,
+        @Param("hasta") LocalDate hasta,
+        @Param("estados") List<Estado> estados,
+        Pageable pageable
+    );
+    
+    // Estado actual de las tareas de un lote de recordatorios (con su usuario para el INSERT).
+    // Bloqueo compartido: un borrado de la tarea espera a que el recordatorio esté guardado y se lo lleva
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT t FROM Tarea t WHERE t.id IN :ids AND t.estado IN :estados")
+    List<Tarea> findActivasByIdIn(@Param("ids") Collection<Integer> ids, @Param("estados") List<Estado> estados);
+
+    // EXPORTACIÓN (lectura en streaming, solo hacia delante)
+
+    // Hay que consumirlo dentro de una transacción y cerrarlo; con MySQL el fetch size
+    // solo trae filas por bloques si la conexión usa useCursorFetch=true
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Tarea t LEFT JOIN FETCH t.categoria WHERE t.usuario.id = :usuarioId ORDER BY t.id")
+    Stream<Tarea> streamParaExportar(@Param("usuarioId") Integer usuarioId);
+}
@@ -0,0 +1,93 @@
+package demo.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import demo.model.Tarea;
+import jakarta.persistence.criteria.JoinType;
+
+/**
+ * Filtros combinables para el listado paginado de tareas.
+ * Todos parten de delUsuario(), que coincide con el prefijo de los índices de tareas.
+ */
+public final class TareaSpecs {
+
+    private TareaSpecs() {}
+
+    public static Specification<Tarea> delUsuario(Integer usuarioId) {
+        return (root, query, cb) -> cb.equal(root.get("usuario").get("id"), usuarioId);
+    }
+
+    // Trae la categoría en el mismo SELECT (evita una consulta por tarea)
+    public static Specification<Tarea> conCategoriaCargada() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("categoria", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Tarea> conEstado(Tarea.Estado estado) {
+        return (root, query, cb) -> estado == null ? null : cb.equal(root.get("estado"), estado);
+    }
+
+    public static Specification<Tarea> conEstadoDistintoDe(Tarea.Estado estado) {
+        return (root, query, cb) -> cb.notEqual(root.get("estado"), estado);
+    }
+
+    public static Specification<Tarea> conPrioridad(Tarea.Prioridad prioridad) {
+        return (root, query, cb) -> prioridad == null ? null : cb.equal(root.get("prioridad"), prioridad);
+    }
+
+    public static Specification<Tarea> conCategoria(Integer categoriaId) {
+        return (root, query, cb) -> categoriaId == null ? null : cb.equal(root.get("categoria").get("id"), categoriaId);
+    }
+
+    public static Specification<Tarea> venceDesde(LocalDate desde) {
+        return (root, query, cb) -> desde == null ? null : cb.greaterThanOrEqualTo(root.get("fechaLimite"), desde);
+    }
+
+    public static Specification<Tarea> venceHasta(LocalDate hasta) {
+        return (root, query, cb) -> hasta == null ? null : cb.lessThanOrEqualTo(root.get("fechaLimite"), hasta);
+    }
+
+    public static Specification<Tarea> conFechaLimite() {
+        return (root, query, cb) -> cb.isNotNull(root.get("fechaLimite"));
+    }
+
+    public static Specification<Tarea> sinFechaLimite() {
+        return (root, query, cb) -> cb.isNull(root.get("fechaLimite"));
+    }
+
+    /**
+     * Keyset sobre (fecha_limite, id): filas estrictamente posteriores al cursor
+     * en el orden indicado.
+     */
+    public static Specification<Tarea> despuesDe(LocalDate fecha, Integer id, boolean descendente) {
+        return (root, query, cb) -> {
+            if (fecha == null) {
+                return null;
+            }
+            if (descendente) {
+                return cb.or(
+                    cb.lessThan(root.get("fechaLimite"), fecha),
+                    cb.and(cb.equal(root.get("fechaLimite"), fecha), cb.lessThan(root.get("id"), id)));
+            }
+            return cb.or(
+                cb.greaterThan(root.get("fechaLimite"), fecha),
+                cb.and(cb.equal(root.get("fechaLimite"), fecha), cb.greaterThan(root.get("id"), id)));
+        };
+    }
+
+    // Keyset solo sobre id
+    public static Specification<Tarea> despuesDeId(Integer id, boolean descendente) {
+        return (root, query, cb) -> {
+            if (id == null) {
+                return null;
+            }
+            return descendente ? cb.lessThan(root.get("id"), id) : cb.greaterThan(root.get("id"), id);
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package demo.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import demo.model.UsuarioContadores;
+
+@Repository
+public interface UsuarioContadoresRepository extends JpaRepository<UsuarioContadores, Integer> {
+
+    @Query("SELECT c.notificacionesNoLeidas FROM UsuarioContadores c WHERE c.usuarioId = :usuarioId")
+    Long findNoLeidas(@Param("usuarioId") Integer usuarioId);
+
+    // Ajuste relativo: no pisa los cambios concurrentes de otras transacciones
+    @Modifying
+    @Query("UPDATE UsuarioContadores c SET c.notificacionesNoLeidas = c.notificacionesNoLeidas + :delta "
+        + "WHERE c.usuarioId IN :usuarioIds")
+    int sumarNoLeidas(@Param("usuarioIds") Collection<Integer> usuarioIds, @Param("delta") long delta);
+
+    // Recuento real de un lote de usuarios (keyset sobre id), para la reconciliación
+    @Query("SELECT new demo.model.UsuarioContadores(u.id, "
+        + "(SELECT COUNT(n) FROM Notificacion n WHERE n.usuario.id = u.id AND n.leida = false)) "
+        + "FROM Usuario u WHERE u.id > :desde ORDER BY u.id")
+    List<UsuarioContadores> calcularDesde(@Param("desde") Integer desde, Pageable lote);
+}
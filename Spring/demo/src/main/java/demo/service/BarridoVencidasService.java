@@ -0,0 +1,183 @@
+package demo.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.model.BarridoCheckpoint;
+import demo.model.ResultadoBarrido;
+import demo.model.Tarea.Estado;
+import demo.repository.BarridoCheckpointRepository;
+import demo.repository.TareaRepository;
+
+/**
+ * Motor de barrido de tareas vencidas.
+ * Recorre la tabla por lotes (keyset sobre id) y marca cada lote como
+ * Incompleta con un único UPDATE, cada lote en su propia transacción
+ * junto con el recálculo de los contadores de los proyectos afectados.
+ * El barrido global guarda un punto de control por lote para poder
+ * reanudarse tras una caída.
+ */
+@Service
+public class BarridoVencidasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BarridoVencidasService.class);
+
+    static final String BARRIDO_GLOBAL = "tareas-vencidas";
+
+    // Solo las tareas activas pueden pasar a Incompleta
+    private static final List<Estado> ESTADOS_ACTIVOS = List.of(Estado.Pendiente, Estado.En_progreso);
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private BarridoCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ContadoresProyectoService contadoresProyectoService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${tareas.barrido.tamano-lote:1000}")
+    private int tamanoLote;
+
+    @Value("${tareas.barrido.pausa-ms:0}")
+    private long pausaMs;
+
+    private final AtomicBoolean barridoGlobalEnCurso = new AtomicBoolean(false);
+
+    /**
+     * Barrido de todas las tareas con punto de control.
+     * Si existe un barrido sin terminar con la misma fecha de corte, continúa
+     * desde el último id confirmado.
+     */
+    public ResultadoBarrido ejecutarBarridoGlobal(LocalDate hoy) {
+        if (!barridoGlobalEnCurso.compareAndSet(false, true)) {
+            logger.warn("⏳ Ya hay un barrido de tareas vencidas en curso, se omite esta ejecución");
+            return new ResultadoBarrido();
+        }
+        try {
+            BarridoCheckpoint checkpoint = checkpointRepository.findById(BARRIDO_GLOBAL)
+                .orElseGet(() -> new BarridoCheckpoint(BARRIDO_GLOBAL));
+
+            boolean reanudar = !Boolean.TRUE.equals(checkpoint.getCompletado())
+                && hoy.equals(checkpoint.getFechaCorte());
+            if (reanudar) {
+                logger.info("🔁 Reanudando barrido desde el id {} ({} tarea(s) ya actualizadas)",
+                    checkpoint.getUltimoId(), checkpoint.getFilasActualizadas());
+            } else {
+                checkpoint.reiniciar(hoy);
+            }
+            checkpoint = checkpointRepository.save(checkpoint);
+
+            ResultadoBarrido resultado = ejecutar(null, hoy, checkpoint, pausaMs);
+            resultado.setReanudado(reanudar);
+            return resultado;
+        } finally {
+            barridoGlobalEnCurso.set(false);
+        }
+    }
+
+    /**
+     * Reanuda el barrido global solo si quedó uno a medias.
+     * Devuelve null si no había nada pendiente.
+     */
+    public ResultadoBarrido reanudarSiPendiente() {
+        return checkpointRepository.findById(BARRIDO_GLOBAL)
+            .filter(c -> !Boolean.TRUE.equals(c.getCompletado()))
+            .map(c -> ejecutarBarridoGlobal(c.getFechaCorte()))
+            .orElse(null);
+    }
+
+    /**
+     * Barrido limitado a las tareas de un usuario, sin punto de control ni pausas.
+     */
+    public ResultadoBarrido ejecutarBarridoUsuario(Integer usuarioId, LocalDate hoy) {
+        return ejecutar(usuarioId, hoy, null, 0);
+    }
+
+    private ResultadoBarrido ejecutar(Integer usuarioId, LocalDate hoy, BarridoCheckpoint checkpoint, long pausa) {
+        long inicio = System.currentTimeMillis();
+        ResultadoBarrido resultado = new ResultadoBarrido();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        PageRequest lote = PageRequest.of(0, tamanoLote);
+
+        int ultimoId = checkpoint != null ? checkpoint.getUltimoId() : 0;
+        boolean terminado = false;
+
+        while (true) {
+            final int desde = ultimoId;
+            Integer[] hastaRef = new Integer[1];
+
+            Integer filas = tx.execute(status -> {
+                List<Integer> ids = usuarioId == null
+                    ? tareaRepository.findIdsVencidasDesde(desde, hoy, ESTADOS_ACTIVOS, lote)
+                    : tareaRepository.findIdsVencidasDeUsuarioDesde(usuarioId, desde, hoy, ESTADOS_ACTIVOS, lote);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+
+                Integer hasta = ids.get(ids.size() - 1);
+                int actualizadas = usuarioId == null
+                    ? tareaRepository.marcarVencidasEnRango(desde, hasta, hoy, ESTADOS_ACTIVOS, Estado.Incompleta)
+                    : tareaRepository.marcarVencidasDeUsuarioEnRango(usuarioId, desde, hasta, hoy, ESTADOS_ACTIVOS, Estado.Incompleta);
+                contadoresProyectoService.recalcularPorTareas(ids);
+
+                // El punto de control se confirma en la misma transacción que el lote
+                if (checkpoint != null) {
+                    checkpoint.setUltimoId(hasta);
+                    checkpoint.setFilasActualizadas(checkpoint.getFilasActualizadas() + actualizadas);
+                    checkpoint.setLotes(checkpoint.getLotes() + 1);
+                    checkpointRepository.save(checkpoint);
+                }
+                hastaRef[0] = hasta;
+                return actualizadas;
+            });
+
+            if (filas == null) {
+                terminado = true;
+                break;
+            }
+
+            ultimoId = hastaRef[0];
+            resultado.registrarLote(filas);
+            logger.info("⚠️ Lote {}: {} tarea(s) marcadas como incompletas (hasta id {})",
+                resultado.getLotes(), filas, ultimoId);
+
+            if (pausa > 0 && !pausar(pausa)) {
+                break;
+            }
+        }
+
+        if (terminado && checkpoint != null) {
+            checkpoint.setCompletado(true);
+            checkpointRepository.save(checkpoint);
+        }
+
+        resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+        return resultado;
+    }
+
+    // Devuelve false si el hilo fue interrumpido durante la pausa
+    private boolean pausar(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Barrido interrumpido, se reanudará desde el último lote confirmado");
+            return false;
+        }
+    }
+}
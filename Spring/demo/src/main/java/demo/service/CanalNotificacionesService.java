@@ -0,0 +1,327 @@
+package demo.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import demo.model.Notificacion;
+import demo.model.NotificacionDTO;
+import demo.repository.NotificacionRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Canal de notificaciones en vivo (Server-Sent Events) por usuario.
+ * Solo los usuarios conectados tienen canal: sus suscriptores (pestañas
+ * abiertas) y un buffer con las últimas notificaciones para reenviarlas cuando
+ * el navegador reconecta con Last-Event-ID. El canal se descarta al irse el
+ * último suscriptor; un reenvío que ya no está en el buffer se lee de la BD.
+ * Cada suscriptor tiene una cola acotada que se vacía en un hilo aparte; si
+ * se llena, la conexión se cierra y el cliente reconecta.
+ */
+@Service
+public class CanalNotificacionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanalNotificacionesService.class);
+
+    static final String EVENTO_NOTIFICACION = "notificacion";
+    static final String EVENTO_RECARGAR = "recargar";
+    static final String EVENTO_CONTADOR = "contador";
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Value("${notificaciones.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notificaciones.sse.reintento-ms:5000}")
+    private long reintentoMs;
+
+    @Value("${notificaciones.sse.buffer:100}")
+    private int tamanoBuffer;
+
+    @Value("${notificaciones.sse.cola:256}")
+    private int capacidadCola;
+
+    private final Map<Integer, Canal> canales = new ConcurrentHashMap<>();
+
+    private final ExecutorService envios = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "sse-notificaciones");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Abre un stream para el usuario. Si se indica el último id recibido, primero
+     * se reenvían las notificaciones posteriores (del buffer o, si no alcanza, de la BD).
+     */
+    public SseEmitter suscribir(Integer usuarioId, Integer ultimoId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor s = new Suscriptor(emitter);
+
+        emitter.onCompletion(() -> quitar(usuarioId, s));
+        emitter.onTimeout(() -> {
+            quitar(usuarioId, s);
+            emitter.complete();
+        });
+        emitter.onError(e -> quitar(usuarioId, s));
+
+        s.encolar(SseEmitter.event().reconnectTime(reintentoMs).comment("conectado"));
+
+        while (true) {
+            Canal canal = canales.computeIfAbsent(usuarioId, id -> new Canal());
+            // Bajo el lock del canal, para que ninguna notificación nueva se cuele
+            // entre las reenviadas ni se pierda mientras se registra el suscriptor
+            synchronized (canal) {
+                if (canal.descartado) {
+                    // Lo acaba de soltar su último suscriptor: se crea otro
+                    continue;
+                }
+                // El canal se anota antes de mirar si ya se cerró: o quitar() lo ve, o aquí se ve el cierre
+                s.canal = canal;
+                if (s.cerrado) {
+                    break;
+                }
+                if (ultimoId != null) {
+                    reenviar(usuarioId, canal, s, ultimoId);
+                }
+                canal.suscriptores.add(s);
+                break;
+            }
+        }
+        return emitter;
+    }
+
+    // Publica después del commit si hay una transacción en curso
+    public void publicar(Notificacion notificacion) {
+        Integer usuarioId = notificacion.getUsuario().getId();
+        NotificacionDTO dto = NotificacionDTO.desde(notificacion);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicar(usuarioId, dto);
+                }
+            });
+        } else {
+            publicar(usuarioId, dto);
+        }
+    }
+
+    /**
+     * Variación del contador de no leídas (marcadas o eliminadas en otra pestaña).
+     * Sin id ni buffer: si se pierde, la siguiente lectura del contador lo corrige.
+     */
+    public void publicarContador(Integer usuarioId, long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enviarContador(usuarioId, delta);
+                }
+            });
+        } else {
+            enviarContador(usuarioId, delta);
+        }
+    }
+
+    private void enviarContador(Integer usuarioId, long delta) {
+        Canal canal = canales.get(usuarioId);
+        if (canal == null) {
+            return;
+        }
+        synchronized (canal) {
+            for (Suscriptor s : new ArrayList<>(canal.suscriptores)) {
+                s.encolar(SseEmitter.event().name(EVENTO_CONTADOR).data(Map.of("delta", delta), MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    public void publicarTodas(List<Notificacion> notificaciones) {
+        for (Notificacion n : notificaciones) {
+            publicar(n);
+        }
+    }
+
+    // Sin canal no hay a quién enviar ni buffer que guardar: el reenvío sale de la BD
+    private void publicar(Integer usuarioId, NotificacionDTO dto) {
+        Canal canal = canales.get(usuarioId);
+        if (canal == null) {
+            return;
+        }
+        synchronized (canal) {
+            if (canal.descartado) {
+                return;
+            }
+            canal.recientes.addLast(dto);
+            while (canal.recientes.size() > tamanoBuffer) {
+                canal.recientes.removeFirst();
+            }
+            for (Suscriptor s : new ArrayList<>(canal.suscriptores)) {
+                s.encolar(evento(dto));
+            }
+        }
+    }
+
+    private void reenviar(Integer usuarioId, Canal canal, Suscriptor s, int ultimoId) {
+        List<NotificacionDTO> pendientes = new ArrayList<>();
+        boolean enBuffer = false;
+        for (NotificacionDTO dto : canal.recientes) {
+            if (enBuffer) {
+                pendientes.add(dto);
+            } else if (dto.getId() == ultimoId) {
+                enBuffer = true;
+            }
+        }
+
+        if (!enBuffer) {
+            // El último id ya salió del buffer (o el servidor se reinició): se busca en la BD
+            List<Notificacion> posteriores = notificacionRepository.findPosterioresA(
+                usuarioId, ultimoId, PageRequest.of(0, tamanoBuffer + 1));
+            if (posteriores.size() > tamanoBuffer) {
+                s.encolar(SseEmitter.event().name(EVENTO_RECARGAR).data("{}", MediaType.APPLICATION_JSON));
+                return;
+            }
+            for (Notificacion n : posteriores) {
+                pendientes.add(NotificacionDTO.desde(n));
+            }
+        }
+
+        for (NotificacionDTO dto : pendientes) {
+            s.encolar(evento(dto));
+        }
+    }
+
+    // Al irse el último suscriptor el canal se descarta con su buffer
+    private void quitar(Integer usuarioId, Suscriptor s) {
+        s.cerrado = true;
+        Canal canal = s.canal;
+        if (canal == null) {
+            return;
+        }
+        synchronized (canal) {
+            if (canal.suscriptores.remove(s) && canal.suscriptores.isEmpty()) {
+                canal.descartado = true;
+                canal.recientes.clear();
+                canales.remove(usuarioId, canal);
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder evento(NotificacionDTO dto) {
+        return SseEmitter.event()
+            .id(String.valueOf(dto.getId()))
+            .name(EVENTO_NOTIFICACION)
+            .data(dto, MediaType.APPLICATION_JSON);
+    }
+
+    // Mantiene viva la conexión a través de proxies y detecta clientes caídos
+    @Scheduled(fixedDelayString = "${notificaciones.sse.heartbeat-ms:25000}")
+    public void enviarHeartbeat() {
+        for (Canal canal : canales.values()) {
+            List<Suscriptor> suscriptores;
+            synchronized (canal) {
+                suscriptores = new ArrayList<>(canal.suscriptores);
+            }
+            for (Suscriptor s : suscriptores) {
+                s.encolar(SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        envios.shutdownNow();
+        for (Canal canal : canales.values()) {
+            synchronized (canal) {
+                for (Suscriptor s : canal.suscriptores) {
+                    s.emitter.complete();
+                }
+            }
+        }
+    }
+
+    private static final class Canal {
+        private final Set<Suscriptor> suscriptores = new HashSet<>();
+        private final ArrayDeque<NotificacionDTO> recientes = new ArrayDeque<>();
+        // Ya fuera del mapa: quien lo tenga debe crear o buscar otro
+        private boolean descartado;
+    }
+
+    private final class Suscriptor {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> cola;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean cerrado;
+        private volatile Canal canal;
+
+        private Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.cola = new ArrayBlockingQueue<>(capacidadCola);
+        }
+
+        private void encolar(SseEmitter.SseEventBuilder evento) {
+            if (cerrado) {
+                return;
+            }
+            if (!cola.offer(evento)) {
+                // Cliente demasiado lento: se corta y al reconectar recupera por Last-Event-ID
+                logger.warn("⚠️ Cola SSE llena ({} eventos), se cierra la conexión", capacidadCola);
+                cerrado = true;
+                cola.clear();
+                emitter.complete();
+                return;
+            }
+            programarEnvio();
+        }
+
+        private void programarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::vaciar);
+                } catch (RuntimeException e) {
+                    enviando.set(false);
+                }
+            }
+        }
+
+        private void vaciar() {
+            try {
+                SseEmitter.SseEventBuilder evento;
+                while (!cerrado && (evento = cola.poll()) != null) {
+                    emitter.send(evento);
+                }
+            } catch (IOException | IllegalStateException e) {
+                cerrado = true;
+                cola.clear();
+                emitter.completeWithError(e);
+            } finally {
+                enviando.set(false);
+                if (!cerrado && !cola.isEmpty()) {
+                    programarEnvio();
+                }
+            }
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import demo.model.Categoria;
 import demo.model.Usuario;
 import demo.repository.CategoriaRepository;
+import demo.service.VersionesService.Recurso;
 
 @Service
 public class CategoriaService {
@@ -16,6 +17,9 @@ public class CategoriaService {
     @Autowired
     private CategoriaRepository categoriaRepository;
     
+    @Autowired
+    private VersionesService versionesService;
+    
     public List<Categoria> getCategoriasByUsuario(Usuario usuario) {
         return categoriaRepository.findByUsuario(usuario);
     }
@@ -25,11 +29,22 @@ public class CategoriaService {
     }
     
     public Categoria saveCategoria(Categoria categoria) {
-        return categoriaRepository.save(categoria);
+        Categoria guardada = categoriaRepository.save(categoria);
+        versionesService.incrementar(usuarioId(guardada), Recurso.CATEGORIAS);
+        return guardada;
     }
     
+    // Las tareas del listado llevan su categoría: también cambian
     public void deleteCategoria(Integer id) {
-        categoriaRepository.deleteById(id);
+        categoriaRepository.findById(id).ifPresent(categoria -> {
+            categoriaRepository.delete(categoria);
+            versionesService.incrementar(usuarioId(categoria), Recurso.CATEGORIAS, Recurso.TAREAS);
+        });
+    }
+    
+    // Las categorías predeterminadas no tienen usuario
+    private static Integer usuarioId(Categoria categoria) {
+        return categoria.getUsuario() != null ? categoria.getUsuario().getId() : null;
     }
     
     public boolean existsByNombre(String nombre, Usuario usuario) {
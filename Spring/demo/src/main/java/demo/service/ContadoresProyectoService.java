@@ -0,0 +1,182 @@
+package demo.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.model.ProyectoContadores;
+import demo.model.Tarea;
+import demo.repository.ProyectoContadoresRepository;
+import demo.repository.ProyectoRepository;
+
+/**
+ * Mantiene los contadores de tareas por estado de cada proyecto
+ * (tabla proyecto_contadores). Cada método se une a la transacción de quien
+ * lo llama, así el contador cambia o no junto con la tarea o el proyecto.
+ * La reconciliación periódica los recalcula por lotes y corrige cualquier
+ * desviación (p. ej. cambios hechos directamente en la base de datos).
+ */
+@Service
+public class ContadoresProyectoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadoresProyectoService.class);
+
+    @Autowired
+    private ProyectoContadoresRepository contadoresRepository;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${proyectos.contadores.tamano-lote:500}")
+    private int tamanoLote;
+
+    public Optional<ProyectoContadores> obtener(Integer proyectoId) {
+        return contadoresRepository.findById(proyectoId);
+    }
+
+    // Proyecto nuevo: empieza sin tareas
+    @Transactional
+    public void crear(Integer proyectoId) {
+        if (!contadoresRepository.existsById(proyectoId)) {
+            contadoresRepository.save(new ProyectoContadores(proyectoId));
+        }
+    }
+
+    // Tareas añadidas al proyecto, con su estado actual
+    @Transactional
+    public void tareasAgregadas(Integer proyectoId, Collection<Tarea.Estado> estados) {
+        sumar(proyectoId, estados, 1);
+    }
+
+    @Transactional
+    public void tareasQuitadas(Integer proyectoId, Collection<Tarea.Estado> estados) {
+        sumar(proyectoId, estados, -1);
+    }
+
+    private void sumar(Integer proyectoId, Collection<Tarea.Estado> estados, int signo) {
+        if (estados.isEmpty()) {
+            return;
+        }
+        long[] d = new long[4];
+        for (Tarea.Estado estado : estados) {
+            long[] e = deltas(estado, signo);
+            for (int i = 0; i < d.length; i++) {
+                d[i] += e[i];
+            }
+        }
+        contadoresRepository.sumar(proyectoId, (long) signo * estados.size(), d[0], d[1], d[2], d[3]);
+    }
+
+    // Una tarea cambió de estado: se mueve de columna en todos sus proyectos
+    @Transactional
+    public void cambioDeEstado(Integer tareaId, Tarea.Estado anterior, Tarea.Estado nuevo) {
+        if (anterior == nuevo) {
+            return;
+        }
+        long[] quitar = deltas(anterior, -1);
+        long[] poner = deltas(nuevo, 1);
+        contadoresRepository.sumarEnProyectosDeTarea(tareaId, 0,
+            quitar[0] + poner[0], quitar[1] + poner[1], quitar[2] + poner[2], quitar[3] + poner[3]);
+    }
+
+    // Una tarea se va a borrar: se descuenta de todos sus proyectos.
+    // Antes de quitar sus filas de proyecto_tareas, que es de donde salen los proyectos
+    @Transactional
+    public void tareaEliminada(Integer tareaId, Tarea.Estado estado) {
+        long[] d = deltas(estado, -1);
+        contadoresRepository.sumarEnProyectosDeTarea(tareaId, -1, d[0], d[1], d[2], d[3]);
+    }
+
+    /**
+     * Cambios masivos (barrido de vencidas): recalcula desde proyecto_tareas los
+     * proyectos que contienen alguna de las tareas.
+     */
+    @Transactional
+    public void recalcularPorTareas(List<Integer> tareaIds) {
+        if (tareaIds.isEmpty()) {
+            return;
+        }
+        List<Integer> proyectoIds = proyectoRepository.findIdsConTareas(tareaIds);
+        if (!proyectoIds.isEmpty()) {
+            contadoresRepository.recalcular(proyectoIds);
+        }
+    }
+
+    /**
+     * Compara los contadores de todos los proyectos con el recuento real, un
+     * lote por transacción, y corrige los que no coinciden.
+     * Se ejecuta todos los días a las 03:30.
+     */
+    @Scheduled(cron = "${proyectos.contadores.reconciliar-cron:0 30 3 * * *}")
+    public int reconciliar() {
+        long inicio = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        PageRequest lote = PageRequest.of(0, tamanoLote);
+        int corregidos = 0;
+        int ultimoId = 0;
+
+        while (true) {
+            final int desde = ultimoId;
+            int[] resultado = tx.execute(status -> {
+                List<ProyectoContadores> reales = contadoresRepository.calcularDesde(desde, lote);
+                if (reales.isEmpty()) {
+                    return null;
+                }
+                Map<Integer, ProyectoContadores> guardados = contadoresRepository
+                    .findAllById(reales.stream().map(ProyectoContadores::getProyectoId).toList())
+                    .stream().collect(Collectors.toMap(ProyectoContadores::getProyectoId, Function.identity()));
+
+                int n = 0;
+                for (ProyectoContadores real : reales) {
+                    ProyectoContadores guardado = guardados.get(real.getProyectoId());
+                    if (guardado == null || !guardado.mismosValores(real)) {
+                        contadoresRepository.save(real);
+                        n++;
+                    }
+                }
+                return new int[] {reales.get(reales.size() - 1).getProyectoId(), n};
+            });
+
+            if (resultado == null) {
+                break;
+            }
+            ultimoId = resultado[0];
+            corregidos += resultado[1];
+        }
+
+        if (corregidos > 0) {
+            logger.warn("🔧 Contadores de proyecto corregidos: {} proyecto(s) no coincidían ({} ms)",
+                corregidos, System.currentTimeMillis() - inicio);
+        } else {
+            logger.info("✅ Contadores de proyecto verificados sin diferencias ({} ms)",
+                System.currentTimeMillis() - inicio);
+        }
+        return corregidos;
+    }
+
+    // Deltas de pendientes, en progreso, completadas e incompletas (mismo orden que Tarea.Estado)
+    private static long[] deltas(Tarea.Estado estado, int signo) {
+        long[] d = new long[4];
+        if (estado != null) {
+            d[estado.ordinal()] = signo;
+        }
+        return d;
+    }
+}
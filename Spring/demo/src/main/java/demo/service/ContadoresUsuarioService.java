@@ -0,0 +1,152 @@
+package demo.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.model.UsuarioContadores;
+import demo.repository.NotificacionRepository;
+import demo.repository.UsuarioContadoresRepository;
+
+/**
+ * Mantiene el número de notificaciones no leídas de cada usuario
+ * (tabla usuario_contadores). Los ajustes se unen a la transacción de quien
+ * llama, así el contador cambia o no junto con las notificaciones.
+ * Los usuarios sin fila la obtienen en su primera lectura, y la reconciliación
+ * periódica corrige cualquier desviación.
+ */
+@Service
+public class ContadoresUsuarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadoresUsuarioService.class);
+
+    @Autowired
+    private UsuarioContadoresRepository contadoresRepository;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${usuarios.contadores.tamano-lote:500}")
+    private int tamanoLote;
+
+    // Lectura por clave primaria para la insignia de la cabecera
+    public long notificacionesNoLeidas(Integer usuarioId) {
+        Long noLeidas = contadoresRepository.findNoLeidas(usuarioId);
+        if (noLeidas != null) {
+            return noLeidas;
+        }
+        try {
+            return crear(usuarioId);
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición creó la fila a la vez
+            Long creada = contadoresRepository.findNoLeidas(usuarioId);
+            return creada != null ? creada : notificacionRepository.countNoLeidasByUsuarioId(usuarioId);
+        }
+    }
+
+    // Primera vez que se consulta: se parte del recuento real
+    private long crear(Integer usuarioId) {
+        long noLeidas = notificacionRepository.countNoLeidasByUsuarioId(usuarioId);
+        contadoresRepository.saveAndFlush(new UsuarioContadores(usuarioId, noLeidas));
+        return noLeidas;
+    }
+
+    // Una entrada por notificación creada (el mismo usuario puede repetirse)
+    @Transactional
+    public void notificacionesCreadas(Collection<Integer> usuarioIds) {
+        sumar(usuarioIds.stream()
+            .collect(Collectors.groupingBy(Function.identity(), Collectors.counting())), 1);
+    }
+
+    // Borrados masivos (retención): no leídas eliminadas por usuario
+    @Transactional
+    public void noLeidasEliminadas(Map<Integer, Long> porUsuario) {
+        sumar(porUsuario, -1);
+    }
+
+    // Un UPDATE por cada cantidad distinta, no por usuario
+    private void sumar(Map<Integer, Long> porUsuario, int signo) {
+        porUsuario.entrySet().stream()
+            .filter(e -> e.getValue() > 0)
+            .collect(Collectors.groupingBy(Map.Entry::getValue,
+                Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+            .forEach((cantidad, ids) -> contadoresRepository.sumarNoLeidas(ids, signo * cantidad));
+    }
+
+    // Notificaciones no leídas que se marcaron como leídas o se eliminaron
+    @Transactional
+    public void notificacionesLeidas(Integer usuarioId, long cantidad) {
+        if (cantidad > 0) {
+            contadoresRepository.sumarNoLeidas(List.of(usuarioId), -cantidad);
+        }
+    }
+
+    /**
+     * Compara los contadores de todos los usuarios con el recuento real, un
+     * lote por transacción, y corrige (o crea) los que no coinciden.
+     * Se ejecuta todos los días a las 03:45.
+     */
+    @Scheduled(cron = "${usuarios.contadores.reconciliar-cron:0 45 3 * * *}")
+    public int reconciliar() {
+        long inicio = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        PageRequest lote = PageRequest.of(0, tamanoLote);
+        int corregidos = 0;
+        int ultimoId = 0;
+
+        while (true) {
+            final int desde = ultimoId;
+            int[] resultado = tx.execute(status -> {
+                List<UsuarioContadores> reales = contadoresRepository.calcularDesde(desde, lote);
+                if (reales.isEmpty()) {
+                    return null;
+                }
+                Map<Integer, UsuarioContadores> guardados = contadoresRepository
+                    .findAllById(reales.stream().map(UsuarioContadores::getUsuarioId).toList())
+                    .stream().collect(Collectors.toMap(UsuarioContadores::getUsuarioId, Function.identity()));
+
+                int n = 0;
+                for (UsuarioContadores real : reales) {
+                    UsuarioContadores guardado = guardados.get(real.getUsuarioId());
+                    if (guardado == null || !guardado.mismosValores(real)) {
+                        contadoresRepository.save(real);
+                        n++;
+                    }
+                }
+                return new int[] {reales.get(reales.size() - 1).getUsuarioId(), n};
+            });
+
+            if (resultado == null) {
+                break;
+            }
+            ultimoId = resultado[0];
+            corregidos += resultado[1];
+        }
+
+        if (corregidos > 0) {
+            logger.warn("🔧 Contadores de usuario corregidos: {} usuario(s) no coincidían ({} ms)",
+                corregidos, System.currentTimeMillis() - inicio);
+        } else {
+            logger.info("✅ Contadores de usuario verificados sin diferencias ({} ms)",
+                System.currentTimeMillis() - inicio);
+        }
+        return corregidos;
+    }
+}
@@ -0,0 +1,151 @@
+package demo.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import demo.model.Tarea;
+import demo.model.Usuario;
+import demo.repository.ProyectoRepository;
+import demo.repository.TareaRepository;
+
+/**
+ * Aplica el formulario de edición (PUT /tasks/{id}) sobre una tarea ya cargada
+ * campo a campo, y solo toca los que cambian. Devuelve sus nombres: si no hay
+ * ninguno, no hace falta guardar ni registrar historial.
+ * Como antes, una fecha, prioridad o estado no reconocidos se ignoran.
+ */
+@Service
+public class EdicionTareasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EdicionTareasService.class);
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Autowired
+    private ContadoresProyectoService contadoresProyectoService;
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    @Autowired
+    private PlanificadorRecordatoriosService planificadorRecordatorios;
+
+    /**
+     * Guarda la tarea editada y, si cambió de estado, mueve en la misma
+     * transacción los contadores de los proyectos que la contienen.
+     */
+    @Transactional
+    public Tarea guardar(Tarea tarea, Tarea.Estado estadoAnterior) {
+        Tarea guardada = tareaRepository.save(tarea);
+        contadoresProyectoService.cambioDeEstado(guardada.getId(), estadoAnterior, guardada.getEstado());
+        return guardada;
+    }
+
+    /**
+     * Borra la tarea (su historial se va en cascada). Antes la saca de sus
+     * proyectos, descontándola de sus contadores, y borra sus notificaciones,
+     * todo en la misma transacción: ni proyecto_tareas ni notificaciones
+     * borran en cascada. Sus recordatorios en cola se cancelan tras el commit.
+     */
+    @Transactional
+    public void eliminar(Tarea tarea) {
+        if (tareaRepository.bloquear(tarea.getId()).isEmpty()) {
+            return;
+        }
+        planificadorRecordatorios.tareaEliminada(tarea.getId());
+        notificacionService.eliminarDeTarea(tarea.getUsuario().getId(), tarea.getId());
+        contadoresProyectoService.tareaEliminada(tarea.getId(), tarea.getEstado());
+        proyectoRepository.borrarTareaDeProyectos(tarea.getId());
+        tareaRepository.delete(tarea);
+    }
+
+    public List<String> aplicar(Tarea tarea, Map<String, Object> payload, Usuario usuario) {
+        List<String> cambios = new ArrayList<>();
+
+        String titulo = (String) payload.get("title");
+        if (!mismoTexto(tarea.getTitulo(), titulo)) {
+            tarea.setTitulo(titulo);
+            cambios.add("titulo");
+        }
+
+        String descripcion = (String) payload.get("description");
+        if (!mismoTexto(tarea.getDescripcion(), descripcion)) {
+            tarea.setDescripcion(descripcion);
+            cambios.add("descripcion");
+        }
+
+        String dueDateStr = (String) payload.get("dueDate");
+        if (dueDateStr != null && !dueDateStr.isEmpty()) {
+            try {
+                String ds = dueDateStr.trim();
+                LocalDate fechaLimite = LocalDate.parse(ds.length() >= 10 ? ds.substring(0, 10) : ds);
+                if (!fechaLimite.equals(tarea.getFechaLimite())) {
+                    tarea.setFechaLimite(fechaLimite);
+                    cambios.add("fechaLimite");
+                }
+            } catch (DateTimeParseException e) {
+                logger.warn("Error parseando fecha: " + dueDateStr, e);
+            }
+        }
+
+        Tarea.Prioridad prioridad = Tarea.Prioridad.desde((String) payload.get("priority"));
+        if (prioridad != null && prioridad != tarea.getPrioridad()) {
+            tarea.setPrioridad(prioridad);
+            cambios.add("prioridad");
+        }
+
+        Tarea.Estado estado = Tarea.Estado.desde((String) payload.get("status"));
+        if (estado != null && estado != tarea.getEstado()) {
+            tarea.setEstado(estado);
+            cambios.add("estado");
+        }
+
+        // Se compara por id: la categoría actual (proxy lazy) no se carga, y la nueva
+        // solo se busca si es distinta
+        Object categoriaIdObj = payload.get("categoryId");
+        if (categoriaIdObj != null) {
+            Integer actual = tarea.getCategoria() != null ? tarea.getCategoria().getId() : null;
+            if (categoriaIdObj.toString().isEmpty()) {
+                if (actual != null) {
+                    tarea.setCategoria(null);
+                    cambios.add("categoria");
+                }
+            } else {
+                try {
+                    Integer categoriaId = Integer.parseInt(categoriaIdObj.toString());
+                    if (!categoriaId.equals(actual)) {
+                        categoriaService.getCategoriaById(categoriaId, usuario).ifPresent(c -> {
+                            tarea.setCategoria(c);
+                            cambios.add("categoria");
+                        });
+                    }
+                } catch (NumberFormatException e) {
+                    logger.warn("Error actualizando categoría - id no numérico: {}", categoriaIdObj, e);
+                }
+            }
+        }
+        return cambios;
+    }
+
+    // El formulario envía "" donde la tarea tiene null
+    private static boolean mismoTexto(String actual, String nuevo) {
+        return Objects.equals(actual != null ? actual : "", nuevo != null ? nuevo : "");
+    }
+}
@@ -0,0 +1,539 @@
+package demo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import demo.model.EventoHistorial;
+import demo.model.Historial;
+import demo.repository.HistorialRepository;
+import demo.repository.TareaRepository;
+import demo.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Escritura diferida del historial de tareas. Las peticiones solo anotan el
+ * evento en un fichero local (una línea JSON por evento) y lo dejan en una cola
+ * acotada en memoria; un hilo aparte los escribe en la BD por lotes, cada lote
+ * en una transacción que también guarda la última secuencia escrita.
+ * Si la cola se llena, los eventos siguientes quedan solo en el fichero y el
+ * hilo los lee de ahí. Al arrancar se reenvían los que quedaron sin escribir.
+ * Restaurar una tarea también pasa por aquí (registrarRestauracion): así borra
+ * sus completadas después de escribir las que aún estaban en cola, sin esperar.
+ * Con historial.escritor.modo=sincrono se escribe en la propia petición (tests).
+ */
+@Service
+public class EscritorHistorialService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EscritorHistorialService.class);
+
+    public enum Modo { ASINCRONO, SINCRONO }
+
+    @Autowired
+    private HistorialRepository historialRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${historial.escritor.modo:asincrono}")
+    private String modoConfigurado;
+
+    @Value("${historial.escritor.fichero:data/historial-pendiente.ndjson}")
+    private String rutaFichero;
+
+    // Fila de historial_escritor_checkpoints: uno distinto por instancia si comparten BD
+    @Value("${historial.escritor.nombre:historial}")
+    private String nombre;
+
+    @Value("${historial.escritor.cola:10000}")
+    private int capacidadCola;
+
+    @Value("${historial.escritor.tamano-lote:200}")
+    private int tamanoLote;
+
+    @Value("${historial.escritor.agrupar-ms:20}")
+    private long agruparMs;
+
+    @Value("${historial.escritor.reintento-ms:2000}")
+    private long reintentoMs;
+
+    // fsync en cada evento: sobrevive también a una caída del sistema, a costa de latencia
+    @Value("${historial.escritor.forzar-disco:false}")
+    private boolean forzarDisco;
+
+    private Modo modo;
+    private BlockingQueue<EventoHistorial> cola;
+    private FileChannel fichero;
+    private Thread drenador;
+    private TransactionTemplate tx;
+    private volatile boolean activo;
+
+    // Estado del fichero y de las secuencias, protegido por lock
+    private final Object lock = new Object();
+    private long secuencia;
+    private long confirmada;
+    private boolean derramando;
+    private long posicionEscritura;
+    private long posicionLectura;
+    // usuarioId -> eventos anotados y aún sin escribir (ver tienePendientes)
+    private final Map<Integer, Integer> pendientesPorUsuario = new HashMap<>();
+
+    private final LongAdder escritos = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder derramados = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private volatile int ultimoLote;
+    private volatile LocalDateTime fechaLoteEnCurso;
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        modo = "sincrono".equalsIgnoreCase(modoConfigurado.trim()) ? Modo.SINCRONO : Modo.ASINCRONO;
+        tx = new TransactionTemplate(transactionManager);
+        if (modo == Modo.SINCRONO) {
+            logger.info("📝 Historial en modo síncrono: se escribe dentro de cada petición");
+            return;
+        }
+
+        cola = new ArrayBlockingQueue<>(capacidadCola);
+        Path ruta = Path.of(rutaFichero).toAbsolutePath();
+        Files.createDirectories(ruta.getParent());
+        fichero = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        confirmada = leerCheckpoint();
+        long[] pendientes = {0, confirmada};
+        // Una última línea incompleta (caída a mitad de escritura) se descarta
+        posicionEscritura = recorrer(0, fichero.size(), Integer.MAX_VALUE, confirmada, e -> {
+            pendientes[0]++;
+            pendientes[1] = Math.max(pendientes[1], e.getSecuencia());
+            pendientesPorUsuario.merge(e.getUsuarioId(), 1, Integer::sum);
+        });
+        fichero.truncate(posicionEscritura);
+        secuencia = pendientes[1];
+        if (pendientes[0] > 0) {
+            derramando = true;
+            logger.info("♻️ {} evento(s) de historial pendientes en {}: se escribirán en segundo plano", pendientes[0], ruta);
+        }
+
+        activo = true;
+        drenador = new Thread(this::drenar, "escritor-historial");
+        drenador.setDaemon(true);
+        drenador.start();
+    }
+
+    /**
+     * Registra un historial recién creado (new Historial(tarea, usuario)) con la
+     * tarea ya guardada. En modo asíncrono vuelve en cuanto el evento está anotado.
+     */
+    public void registrar(Historial historial) {
+        encolar(historial, false);
+    }
+
+    /**
+     * Registra la restauración de una tarea (su historial nuevo, ya no completada).
+     * Al escribirlo se borran antes los registros de "Tarea completada" de la tarea,
+     * incluidos los que estaban en cola por delante de este.
+     */
+    public void registrarRestauracion(Historial historial) {
+        encolar(historial, true);
+    }
+
+    private void encolar(Historial historial, boolean restauracion) {
+        if (modo == Modo.SINCRONO || !activo) {
+            escribirDirectamente(historial, restauracion);
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        synchronized (lock) {
+            EventoHistorial evento = EventoHistorial.desde(historial, secuencia + 1, ahora, restauracion);
+            long inicioLinea = posicionEscritura;
+            try {
+                anotar(evento);
+            } catch (IOException e) {
+                // Sin el fichero no hay garantía de no perderlo: se escribe en la petición
+                logger.error("❌ No se pudo anotar el historial en {}, se escribe directamente: {}", rutaFichero, e.getMessage());
+                escribirDirectamente(historial, restauracion);
+                return;
+            }
+            secuencia++;
+            pendientesPorUsuario.merge(evento.getUsuarioId(), 1, Integer::sum);
+            if (!derramando && cola.offer(evento)) {
+                return;
+            }
+            if (!derramando) {
+                // Cola llena: a partir de este evento el hilo lee del fichero
+                logger.warn("⚠️ Cola de historial llena ({} eventos), los siguientes se leen del fichero", capacidadCola);
+                derramando = true;
+                posicionLectura = inicioLinea;
+            }
+            derramados.increment();
+        }
+    }
+
+    /**
+     * Si el usuario tiene historial anotado que aún no está en la BD: una consulta
+     * sobre su historial ahora no lo vería (p. ej. las estadísticas del dashboard).
+     */
+    public boolean tienePendientes(Integer usuarioId) {
+        if (modo == Modo.SINCRONO) {
+            return false;
+        }
+        synchronized (lock) {
+            return pendientesPorUsuario.containsKey(usuarioId);
+        }
+    }
+
+    // Modo síncrono, escritor parado o fichero no disponible: en la propia petición
+    private void escribirDirectamente(Historial historial, boolean restauracion) {
+        if (!restauracion) {
+            historialRepository.save(historial);
+            return;
+        }
+        tx.executeWithoutResult(status -> {
+            historialRepository.borrarCompletadasDeTarea(historial.getTareaId());
+            historialRepository.save(historial);
+        });
+    }
+
+    public Map<String, Object> getMetricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("modo", modo);
+        if (modo == Modo.SINCRONO) {
+            return m;
+        }
+        long pendientes;
+        boolean enDisco;
+        long bytes;
+        synchronized (lock) {
+            pendientes = secuencia - confirmada;
+            enDisco = derramando;
+            bytes = posicionEscritura;
+        }
+        EventoHistorial siguiente = cola.peek();
+        LocalDateTime masAntiguo = fechaLoteEnCurso != null ? fechaLoteEnCurso
+            : siguiente != null ? siguiente.getFecha() : null;
+        long n = lotes.sum();
+
+        m.put("enCola", cola.size());
+        m.put("capacidadCola", capacidadCola);
+        m.put("pendientes", pendientes);
+        m.put("derramando", enDisco);
+        m.put("bytesFichero", bytes);
+        m.put("lagMs", pendientes > 0 && masAntiguo != null
+            ? Math.max(0, Duration.between(masAntiguo, LocalDateTime.now()).toMillis()) : 0);
+        m.put("lotes", n);
+        m.put("escritos", escritos.sum());
+        m.put("tamanoMedioLote", n == 0 ? 0.0 : (double) escritos.sum() / n);
+        m.put("ultimoLote", ultimoLote);
+        m.put("derramados", derramados.sum());
+        m.put("descartados", descartados.sum());
+        m.put("errores", errores.sum());
+        return m;
+    }
+
+    // Al parar, se vacía la cola en memoria; lo que quede sigue en el fichero
+    @PreDestroy
+    public void detener() throws IOException {
+        if (modo != Modo.ASINCRONO) {
+            return;
+        }
+        activo = false;
+        try {
+            drenador.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            if (confirmada < secuencia) {
+                logger.warn("⚠️ Quedan {} evento(s) de historial en {}: se escribirán al arrancar",
+                    secuencia - confirmada, rutaFichero);
+            }
+            fichero.close();
+        }
+    }
+
+    private void drenar() {
+        while (activo || !cola.isEmpty()) {
+            try {
+                List<EventoHistorial> lote = tomarLote();
+                if (!lote.isEmpty() && !escribir(lote)) {
+                    return;
+                }
+                compactarFichero();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                errores.increment();
+                logger.error("❌ Error en el escritor de historial", e);
+                if (!dormir(reintentoMs)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Primero la cola en memoria; si está vacía y hay eventos derramados, el fichero
+    private List<EventoHistorial> tomarLote() throws InterruptedException, IOException {
+        List<EventoHistorial> lote = new ArrayList<>();
+        EventoHistorial primero = cola.poll(activo ? 500 : 0, TimeUnit.MILLISECONDS);
+        if (primero != null) {
+            lote.add(primero);
+            // Se espera un poco a que lleguen más para escribirlos en la misma transacción
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(agruparMs);
+            while (lote.size() < tamanoLote) {
+                cola.drainTo(lote, tamanoLote - lote.size());
+                long resta = limite - System.nanoTime();
+                if (lote.size() >= tamanoLote || resta <= 0) {
+                    break;
+                }
+                EventoHistorial siguiente = cola.poll(resta, TimeUnit.NANOSECONDS);
+                if (siguiente == null) {
+                    break;
+                }
+                lote.add(siguiente);
+            }
+            return lote;
+        }
+
+        long desde;
+        long hasta;
+        long base;
+        synchronized (lock) {
+            if (!derramando) {
+                return lote;
+            }
+            desde = posicionLectura;
+            hasta = posicionEscritura;
+            base = confirmada;
+        }
+        long fin = recorrer(desde, hasta, tamanoLote, base, lote::add);
+        synchronized (lock) {
+            posicionLectura = fin;
+            if (lote.isEmpty() && fin >= posicionEscritura) {
+                derramando = false;
+                logger.info("✅ Historial pendiente en disco escrito; se vuelve a la cola en memoria");
+            }
+        }
+        return lote;
+    }
+
+    // false si hay que parar (apagado) con el lote sin escribir: sigue en el fichero
+    private boolean escribir(List<EventoHistorial> lote) {
+        fechaLoteEnCurso = lote.get(0).getFecha();
+        try {
+            while (true) {
+                try {
+                    guardar(lote);
+                    confirmar(lote);
+                    return true;
+                } catch (DataIntegrityViolationException e) {
+                    // Normalmente una tarea borrada antes de escribir su historial
+                    return escribirUnoAUno(lote);
+                } catch (RuntimeException e) {
+                    errores.increment();
+                    logger.warn("⚠️ No se pudo escribir un lote de historial ({} eventos), reintento en {} ms: {}",
+                        lote.size(), reintentoMs, e.getMessage());
+                    if (!activo || !dormir(reintentoMs)) {
+                        return false;
+                    }
+                }
+            }
+        } finally {
+            fechaLoteEnCurso = null;
+        }
+    }
+
+    private boolean escribirUnoAUno(List<EventoHistorial> lote) {
+        for (EventoHistorial evento : lote) {
+            List<EventoHistorial> uno = List.of(evento);
+            while (true) {
+                try {
+                    guardar(uno);
+                    break;
+                } catch (DataIntegrityViolationException e) {
+                    descartados.increment();
+                    logger.warn("🗑️ Historial descartado (tarea {} ya no existe): {}", evento.getTareaId(), e.getMessage());
+                    tx.executeWithoutResult(status -> guardarCheckpoint(evento.getSecuencia()));
+                    break;
+                } catch (RuntimeException e) {
+                    errores.increment();
+                    if (!activo || !dormir(reintentoMs)) {
+                        return false;
+                    }
+                }
+            }
+            confirmar(uno);
+        }
+        return true;
+    }
+
+    private void guardar(List<EventoHistorial> lote) {
+        tx.executeWithoutResult(status -> {
+            List<Historial> historiales = new ArrayList<>(lote.size());
+            for (EventoHistorial e : lote) {
+                if (e.isRestauracion()) {
+                    // Lo anterior del lote, antes de borrar: puede incluir completadas de la misma tarea
+                    historialRepository.saveAllAndFlush(historiales);
+                    historiales.clear();
+                    historialRepository.borrarCompletadasDeTarea(e.getTareaId());
+                }
+                // Referencias sin SELECT: solo se necesitan los ids para el INSERT
+                historiales.add(e.aHistorial(tareaRepository.getReferenceById(e.getTareaId()),
+                    usuarioRepository.getReferenceById(e.getUsuarioId())));
+            }
+            historialRepository.saveAllAndFlush(historiales);
+            guardarCheckpoint(lote.get(lote.size() - 1).getSecuencia());
+        });
+    }
+
+    private void confirmar(List<EventoHistorial> lote) {
+        synchronized (lock) {
+            confirmada = Math.max(confirmada, lote.get(lote.size() - 1).getSecuencia());
+            for (EventoHistorial e : lote) {
+                pendientesPorUsuario.computeIfPresent(e.getUsuarioId(), (id, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+        escritos.add(lote.size());
+        lotes.increment();
+        ultimoLote = lote.size();
+    }
+
+    // Con todo escrito, el fichero se vacía para que no crezca
+    private void compactarFichero() throws IOException {
+        synchronized (lock) {
+            if (!derramando && cola.isEmpty() && confirmada >= secuencia && posicionEscritura > 0) {
+                fichero.truncate(0);
+                posicionEscritura = 0;
+                posicionLectura = 0;
+            }
+        }
+    }
+
+    // Llamar con lock
+    private void anotar(EventoHistorial evento) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(evento);
+        ByteBuffer linea = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (linea.hasRemaining()) {
+            posicionEscritura += fichero.write(linea, posicionEscritura);
+        }
+        if (forzarDisco) {
+            fichero.force(false);
+        }
+    }
+
+    /**
+     * Lee líneas completas entre dos posiciones y entrega los eventos posteriores
+     * a la secuencia base, hasta un máximo. Devuelve la posición tras la última línea leída.
+     */
+    private long recorrer(long desde, long hasta, int maximo, long base, Consumer<EventoHistorial> destino)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        ByteArrayOutputStream linea = new ByteArrayOutputStream();
+        long leido = desde;
+        long finLinea = desde;
+        int entregados = 0;
+
+        while (leido < hasta && entregados < maximo) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), hasta - leido));
+            int n = fichero.read(buffer, leido);
+            if (n <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining() && entregados < maximo) {
+                byte b = buffer.get();
+                leido++;
+                if (b != '\n') {
+                    linea.write(b);
+                    continue;
+                }
+                finLinea = leido;
+                try {
+                    EventoHistorial evento = objectMapper.readValue(linea.toByteArray(), EventoHistorial.class);
+                    if (evento.getSecuencia() > base) {
+                        destino.accept(evento);
+                        entregados++;
+                    }
+                } catch (JsonProcessingException e) {
+                    logger.error("❌ Línea no válida en {}, se omite: {}", rutaFichero, e.getOriginalMessage());
+                }
+                linea.reset();
+            }
+            // Lo que quede en el buffer sin procesar se vuelve a leer la próxima vez
+            leido = finLinea + linea.size();
+        }
+        return finLinea;
+    }
+
+    private long leerCheckpoint() {
+        List<Long> filas = jdbcTemplate.queryForList(
+            "SELECT ultima_secuencia FROM historial_escritor_checkpoints WHERE nombre = ?", Long.class, nombre);
+        return filas.isEmpty() ? 0 : filas.get(0);
+    }
+
+    // Dentro de la transacción del lote
+    private void guardarCheckpoint(long ultimaSecuencia) {
+        LocalDateTime ahora = LocalDateTime.now();
+        int filas = jdbcTemplate.update(
+            "UPDATE historial_escritor_checkpoints SET ultima_secuencia = ?, fecha_actualizacion = ? WHERE nombre = ?",
+            ultimaSecuencia, ahora, nombre);
+        if (filas == 0) {
+            jdbcTemplate.update(
+                "INSERT INTO historial_escritor_checkpoints (nombre, ultima_secuencia, fecha_actualizacion) VALUES (?, ?, ?)",
+                nombre, ultimaSecuencia, ahora);
+        }
+    }
+
+    private static boolean dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
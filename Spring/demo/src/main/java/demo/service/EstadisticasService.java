@@ -0,0 +1,172 @@
+package demo.service;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import demo.model.TaskStatsDTO;
+import demo.model.Tarea;
+import demo.repository.TareaRepository;
+
+/**
+ * Estadísticas del dashboard con caché por usuario.
+ * La primera lectura del día se calcula con una sola consulta agregada; a partir
+ * de ahí las altas, ediciones, borrados y restauraciones de tareas ajustan la
+ * entrada en memoria sin volver a consultar la base de datos.
+ * Mientras el usuario tiene historial sin escribir (EscritorHistorialService) el
+ * cálculo no se guarda: la consulta aún no ve esas completadas.
+ */
+@Service
+public class EstadisticasService {
+
+    // Franjas de usuarios con versión propia (ver versiones)
+    private static final int FRANJAS = 1024;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private EscritorHistorialService escritorHistorial;
+
+    @Value("${estadisticas.cache.maximo:10000}")
+    private int maximo;
+
+    private final Map<Integer, Entrada> cache = new ConcurrentHashMap<>();
+
+    // Versión por franja de usuarios: evita guardar un cálculo que se solapó con un cambio.
+    // Tamaño fijo; dos usuarios de la misma franja como mucho se quitan algún acierto
+    private final AtomicLongArray versiones = new AtomicLongArray(FRANJAS);
+
+    public TaskStatsDTO obtenerEstadisticas(Integer usuarioId) {
+        LocalDate hoy = LocalDate.now();
+        Entrada entrada = cache.get(usuarioId);
+        if (entrada != null && entrada.dia.equals(hoy)) {
+            return entrada.copia();
+        }
+
+        int franja = franja(usuarioId);
+        long version = versiones.get(franja);
+        TaskStatsDTO stats = tareaRepository.calcularEstadisticas(
+            usuarioId, hoy, hoy.atStartOfDay(), hoy.plusDays(1).atStartOfDay());
+
+        Entrada nueva = new Entrada(hoy, stats);
+        if (versiones.get(franja) == version && !escritorHistorial.tienePendientes(usuarioId)) {
+            guardar(usuarioId, nueva);
+        }
+        return nueva.copia();
+    }
+
+    // Llena: primero fuera las de otros días, y si no basta, una cualquiera
+    private void guardar(Integer usuarioId, Entrada entrada) {
+        if (cache.size() >= maximo && !cache.containsKey(usuarioId)) {
+            cache.values().removeIf(e -> !e.dia.equals(entrada.dia));
+            Iterator<Integer> ids = cache.keySet().iterator();
+            if (cache.size() >= maximo && ids.hasNext()) {
+                ids.next();
+                ids.remove();
+            }
+        }
+        cache.put(usuarioId, entrada);
+    }
+
+    /**
+     * Captura lo que aporta una tarea a las estadísticas de hoy.
+     * Se llama antes de modificarla y otra vez después de guardarla.
+     */
+    public Huella capturar(Tarea tarea) {
+        return tarea == null ? Huella.VACIA : new Huella(tarea, LocalDate.now());
+    }
+
+    /**
+     * Aplica a la caché la diferencia entre el estado anterior y el nuevo de una tarea.
+     * completadasHoyDelta indica cuántos registros de "Tarea completada" con fecha de hoy
+     * se crearon (positivo) o eliminaron (negativo).
+     */
+    public void registrarCambio(Integer usuarioId, Huella antes, Huella despues, int completadasHoyDelta) {
+        versiones.incrementAndGet(franja(usuarioId));
+        LocalDate hoy = LocalDate.now();
+        cache.computeIfPresent(usuarioId, (id, entrada) -> {
+            if (!entrada.dia.equals(hoy) || !antes.esDe(hoy) || !despues.esDe(hoy)) {
+                return null;
+            }
+            TaskStatsDTO s = entrada.stats;
+            return new Entrada(hoy, new TaskStatsDTO(
+                s.getTotalActivas() + despues.activa - antes.activa,
+                s.getVencenHoy() + despues.venceHoy - antes.venceHoy,
+                s.getCompletadasHoy() + completadasHoyDelta,
+                s.getPrioridadAlta() + despues.alta - antes.alta));
+        });
+    }
+
+    // Descarta la entrada de un usuario (cambios masivos, p. ej. barrido de vencidas)
+    public void invalidar(Integer usuarioId) {
+        versiones.incrementAndGet(franja(usuarioId));
+        cache.remove(usuarioId);
+    }
+
+    public void invalidarTodo() {
+        for (int i = 0; i < FRANJAS; i++) {
+            versiones.incrementAndGet(i);
+        }
+        cache.clear();
+    }
+
+    private static int franja(Integer usuarioId) {
+        return Math.floorMod(usuarioId, FRANJAS);
+    }
+
+    /**
+     * Aportación de una tarea a los contadores (0 o 1 en cada uno).
+     */
+    public static final class Huella {
+        static final Huella VACIA = new Huella();
+
+        private final LocalDate dia;
+        private final int activa;
+        private final int venceHoy;
+        private final int alta;
+
+        private Huella() {
+            this.dia = null;
+            this.activa = 0;
+            this.venceHoy = 0;
+            this.alta = 0;
+        }
+
+        private Huella(Tarea tarea, LocalDate hoy) {
+            Tarea.Estado estado = tarea.getEstado();
+            boolean completada = estado == Tarea.Estado.Completada;
+            this.dia = hoy;
+            this.activa = !completada && estado != Tarea.Estado.Incompleta ? 1 : 0;
+            this.venceHoy = !completada && hoy.equals(tarea.getFechaLimite()) ? 1 : 0;
+            this.alta = !completada && tarea.getPrioridad() == Tarea.Prioridad.Alta ? 1 : 0;
+        }
+
+        // La huella vacía vale para cualquier día
+        private boolean esDe(LocalDate hoy) {
+            return dia == null || dia.equals(hoy);
+        }
+    }
+
+    private static final class Entrada {
+        private final LocalDate dia;
+        private final TaskStatsDTO stats;
+
+        private Entrada(LocalDate dia, TaskStatsDTO stats) {
+            this.dia = dia;
+            this.stats = stats;
+        }
+
+        // Copia para que nadie fuera de la caché modifique la entrada
+        private TaskStatsDTO copia() {
+            return new TaskStatsDTO(stats.getTotalActivas(), stats.getVencenHoy(),
+                stats.getCompletadasHoy(), stats.getPrioridadAlta());
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package demo.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import demo.model.CodificadorEnum;
+import demo.model.Historial;
+import demo.model.Tarea;
+import demo.repository.HistorialRepository;
+import demo.repository.TareaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Exportación de tareas e historial de un usuario en CSV o NDJSON.
+ * Las filas se leen con un Stream de JPA (cursor solo hacia delante) y se
+ * escriben directamente en la respuesta; cada entidad se desvincula del
+ * EntityManager en cuanto se escribe, así que la memoria no crece con el número de filas.
+ */
+@Service
+public class ExportacionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionService.class);
+
+    private static final String[] COLUMNAS_TAREAS = {"id", "title", "description", "status", "priority",
+        "category", "startDate", "dueDate", "createdAt"};
+    private static final String[] COLUMNAS_HISTORIAL = {"id", "taskId", "action", "date", "title", "description",
+        "category", "priority", "startDate", "dueDate"};
+
+    public enum Formato {
+        CSV("text/csv"), NDJSON("application/x-ndjson");
+
+        private static final CodificadorEnum<Formato> CODIFICADOR = new CodificadorEnum<>(Formato.class, Map.of());
+
+        private final String tipoContenido;
+
+        Formato(String tipoContenido) {
+            this.tipoContenido = tipoContenido;
+        }
+
+        public String getTipoContenido() {
+            return tipoContenido;
+        }
+
+        public String getExtension() {
+            return name().toLowerCase();
+        }
+
+        public static Formato desde(String texto) {
+            return CODIFICADOR.parse(texto);
+        }
+    }
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private HistorialRepository historialRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public long exportarTareas(Integer usuarioId, Formato formato, OutputStream salida) throws IOException {
+        return exportar(formato, salida, COLUMNAS_TAREAS, escritor -> {
+            try (Stream<Tarea> tareas = tareaRepository.streamParaExportar(usuarioId)) {
+                return tareas.mapToLong(t -> {
+                    escritor.fila(t.getId(), t.getTitulo(), t.getDescripcion(), t.getEstado(), t.getPrioridad(),
+                        t.getCategoria() != null ? t.getCategoria().getNombre() : null,
+                        t.getFechaInicio(), t.getFechaLimite(), t.getFechaCreacion());
+                    entityManager.detach(t);
+                    return 1;
+                }).sum();
+            }
+        });
+    }
+
+    public long exportarHistorial(Integer usuarioId, Formato formato, OutputStream salida) throws IOException {
+        return exportar(formato, salida, COLUMNAS_HISTORIAL, escritor -> {
+            try (Stream<Historial> historial = historialRepository.streamParaExportar(usuarioId)) {
+                return historial.mapToLong(h -> {
+                    Tarea t = h.getTarea();
+                    escritor.fila(h.getId(), t.getId(), h.getAccion(), h.getFecha(), h.getTitulo(), h.getDescripcion(),
+                        h.getCategoriaNombre(), t.getPrioridad(), h.getFechaInicio(), h.getFechaLimite());
+                    entityManager.detach(h);
+                    entityManager.detach(t);
+                    return 1;
+                }).sum();
+            }
+        });
+    }
+
+    private long exportar(Formato formato, OutputStream salida, String[] columnas, Lectura lectura) throws IOException {
+        long inicio = System.currentTimeMillis();
+        Escritor escritor = formato == Formato.NDJSON ? new EscritorNdjson(salida, columnas) : new EscritorCsv(salida, columnas);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        Long filas;
+        try {
+            filas = tx.execute(status -> lectura.leer(escritor));
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la conexión: se corta la lectura y se libera el cursor
+            throw e.getCause();
+        }
+        escritor.terminar();
+
+        logger.info("📤 Exportación {}: {} fila(s) en {} ms", formato, filas, System.currentTimeMillis() - inicio);
+        return filas != null ? filas : 0;
+    }
+
+    @FunctionalInterface
+    private interface Lectura {
+        long leer(Escritor escritor);
+    }
+
+    private abstract static class Escritor {
+        protected final String[] columnas;
+
+        protected Escritor(String[] columnas) {
+            this.columnas = columnas;
+        }
+
+        void fila(Object... valores) {
+            try {
+                escribirFila(valores);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        abstract void escribirFila(Object[] valores) throws IOException;
+
+        abstract void terminar() throws IOException;
+    }
+
+    private static final class EscritorCsv extends Escritor {
+        private final Writer writer;
+
+        private EscritorCsv(OutputStream salida, String[] columnas) throws IOException {
+            super(columnas);
+            this.writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 16 * 1024);
+            escribirFila(columnas);
+        }
+
+        @Override
+        void escribirFila(Object[] valores) throws IOException {
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (valores[i] != null) {
+                    escribirCampo(valores[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: entre comillas si contiene separador, comillas o saltos de línea
+        private void escribirCampo(String valor) throws IOException {
+            boolean comillas = false;
+            for (int i = 0; i < valor.length() && !comillas; i++) {
+                char c = valor.charAt(i);
+                comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!comillas) {
+                writer.write(valor);
+                return;
+            }
+            writer.write('"');
+            writer.write(valor.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        void terminar() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private final class EscritorNdjson extends Escritor {
+        private final JsonGenerator generador;
+
+        private EscritorNdjson(OutputStream salida, String[] columnas) throws IOException {
+            super(columnas);
+            this.generador = objectMapper.getFactory().createGenerator(salida);
+            // Un objeto por línea: el salto se escribe a mano tras cada fila
+            generador.setRootValueSeparator(null);
+        }
+
+        @Override
+        void escribirFila(Object[] valores) throws IOException {
+            generador.writeStartObject();
+            for (int i = 0; i < valores.length; i++) {
+                Object v = valores[i];
+                if (v == null) {
+                    generador.writeNullField(columnas[i]);
+                } else if (v instanceof Integer n) {
+                    generador.writeNumberField(columnas[i], n);
+                } else {
+                    generador.writeStringField(columnas[i], v.toString());
+                }
+            }
+            generador.writeEndObject();
+            generador.writeRaw('\n');
+        }
+
+        @Override
+        void terminar() throws IOException {
+            generador.flush();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package demo.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.model.EstadoGeneracion;
+import demo.model.Notificacion;
+import demo.repository.NotificacionRepository;
+import demo.repository.TareaRepository;
+import demo.repository.UsuarioRepository;
+import demo.service.VersionesService.Recurso;
+
+/**
+ * Generación diaria de notificaciones de resumen para todos los usuarios.
+ * Los conteos salen de dos consultas agrupadas (una por tipo) y las
+ * notificaciones se insertan en lotes JDBC, cada lote en su propia transacción.
+ * Si el proceso se repite el mismo día, no duplica los resúmenes ya creados.
+ * El resumen de cada usuario y tipo es "rodante": el nuevo sustituye a los de
+ * días anteriores en la misma transacción.
+ */
+@Service
+public class GeneradorNotificacionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneradorNotificacionesService.class);
+
+    static final String TIPO_PROXIMA = "TAREA_PROXIMA";
+    static final String TIPO_VENCIDA = "TAREA_VENCIDA";
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CanalNotificacionesService canalNotificacionesService;
+
+    @Autowired
+    private VersionesService versionesService;
+
+    @Autowired
+    private ContadoresUsuarioService contadoresUsuarioService;
+
+    @Autowired
+    private RetencionNotificacionesService retencionNotificacionesService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notificaciones.generacion.tamano-lote:500}")
+    private int tamanoLote;
+
+    private final EstadoGeneracion estado = new EstadoGeneracion();
+
+    public EstadoGeneracion getEstado() {
+        synchronized (estado) {
+            return estado.copia();
+        }
+    }
+
+    public EstadoGeneracion generar(LocalDate hoy) {
+        synchronized (estado) {
+            if (estado.isEnCurso()) {
+                logger.warn("⏳ Ya hay una generación de notificaciones en curso");
+                return estado.copia();
+            }
+            estado.setEnCurso(true);
+            estado.setInicio(LocalDateTime.now());
+            estado.setDuracionMs(0);
+            estado.setUsuariosTotales(0);
+            estado.setUsuariosProcesados(0);
+            estado.setInsertadas(0);
+            estado.setOmitidas(0);
+            estado.setLotes(0);
+        }
+
+        long inicio = System.currentTimeMillis();
+        try {
+            // usuarioId -> [próximas, vencidas]
+            Map<Integer, long[]> conteos = new TreeMap<>();
+            for (Object[] fila : tareaRepository.contarProximasAVencerPorUsuario(hoy, hoy.plusDays(3))) {
+                conteos.computeIfAbsent((Integer) fila[0], id -> new long[2])[0] = (Long) fila[1];
+            }
+            for (Object[] fila : tareaRepository.contarVencidasPorUsuario()) {
+                conteos.computeIfAbsent((Integer) fila[0], id -> new long[2])[1] = (Long) fila[1];
+            }
+
+            Set<String> yaCreadas = new HashSet<>();
+            for (Object[] fila : notificacionRepository.findResumenesCreadosDesde(
+                    List.of(TIPO_PROXIMA, TIPO_VENCIDA), hoy.atStartOfDay())) {
+                yaCreadas.add(fila[0] + "|" + fila[1]);
+            }
+
+            synchronized (estado) {
+                estado.setUsuariosTotales(conteos.size());
+            }
+
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            List<Integer> usuariosLote = new ArrayList<>();
+            List<Pendiente> lote = new ArrayList<>();
+            int omitidas = 0;
+
+            for (Map.Entry<Integer, long[]> e : conteos.entrySet()) {
+                Integer usuarioId = e.getKey();
+                long proximas = e.getValue()[0];
+                long vencidas = e.getValue()[1];
+
+                if (proximas > 0) {
+                    if (yaCreadas.contains(usuarioId + "|" + TIPO_PROXIMA)) {
+                        omitidas++;
+                    } else {
+                        lote.add(new Pendiente(usuarioId, TIPO_PROXIMA, String.format(
+                            "Tienes %d tarea(s) que vencen en los próximos 3 días", proximas)));
+                    }
+                }
+                if (vencidas > 0) {
+                    if (yaCreadas.contains(usuarioId + "|" + TIPO_VENCIDA)) {
+                        omitidas++;
+                    } else {
+                        lote.add(new Pendiente(usuarioId, TIPO_VENCIDA, String.format(
+                            "Tienes %d tarea(s) vencida(s)", vencidas)));
+                    }
+                }
+                usuariosLote.add(usuarioId);
+
+                if (lote.size() >= tamanoLote) {
+                    guardarLote(tx, lote, usuariosLote.size(), omitidas, hoy);
+                    lote = new ArrayList<>();
+                    usuariosLote.clear();
+                    omitidas = 0;
+                }
+            }
+            if (!lote.isEmpty() || !usuariosLote.isEmpty()) {
+                guardarLote(tx, lote, usuariosLote.size(), omitidas, hoy);
+            }
+        } finally {
+            synchronized (estado) {
+                estado.setEnCurso(false);
+                estado.setDuracionMs(System.currentTimeMillis() - inicio);
+            }
+        }
+
+        EstadoGeneracion resultado = getEstado();
+        logger.info("🔔 Notificaciones generadas: {} nuevas, {} omitidas por duplicado, {} usuario(s), {} lote(s) en {} ms",
+            resultado.getInsertadas(), resultado.getOmitidas(), resultado.getUsuariosTotales(),
+            resultado.getLotes(), resultado.getDuracionMs());
+        return resultado;
+    }
+
+    private void guardarLote(TransactionTemplate tx, List<Pendiente> lote, int usuarios, int omitidas, LocalDate hoy) {
+        if (!lote.isEmpty()) {
+            List<Notificacion> guardadas = tx.execute(status -> {
+                List<Notificacion> notificaciones = new ArrayList<>(lote.size());
+                for (Pendiente p : lote) {
+                    // La referencia al usuario no hace SELECT: solo se necesita su id para el INSERT
+                    notificaciones.add(new Notificacion(usuarioRepository.getReferenceById(p.usuarioId), p.tipo, p.mensaje));
+                }
+                List<Notificacion> insertadas = notificacionRepository.saveAll(notificaciones);
+                contadoresUsuarioService.notificacionesCreadas(lote.stream().map(p -> p.usuarioId).toList());
+
+                // Los resúmenes de días anteriores del mismo tipo quedan sustituidos
+                Map<String, List<Integer>> usuariosPorTipo = lote.stream().collect(Collectors.groupingBy(
+                    p -> p.tipo, Collectors.mapping(p -> p.usuarioId, Collectors.toList())));
+                usuariosPorTipo.forEach((tipo, usuarioIds) -> retencionNotificacionesService.borrar(
+                    notificacionRepository.findIdsResumenesAnteriores(tipo, usuarioIds, hoy.atStartOfDay())));
+                return insertadas;
+            });
+            // Ya confirmado el lote, se envía a los usuarios conectados
+            canalNotificacionesService.publicarTodas(guardadas);
+            for (Pendiente p : lote) {
+                versionesService.incrementar(p.usuarioId, Recurso.NOTIFICACIONES);
+            }
+        }
+        synchronized (estado) {
+            estado.setUsuariosProcesados(estado.getUsuariosProcesados() + usuarios);
+            estado.setInsertadas(estado.getInsertadas() + lote.size());
+            estado.setOmitidas(estado.getOmitidas() + omitidas);
+            estado.setLotes(estado.getLotes() + 1);
+        }
+        logger.debug("Lote de notificaciones guardado: {} insertadas", lote.size());
+    }
+
+    private static final class Pendiente {
+        private final Integer usuarioId;
+        private final String tipo;
+        private final String mensaje;
+
+        private Pendiente(Integer usuarioId, String tipo, String mensaje) {
+            this.usuarioId = usuarioId;
+            this.tipo = tipo;
+            this.mensaje = mensaje;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import demo.model.Categoria;
+import demo.model.Historial;
+import demo.model.ResultadoImportacion;
+import demo.model.Tarea;
+import demo.model.Usuario;
+import demo.repository.HistorialRepository;
+import demo.repository.TareaRepository;
+import demo.repository.UsuarioRepository;
+import demo.service.VersionesService.Recurso;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Importación masiva de tareas desde un array JSON o NDJSON (un objeto por línea).
+ * El cuerpo se lee con el parser de streaming de Jackson, sin cargarlo entero;
+ * las filas válidas se guardan en lotes JDBC (tarea + historial), cada lote en su
+ * propia transacción. Las filas con errores se informan y no detienen el resto.
+ */
+@Service
+public class ImportacionTareasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionTareasService.class);
+
+    private static final int LONGITUD_TITULO = 150;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private HistorialRepository historialRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private EstadisticasService estadisticasService;
+
+    @Autowired
+    private VersionesService versionesService;
+
+    @Autowired
+    private PlanificadorRecordatoriosService planificadorRecordatorios;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${tareas.importacion.tamano-lote:500}")
+    private int tamanoLote;
+
+    @Value("${tareas.importacion.max-errores:1000}")
+    private int maxErrores;
+
+    public ResultadoImportacion importar(InputStream cuerpo, Usuario usuario) {
+        long inicio = System.currentTimeMillis();
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        // Caché de categorías de esta importación: una consulta por categoría distinta
+        Map<Integer, Optional<Categoria>> categorias = new HashMap<>();
+        List<Fila> lote = new ArrayList<>();
+        int numero = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(cuerpo)) {
+            JsonToken token = parser.nextToken();
+            // Array JSON, o NDJSON: una secuencia de objetos en la raíz
+            boolean enArray = token == JsonToken.START_ARRAY;
+            if (enArray) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                numero++;
+                Fila fila = leerFila(parser, numero);
+                String error = fila.error != null ? fila.error : validar(fila, usuario, categorias);
+                if (error != null) {
+                    resultado.registrarError(numero, error, maxErrores);
+                } else {
+                    lote.add(fila);
+                    if (lote.size() >= tamanoLote) {
+                        guardarLote(tx, lote, usuario.getId(), resultado);
+                        lote.clear();
+                    }
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            // Tras un error de sintaxis no se puede seguir leyendo: se guarda lo válido hasta aquí
+            resultado.registrarError(numero + 1, "JSON no válido: " + e.getOriginalMessage(), maxErrores);
+            resultado.setInterrumpida(true);
+        } catch (IOException e) {
+            logger.warn("⚠️ Importación interrumpida al leer el cuerpo tras {} fila(s): {}", numero, e.getMessage());
+            resultado.setInterrumpida(true);
+        } finally {
+            if (!lote.isEmpty()) {
+                guardarLote(tx, lote, usuario.getId(), resultado);
+            }
+            resultado.setFilas(numero);
+            resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+            if (resultado.getImportadas() > 0) {
+                estadisticasService.invalidar(usuario.getId());
+                versionesService.incrementar(usuario.getId(), Recurso.TAREAS);
+            }
+        }
+
+        logger.info("📥 Importación de tareas: {} importadas, {} con errores de {} fila(s), {} lote(s) en {} ms",
+            resultado.getImportadas(), resultado.getConErrores(), resultado.getFilas(),
+            resultado.getLotes(), resultado.getDuracionMs());
+        return resultado;
+    }
+
+    // Mismos campos que /save-task; los desconocidos se ignoran
+    private Fila leerFila(JsonParser parser, int numero) throws IOException {
+        Fila fila = new Fila(numero);
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            fila.error = "Se esperaba un objeto";
+            return fila;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            JsonToken valor = parser.nextToken();
+            if (valor.isStructStart()) {
+                parser.skipChildren();
+                continue;
+            }
+            String texto = valor == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+            switch (campo) {
+                case "title" -> fila.titulo = texto;
+                case "description" -> fila.descripcion = texto;
+                case "dueDate" -> fila.fechaLimite = texto;
+                case "startDate" -> fila.fechaInicio = texto;
+                case "priority" -> fila.prioridad = texto;
+                case "status" -> fila.estado = texto;
+                case "categoryId" -> fila.categoriaId = texto;
+                default -> { }
+            }
+        }
+        return fila;
+    }
+
+    private String validar(Fila fila, Usuario usuario, Map<Integer, Optional<Categoria>> categorias) {
+        if (fila.titulo == null || fila.titulo.isBlank()) {
+            return "El título es obligatorio";
+        }
+        if (fila.titulo.length() > LONGITUD_TITULO) {
+            return "El título supera los " + LONGITUD_TITULO + " caracteres";
+        }
+        try {
+            fila.limite = fecha(fila.fechaLimite);
+            fila.inicio = fecha(fila.fechaInicio);
+        } catch (DateTimeParseException e) {
+            return "Fecha no válida: " + e.getParsedString();
+        }
+        // Vacío toma el valor por defecto; un valor desconocido es un error de la fila
+        fila.prioridadValor = Tarea.Prioridad.desde(fila.prioridad);
+        if (fila.prioridadValor == null && fila.prioridad != null && !fila.prioridad.isBlank()) {
+            return "Prioridad no válida: " + fila.prioridad;
+        }
+        fila.estadoValor = Tarea.Estado.desde(fila.estado);
+        if (fila.estadoValor == null && fila.estado != null && !fila.estado.isBlank()) {
+            return "Estado no válido: " + fila.estado;
+        }
+        if (fila.categoriaId != null && !fila.categoriaId.isBlank()) {
+            Integer id;
+            try {
+                id = Integer.valueOf(fila.categoriaId.trim());
+            } catch (NumberFormatException e) {
+                return "Categoría no válida: " + fila.categoriaId;
+            }
+            fila.categoria = categorias.computeIfAbsent(id, c -> categoriaService.getCategoriaById(c, usuario))
+                .orElse(null);
+            if (fila.categoria == null) {
+                return "Categoría no encontrada: " + id;
+            }
+        }
+        return null;
+    }
+
+    // Acepta fecha ISO o fecha y hora (se toma la parte de la fecha), como el formulario
+    private static LocalDate fecha(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        String t = texto.trim();
+        return LocalDate.parse(t.length() > 10 ? t.substring(0, 10) : t);
+    }
+
+    private void guardarLote(TransactionTemplate tx, List<Fila> lote, Integer usuarioId, ResultadoImportacion resultado) {
+        try {
+            tx.executeWithoutResult(status -> persistir(lote, usuarioId));
+            resultado.registrarLote(lote.size());
+        } catch (RuntimeException e) {
+            // Se repite fila a fila para quedarse con las válidas y señalar las que fallan
+            logger.warn("⚠️ Falló un lote de importación ({} filas), se reintenta fila a fila: {}",
+                lote.size(), e.getMessage());
+            int guardadas = 0;
+            for (Fila fila : lote) {
+                try {
+                    tx.executeWithoutResult(status -> persistir(List.of(fila), usuarioId));
+                    guardadas++;
+                } catch (RuntimeException ex) {
+                    resultado.registrarError(fila.numero, "No se pudo guardar: " + causa(ex), maxErrores);
+                }
+            }
+            resultado.registrarLote(guardadas);
+        }
+    }
+
+    private void persistir(List<Fila> lote, Integer usuarioId) {
+        // La referencia al usuario no hace SELECT: solo se necesita su id para el INSERT
+        Usuario usuario = usuarioRepository.getReferenceById(usuarioId);
+        List<Tarea> tareas = new ArrayList<>(lote.size());
+        List<Historial> historiales = new ArrayList<>(lote.size());
+        for (Fila fila : lote) {
+            Tarea tarea = fila.aTarea(usuario);
+            tareas.add(tarea);
+            historiales.add(new Historial(tarea, usuario));
+        }
+        tareaRepository.saveAll(tareas);
+        historialRepository.saveAll(historiales);
+        // Los recordatorios se programan cuando el lote se confirma
+        planificadorRecordatorios.tareasCambiadas(tareas);
+        // Con open-in-view el EntityManager dura toda la petición: se vacía en cada
+        // lote para que no acumule las entidades de toda la importación
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String causa(Throwable e) {
+        Throwable raiz = e;
+        while (raiz.getCause() != null && raiz.getCause() != raiz) {
+            raiz = raiz.getCause();
+        }
+        return raiz.getMessage();
+    }
+
+    private static final class Fila {
+        private final int numero;
+        private String error;
+        private String titulo;
+        private String descripcion;
+        private String fechaLimite;
+        private String fechaInicio;
+        private String prioridad;
+        private String estado;
+        private String categoriaId;
+        private LocalDate limite;
+        private LocalDate inicio;
+        private Tarea.Prioridad prioridadValor;
+        private Tarea.Estado estadoValor;
+        private Categoria categoria;
+
+        private Fila(int numero) {
+            this.numero = numero;
+        }
+
+        // Sin prioridad ni estado, los valores por defecto de /save-task: Media y Pendiente
+        private Tarea aTarea(Usuario usuario) {
+            Tarea tarea = new Tarea(usuario, titulo);
+            tarea.setDescripcion(descripcion);
+            tarea.setFechaLimite(limite);
+            if (inicio != null) {
+                tarea.setFechaInicio(inicio);
+            }
+            tarea.setPrioridad(prioridadValor != null ? prioridadValor : Tarea.Prioridad.Media);
+            tarea.setEstado(estadoValor != null ? estadoValor : Tarea.Estado.Pendiente);
+            tarea.setCategoria(categoria);
+            return tarea;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import demo.model.FiltroTareas;
+import demo.model.PaginaCursor;
+import demo.model.Tarea;
+import demo.model.TareaCompletadaDTO;
+import demo.repository.HistorialRepository;
+import demo.repository.TareaRepository;
+import demo.repository.TareaSpecs;
+
+/**
+ * Listado de tareas paginado por cursor (keyset).
+ * En el orden por vencimiento se recorren primero las tareas con fecha límite,
+ * ordenadas por (fecha_limite, id), y después las que no tienen fecha, por id.
+ * Así cada consulta es un rango sobre el índice y no hace falta ordenar los NULL.
+ */
+@Service
+public class ListadoTareasService {
+
+    public static final int LIMITE_POR_DEFECTO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    public enum Orden {
+        VENCIMIENTO, VENCIMIENTO_DESC, RECIENTES;
+
+        public static Orden desde(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return VENCIMIENTO;
+            }
+            for (Orden o : values()) {
+                if (o.name().equalsIgnoreCase(valor.trim())) {
+                    return o;
+                }
+            }
+            throw new IllegalArgumentException("Orden no válido: " + valor);
+        }
+    }
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private HistorialRepository historialRepository;
+
+    @Transactional(readOnly = true)
+    public PaginaCursor<Tarea> listar(Integer usuarioId, FiltroTareas filtro, Orden orden, String cursor, Integer limite) {
+        int n = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        Cursor c = cursor == null || cursor.isBlank() ? null : Cursor.decodificar(cursor, orden);
+        Specification<Tarea> base = filtros(usuarioId, filtro);
+        boolean desc = orden != Orden.VENCIMIENTO;
+
+        List<Tarea> tareas = new ArrayList<>();
+        if (orden == Orden.RECIENTES) {
+            tareas.addAll(buscar(base.and(TareaSpecs.despuesDeId(c != null ? c.id : null, true)),
+                Sort.by(Sort.Direction.DESC, "id"), n + 1));
+        } else {
+            Sort porFecha = Sort.by(desc ? Sort.Direction.DESC : Sort.Direction.ASC, "fechaLimite", "id");
+            Sort porId = Sort.by(desc ? Sort.Direction.DESC : Sort.Direction.ASC, "id");
+
+            if (c == null || c.fecha != null) {
+                tareas.addAll(buscar(base.and(TareaSpecs.conFechaLimite())
+                    .and(TareaSpecs.despuesDe(c != null ? c.fecha : null, c != null ? c.id : null, desc)),
+                    porFecha, n + 1));
+                // Si se agotaron las tareas con fecha, se completa con las que no tienen
+                if (tareas.size() <= n) {
+                    tareas.addAll(buscar(base.and(TareaSpecs.sinFechaLimite()), porId, n + 1 - tareas.size()));
+                }
+            } else {
+                tareas.addAll(buscar(base.and(TareaSpecs.sinFechaLimite())
+                    .and(TareaSpecs.despuesDeId(c.id, desc)), porId, n + 1));
+            }
+        }
+
+        String siguiente = null;
+        if (tareas.size() > n) {
+            tareas = new ArrayList<>(tareas.subList(0, n));
+            Tarea ultima = tareas.get(n - 1);
+            siguiente = new Cursor(orden, orden == Orden.RECIENTES ? null : ultima.getFechaLimite(), ultima.getId())
+                .codificar();
+        }
+        return new PaginaCursor<>(tareas, siguiente);
+    }
+
+    /**
+     * Tareas completadas del historial, de la más reciente a la más antigua.
+     * El cursor es la (fecha, id) del último registro de la página anterior.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<TareaCompletadaDTO> listarCompletadas(Integer usuarioId, String cursor, Integer limite) {
+        int n = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        PageRequest pagina = PageRequest.of(0, n + 1);
+
+        List<TareaCompletadaDTO> items;
+        if (cursor == null || cursor.isBlank()) {
+            items = historialRepository.findCompletadas(usuarioId, pagina);
+        } else {
+            LocalDateTime fecha;
+            Integer id;
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                fecha = LocalDateTime.parse(partes[0]);
+                id = Integer.valueOf(partes[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor no válido", e);
+            }
+            items = historialRepository.findCompletadasAntesDe(usuarioId, fecha, id, pagina);
+        }
+
+        String siguiente = null;
+        if (items.size() > n) {
+            items = new ArrayList<>(items.subList(0, n));
+            TareaCompletadaDTO ultima = items.get(n - 1);
+            String texto = ultima.getFecha() + "|" + ultima.getHistorialId();
+            siguiente = Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+        return new PaginaCursor<>(items, siguiente);
+    }
+
+    private List<Tarea> buscar(Specification<Tarea> spec, Sort sort, int limite) {
+        return tareaRepository.findBy(spec.and(TareaSpecs.conCategoriaCargada()),
+            q -> q.sortBy(sort).limit(limite).all());
+    }
+
+    private Specification<Tarea> filtros(Integer usuarioId, FiltroTareas filtro) {
+        Specification<Tarea> spec = TareaSpecs.delUsuario(usuarioId)
+            .and(TareaSpecs.conEstado(filtro.getEstado()))
+            .and(TareaSpecs.conPrioridad(filtro.getPrioridad()))
+            .and(TareaSpecs.conCategoria(filtro.getCategoriaId()))
+            .and(TareaSpecs.venceDesde(filtro.getDesde()))
+            .and(TareaSpecs.venceHasta(filtro.getHasta()));
+        if (filtro.isSoloActivas()) {
+            // Las no completadas (también /api/tasks/active)
+            spec = spec.and(TareaSpecs.conEstadoDistintoDe(Tarea.Estado.Completada));
+        }
+        return spec;
+    }
+
+    /**
+     * Cursor opaco: orden|fecha|id codificado en base64 (URL-safe).
+     * Una fecha vacía significa que ya se está en el tramo de tareas sin fecha límite.
+     */
+    private static final class Cursor {
+        private final Orden orden;
+        private final LocalDate fecha;
+        private final Integer id;
+
+        private Cursor(Orden orden, LocalDate fecha, Integer id) {
+            this.orden = orden;
+            this.fecha = fecha;
+            this.id = id;
+        }
+
+        private String codificar() {
+            String texto = orden.name() + "|" + (fecha != null ? fecha : "") + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decodificar(String valor, Orden esperado) {
+            try {
+                String texto = new String(Base64.getUrlDecoder().decode(valor), StandardCharsets.UTF_8);
+                String[] partes = texto.split("\\|", -1);
+                Orden orden = Orden.valueOf(partes[0]);
+                if (orden != esperado) {
+                    throw new IllegalArgumentException("El cursor pertenece a otro orden");
+                }
+                LocalDate fecha = partes[1].isEmpty() ? null : LocalDate.parse(partes[1]);
+                return new Cursor(orden, fecha, Integer.valueOf(partes[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor no válido", e);
+            }
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package demo.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import demo.model.EstadoGeneracion;
+import demo.model.EstadoRecordatorios;
 import demo.model.Notificacion;
+import demo.model.NotificacionDTO;
+import demo.model.PaginaCursor;
+import demo.model.ResultadoLoteNotificaciones;
+import demo.model.ResultadoRetencion;
+import demo.model.SeleccionNotificaciones;
 import demo.model.Tarea;
 import demo.model.Usuario;
 import demo.repository.NotificacionRepository;
 import demo.repository.TareaRepository;
 import demo.repository.UsuarioRepository;
+import demo.service.VersionesService.Recurso;
 
 @Service
 public class NotificacionService {
@@ -28,89 +42,203 @@ public class NotificacionService {
     @Autowired
     private UsuarioRepository usuarioRepository;
     
+    @Autowired
+    private GeneradorNotificacionesService generadorNotificacionesService;
+    
+    @Autowired
+    private CanalNotificacionesService canalNotificacionesService;
+    
+    @Autowired
+    private VersionesService versionesService;
+    
+    @Autowired
+    private ContadoresUsuarioService contadoresUsuarioService;
+    
+    @Autowired
+    private RetencionNotificacionesService retencionNotificacionesService;
+
+    @Autowired
+    private PlanificadorRecordatoriosService planificadorRecordatorios;
+    
+    // Límite inferior cuando no se pide "desde": anterior a cualquier notificación
+    private static final LocalDateTime SIN_DESDE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
     public List<Notificacion> getNotificacionesByUsuario(Integer usuarioId) {
         return notificacionRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId);
     }
     
+    // Todas, ya proyectadas con el título de la tarea (sin cargar las tareas una a una)
+    public List<NotificacionDTO> getNotificacionesDTO(Integer usuarioId) {
+        return notificacionRepository.findRecentesByUsuarioId(usuarioId, SIN_DESDE, Pageable.unpaged());
+    }
+    
+    /**
+     * Notificaciones del usuario de la más reciente a la más antigua, paginadas
+     * por cursor (fecha de creación, id). Con "desde" solo las creadas a partir
+     * de esa fecha, para que el cliente pida únicamente lo nuevo.
+     */
+    public PaginaCursor<NotificacionDTO> listar(Integer usuarioId, boolean soloNoLeidas, String desde,
+                                                String cursor, Integer limite) {
+        int n = limite == null ? ListadoTareasService.LIMITE_POR_DEFECTO
+            : Math.max(1, Math.min(limite, ListadoTareasService.LIMITE_MAXIMO));
+        PageRequest pagina = PageRequest.of(0, n + 1);
+        
+        LocalDateTime fecha = SIN_DESDE;
+        if (desde != null && !desde.isBlank()) {
+            try {
+                fecha = LocalDateTime.parse(desde.trim());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Fecha 'desde' no válida: " + desde);
+            }
+        }
+        
+        List<NotificacionDTO> items;
+        if (cursor == null || cursor.isBlank()) {
+            items = soloNoLeidas
+                ? notificacionRepository.findNoLeidasRecientes(usuarioId, fecha, pagina)
+                : notificacionRepository.findRecentesByUsuarioId(usuarioId, fecha, pagina);
+        } else {
+            LocalDateTime cursorFecha;
+            Integer cursorId;
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                cursorFecha = LocalDateTime.parse(partes[0]);
+                cursorId = Integer.valueOf(partes[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor no válido", e);
+            }
+            items = soloNoLeidas
+                ? notificacionRepository.findNoLeidasRecientesAntesDe(usuarioId, fecha, cursorFecha, cursorId, pagina)
+                : notificacionRepository.findRecentesAntesDe(usuarioId, fecha, cursorFecha, cursorId, pagina);
+        }
+        
+        String siguiente = null;
+        if (items.size() > n) {
+            items = new ArrayList<>(items.subList(0, n));
+            NotificacionDTO ultima = items.get(n - 1);
+            String texto = ultima.getFechaCreacion() + "|" + ultima.getId();
+            siguiente = Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+        return new PaginaCursor<>(items, siguiente);
+    }
+    
     public List<Notificacion> getNotificacionesNoLeidas(Integer usuarioId) {
         return notificacionRepository.findByUsuarioIdAndLeidaOrderByFechaCreacionDesc(usuarioId, false);
     }
     
+    // Contador materializado: no cuenta las notificaciones en cada refresco de la insignia
     public long countNotificacionesNoLeidas(Integer usuarioId) {
-        return notificacionRepository.countNoLeidasByUsuarioId(usuarioId);
+        return contadoresUsuarioService.notificacionesNoLeidas(usuarioId);
     }
     
+    @Transactional
     public Notificacion crearNotificacion(Usuario usuario, String tipo, String mensaje) {
-        Notificacion notificacion = new Notificacion(usuario, tipo, mensaje);
-        return notificacionRepository.save(notificacion);
+        Notificacion notificacion = notificacionRepository.save(new Notificacion(usuario, tipo, mensaje));
+        contadoresUsuarioService.notificacionesCreadas(List.of(usuario.getId()));
+        versionesService.incrementar(usuario.getId(), Recurso.NOTIFICACIONES);
+        canalNotificacionesService.publicar(notificacion);
+        return notificacion;
     }
     
+    @Transactional
     public Notificacion crearNotificacionTarea(Usuario usuario, Tarea tarea, String tipo, String mensaje) {
-        Notificacion notificacion = new Notificacion(usuario, tarea, tipo, mensaje);
-        return notificacionRepository.save(notificacion);
+        Notificacion notificacion = notificacionRepository.save(new Notificacion(usuario, tarea, tipo, mensaje));
+        contadoresUsuarioService.notificacionesCreadas(List.of(usuario.getId()));
+        versionesService.incrementar(usuario.getId(), Recurso.NOTIFICACIONES);
+        canalNotificacionesService.publicar(notificacion);
+        return notificacion;
     }
     
+    /**
+     * Marca como leídas las notificaciones seleccionadas del usuario con un solo
+     * UPDATE. Las de otros usuarios y las ya leídas no cuentan.
+     */
     @Transactional
-    public void marcarComoLeida(Integer notificacionId) {
-        notificacionRepository.findById(notificacionId).ifPresent(n -> {
-            n.setLeida(true);
-            notificacionRepository.save(n);
-        });
+    public ResultadoLoteNotificaciones marcarLeidas(Integer usuarioId, SeleccionNotificaciones seleccion) {
+        int marcadas;
+        if (seleccion.isPorIds()) {
+            marcadas = seleccion.getIds().isEmpty() ? 0
+                : notificacionRepository.marcarLeidasPorIds(usuarioId, seleccion.getIds());
+        } else {
+            marcadas = notificacionRepository.marcarLeidasPorFiltro(usuarioId, seleccion.getTipo(), hasta(seleccion));
+        }
+        return registrarCambio(usuarioId, marcadas, marcadas);
     }
     
+    /**
+     * Elimina las notificaciones seleccionadas del usuario: un DELETE para las
+     * no leídas (las que se descuentan del contador) y otro para las leídas.
+     */
     @Transactional
-    public void marcarTodasComoLeidas(Integer usuarioId) {
-        notificacionRepository.marcarTodasComoLeidas(usuarioId);
+    public ResultadoLoteNotificaciones eliminar(Integer usuarioId, SeleccionNotificaciones seleccion) {
+        Boolean leida = seleccion.getLeida();
+        int noLeidas = 0;
+        int leidas = 0;
+        if (seleccion.isPorIds()) {
+            if (!seleccion.getIds().isEmpty()) {
+                if (!Boolean.TRUE.equals(leida)) {
+                    noLeidas = notificacionRepository.borrarDelUsuarioPorIds(usuarioId, seleccion.getIds(), false);
+                }
+                if (!Boolean.FALSE.equals(leida)) {
+                    leidas = notificacionRepository.borrarDelUsuarioPorIds(usuarioId, seleccion.getIds(), true);
+                }
+            }
+        } else {
+            LocalDateTime hasta = hasta(seleccion);
+            if (!Boolean.TRUE.equals(leida)) {
+                noLeidas = notificacionRepository.borrarDelUsuarioPorFiltro(usuarioId, seleccion.getTipo(), hasta, false);
+            }
+            if (!Boolean.FALSE.equals(leida)) {
+                leidas = notificacionRepository.borrarDelUsuarioPorFiltro(usuarioId, seleccion.getTipo(), hasta, true);
+            }
+        }
+        return registrarCambio(usuarioId, noLeidas + leidas, noLeidas);
     }
     
+    // Antes de borrar una tarea: sus notificaciones (avisos y recordatorios) se van con ella
     @Transactional
-    public void eliminarNotificacion(Integer notificacionId) {
-        notificacionRepository.deleteById(notificacionId);
+    public ResultadoLoteNotificaciones eliminarDeTarea(Integer usuarioId, Integer tareaId) {
+        int noLeidas = notificacionRepository.borrarDeTarea(usuarioId, tareaId, false);
+        int leidas = notificacionRepository.borrarDeTarea(usuarioId, tareaId, true);
+        return registrarCambio(usuarioId, noLeidas + leidas, noLeidas);
     }
     
-    @Transactional
-    public void eliminarLeidasDelUsuario(Integer usuarioId) {
-        notificacionRepository.deleteByUsuarioIdAndLeida(usuarioId, true);
+    // Sin "hasta", el filtro alcanza a las que existían al hacer la petición
+    private static LocalDateTime hasta(SeleccionNotificaciones seleccion) {
+        return seleccion.getHasta() != null ? seleccion.getHasta() : LocalDateTime.now();
+    }
+    
+    // Descuenta las no leídas, invalida el ETag y avisa a las pestañas abiertas de la variación
+    private ResultadoLoteNotificaciones registrarCambio(Integer usuarioId, int afectadas, int noLeidasQuitadas) {
+        if (afectadas > 0) {
+            contadoresUsuarioService.notificacionesLeidas(usuarioId, noLeidasQuitadas);
+            versionesService.incrementar(usuarioId, Recurso.NOTIFICACIONES);
+        }
+        if (noLeidasQuitadas > 0) {
+            canalNotificacionesService.publicarContador(usuarioId, -noLeidasQuitadas);
+        }
+        return new ResultadoLoteNotificaciones(afectadas, -noLeidasQuitadas);
     }
     
     // Método programado para generar notificaciones automáticas
-    // Se ejecuta todos los días a las 8:00 AM
-    @Scheduled(cron = "0 0 8 * * *")
-    @Transactional
+    // Se ejecuta todos los días a las 8:00 AM ("-" lo desactiva)
+    // (conteos agrupados de todos los usuarios e inserción por lotes).
+    // Los avisos por tarea antes de vencer los envía PlanificadorRecordatoriosService
+    @Scheduled(cron = "${notificaciones.generacion.cron:0 0 8 * * *}")
     public void generarNotificacionesAutomaticas() {
-        LocalDate hoy = LocalDate.now();
-        LocalDate tresDiasDespues = hoy.plusDays(3);
-        
-        // Obtener todos los usuarios
-        List<Usuario> usuarios = usuarioRepository.findAll();
-        
-        for (Usuario usuario : usuarios) {
-            // Buscar tareas próximas a vencer (3 días o menos)
-            List<Tarea> tareasProximas = tareaRepository.findProximasAVencer(
-                usuario.getId(), 
-                hoy, 
-                tresDiasDespues
-            );
-            
-            if (!tareasProximas.isEmpty()) {
-                String mensaje = String.format(
-                    "Tienes %d tarea(s) que vencen en los próximos 3 días", 
-                    tareasProximas.size()
-                );
-                crearNotificacion(usuario, "TAREA_PROXIMA", mensaje);
-            }
-            
-            // Buscar tareas vencidas
-            List<Tarea> tareasVencidas = tareaRepository.findVencidas(usuario.getId(), hoy);
-            
-            if (!tareasVencidas.isEmpty()) {
-                String mensaje = String.format(
-                    "Tienes %d tarea(s) vencida(s)", 
-                    tareasVencidas.size()
-                );
-                crearNotificacion(usuario, "TAREA_VENCIDA", mensaje);
-            }
-        }
+        generadorNotificacionesService.generar(LocalDate.now());
+    }
+    
+    public EstadoGeneracion getEstadoGeneracion() {
+        return generadorNotificacionesService.getEstado();
+    }
+    
+    public ResultadoRetencion getResultadoRetencion() {
+        return retencionNotificacionesService.getUltimo();
+    }
+    
+    public EstadoRecordatorios getEstadoRecordatorios() {
+        return planificadorRecordatorios.getEstado();
     }
     
     // Método para generar notificación manualmente
@@ -0,0 +1,490 @@
+package demo.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.model.EstadoRecordatorios;
+import demo.model.Notificacion;
+import demo.model.Tarea;
+import demo.model.Tarea.Estado;
+import demo.repository.NotificacionRepository;
+import demo.repository.TareaRepository;
+import demo.service.VersionesService.Recurso;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Recordatorios por tarea antes de su fecha límite (por defecto 3 días antes,
+ * la víspera y el mismo día, a las 08:00).
+ * Los recordatorios esperan en memoria en una DelayQueue ordenada por hora de
+ * envío, pero solo los de las tareas que vencen dentro de una ventana (el mayor
+ * aviso más unos días): al arrancar se carga con una consulta por rango sobre
+ * fecha_limite y después la ventana avanza cargando solo los días nuevos.
+ * TaskController avisa cuando una tarea se crea, cambia o se borra; los
+ * recordatorios anteriores de esa tarea quedan invalidados (cada tarea tiene
+ * una generación) y se descartan al salir de la cola. Antes de enviar se
+ * comprueba en la BD que la tarea sigue activa con la misma fecha y que el
+ * aviso no se envió ya. Si el lote no se puede guardar, sus recordatorios
+ * vuelven a la cola con una espera que se dobla en cada fallo; la generación
+ * de la tarea solo se libera cuando el último aviso queda confirmado.
+ */
+@Service
+public class PlanificadorRecordatoriosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanificadorRecordatoriosService.class);
+
+    static final String TIPO_RECORDATORIO = "RECORDATORIO";
+
+    private static final List<Estado> ESTADOS_ACTIVOS = List.of(Estado.Pendiente, Estado.En_progreso);
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private ContadoresUsuarioService contadoresUsuarioService;
+
+    @Autowired
+    private CanalNotificacionesService canalNotificacionesService;
+
+    @Autowired
+    private VersionesService versionesService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notificaciones.recordatorios.activo:true}")
+    private boolean activo;
+
+    // Días antes de la fecha límite en que se avisa (0 = el mismo día)
+    @Value("${notificaciones.recordatorios.dias-antes:3,1,0}")
+    private String diasAntesTexto;
+
+    @Value("${notificaciones.recordatorios.hora:08:00}")
+    private String horaTexto;
+
+    // Días de vencimientos cargados más allá del mayor aviso
+    @Value("${notificaciones.recordatorios.ventana-dias:1}")
+    private int ventanaDias;
+
+    // Al arrancar, los avisos que tocaban en estas últimas horas se envían enseguida
+    @Value("${notificaciones.recordatorios.recuperar-horas:24}")
+    private int recuperarHoras;
+
+    @Value("${notificaciones.recordatorios.tamano-lote:1000}")
+    private int tamanoLote;
+
+    // Espera antes de reintentar un lote que falló; se dobla hasta el máximo
+    @Value("${notificaciones.recordatorios.reintento-ms:5000}")
+    private long reintentoMs;
+
+    @Value("${notificaciones.recordatorios.reintento-max-ms:300000}")
+    private long reintentoMaxMs;
+
+    private final DelayQueue<Recordatorio> cola = new DelayQueue<>();
+
+    // Generación vigente de cada tarea con recordatorios en cola
+    private final Map<Integer, Integer> generaciones = new ConcurrentHashMap<>();
+
+    private final AtomicLong enviados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+    private volatile LocalDateTime ultimoEnvio;
+
+    private List<Integer> diasAntes;
+    private LocalTime hora;
+
+    // Último vencimiento cuyos recordatorios ya están en cola (null = sin iniciar)
+    private volatile LocalDate cargadosHasta;
+
+    private Thread despachador;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!activo) {
+            logger.info("Recordatorios de vencimiento desactivados");
+            return;
+        }
+        diasAntes = diasAntes();
+        hora = LocalTime.parse(horaTexto.trim());
+
+        long inicio = System.currentTimeMillis();
+        LocalDateTime ahora = LocalDateTime.now();
+        int tareas;
+        synchronized (this) {
+            // Desde las que vencen hoy: las de ayer ya no necesitan aviso
+            tareas = cargar(ahora.toLocalDate().minusDays(1), limiteCarga(ahora.toLocalDate()),
+                ahora, ahora.minusHours(recuperarHoras));
+        }
+
+        despachador = new Thread(this::despachar, "recordatorios-vencimiento");
+        despachador.setDaemon(true);
+        despachador.start();
+        logger.info("⏰ Planificador de recordatorios iniciado: {} tarea(s) hasta el {}, {} recordatorio(s) en cola ({} ms)",
+            tareas, cargadosHasta, cola.size(), System.currentTimeMillis() - inicio);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (despachador != null) {
+            despachador.interrupt();
+        }
+    }
+
+    // La ventana avanza con el día: se cargan solo los vencimientos nuevos
+    @Scheduled(fixedDelayString = "${notificaciones.recordatorios.avance-ms:600000}")
+    public void avanzar() {
+        if (cargadosHasta == null) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate hasta = limiteCarga(ahora.toLocalDate());
+        synchronized (this) {
+            if (!hasta.isAfter(cargadosHasta)) {
+                return;
+            }
+            int tareas = cargar(cargadosHasta, hasta, ahora, ahora);
+            logger.info("⏰ Recordatorios cargados hasta el {}: {} tarea(s) nuevas", hasta, tareas);
+        }
+    }
+
+    public EstadoRecordatorios getEstado() {
+        return new EstadoRecordatorios(cargadosHasta != null, cola.size(), cargadosHasta,
+            enviados.get(), descartados.get(), ultimoEnvio);
+    }
+
+    // Después del commit si hay transacción (la importación masiva guarda dentro de una)
+    public void tareaCambiada(Tarea tarea) {
+        tareasCambiadas(List.of(tarea));
+    }
+
+    public void tareasCambiadas(Collection<Tarea> tareas) {
+        if (cargadosHasta == null) {
+            return;
+        }
+        List<Cambio> cambios = new ArrayList<>(tareas.size());
+        for (Tarea t : tareas) {
+            cambios.add(new Cambio(t.getId(), t.getUsuario().getId(),
+                ESTADOS_ACTIVOS.contains(t.getEstado()) ? t.getFechaLimite() : null));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(cambios);
+                }
+            });
+        } else {
+            aplicar(cambios);
+        }
+    }
+
+    // También después del commit: si el borrado se deshace, sus recordatorios siguen valiendo
+    public void tareaEliminada(Integer tareaId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generaciones.remove(tareaId);
+                }
+            });
+        } else {
+            generaciones.remove(tareaId);
+        }
+    }
+
+    // Los recordatorios en cola de estas tareas se invalidan y se programan los nuevos
+    private synchronized void aplicar(List<Cambio> cambios) {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Cambio c : cambios) {
+            generaciones.remove(c.tareaId);
+            // Las que vencen más allá de la ventana se cargarán cuando avance
+            if (c.fechaLimite != null && !c.fechaLimite.isAfter(cargadosHasta)) {
+                programar(c.tareaId, c.usuarioId, c.fechaLimite, ahora, ahora);
+            }
+        }
+    }
+
+    // Tareas activas que vencen en (desde, hasta], por lotes (keyset sobre fecha_limite, id)
+    private int cargar(LocalDate desde, LocalDate hasta, LocalDateTime ahora, LocalDateTime recuperarDesde) {
+        PageRequest lote = PageRequest.of(0, tamanoLote);
+        LocalDate fecha = desde;
+        Integer id = Integer.MAX_VALUE;
+        int tareas = 0;
+        while (true) {
+            List<Object[]> filas = tareaRepository.findVencimientosDesde(fecha, id, hasta, ESTADOS_ACTIVOS, lote);
+            for (Object[] fila : filas) {
+                programar((Integer) fila[0], (Integer) fila[1], (LocalDate) fila[2], ahora, recuperarDesde);
+            }
+            tareas += filas.size();
+            if (filas.size() < tamanoLote) {
+                break;
+            }
+            Object[] ultima = filas.get(filas.size() - 1);
+            fecha = (LocalDate) ultima[2];
+            id = (Integer) ultima[0];
+        }
+        cargadosHasta = hasta;
+        return tareas;
+    }
+
+    // Los avisos ya pasados solo se programan si son posteriores a recuperarDesde, y solo el último
+    private void programar(Integer tareaId, Integer usuarioId, LocalDate fechaLimite,
+                           LocalDateTime ahora, LocalDateTime recuperarDesde) {
+        int generacion = generaciones.merge(tareaId, 1, Integer::sum);
+        LocalDateTime atrasado = null;
+        List<LocalDateTime> momentos = new ArrayList<>();
+        for (int dias : diasAntes) {
+            LocalDateTime momento = fechaLimite.minusDays(dias).atTime(hora);
+            if (momento.isAfter(ahora)) {
+                momentos.add(momento);
+            } else if (!momento.isBefore(recuperarDesde)) {
+                atrasado = momento;
+            }
+        }
+        if (atrasado != null) {
+            momentos.add(0, atrasado);
+        }
+        if (momentos.isEmpty()) {
+            generaciones.remove(tareaId, generacion);
+            return;
+        }
+        for (int i = 0; i < momentos.size(); i++) {
+            cola.add(new Recordatorio(tareaId, usuarioId, fechaLimite, momentos.get(i), generacion,
+                i == momentos.size() - 1));
+        }
+    }
+
+    private void despachar() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Recordatorio> lote = new ArrayList<>();
+                lote.add(cola.take());
+                cola.drainTo(lote, tamanoLote - 1);
+                enviar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.error("Error enviando recordatorios de vencimiento", e);
+            }
+        }
+    }
+
+    private void enviar(List<Recordatorio> lote) {
+        // Solo los de la generación vigente, y uno por tarea
+        Map<Integer, Recordatorio> vigentes = new LinkedHashMap<>();
+        for (Recordatorio r : lote) {
+            Integer generacion = generaciones.get(r.tareaId);
+            if (generacion == null || generacion != r.generacion) {
+                descartados.incrementAndGet();
+                continue;
+            }
+            if (vigentes.put(r.tareaId, r) != null) {
+                descartados.incrementAndGet();
+            }
+        }
+        if (vigentes.isEmpty()) {
+            return;
+        }
+
+        LocalDate hoy = LocalDate.now();
+        Set<Integer> usuarioIds = new HashSet<>();
+        for (Recordatorio r : vigentes.values()) {
+            usuarioIds.add(r.usuarioId);
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Notificacion> guardadas;
+        try {
+            guardadas = tx.execute(status -> guardar(vigentes, usuarioIds, hoy));
+        } catch (RuntimeException e) {
+            reintentar(vigentes.values(), e);
+            return;
+        }
+
+        // Confirmado: la tarea cuyo último aviso salió ya no tiene recordatorios en cola
+        for (Recordatorio r : vigentes.values()) {
+            if (r.ultimo) {
+                generaciones.remove(r.tareaId, r.generacion);
+            }
+        }
+        descartados.addAndGet(vigentes.size() - guardadas.size());
+        if (guardadas.isEmpty()) {
+            return;
+        }
+        // Ya confirmado, se envía a los usuarios conectados
+        canalNotificacionesService.publicarTodas(guardadas);
+        Set<Integer> avisados = new TreeSet<>();
+        for (Notificacion n : guardadas) {
+            avisados.add(n.getUsuario().getId());
+        }
+        for (Integer usuarioId : avisados) {
+            versionesService.incrementar(usuarioId, Recurso.NOTIFICACIONES);
+        }
+        enviados.addAndGet(guardadas.size());
+        ultimoEnvio = LocalDateTime.now();
+        logger.info("⏰ {} recordatorio(s) de vencimiento enviados a {} usuario(s)", guardadas.size(), avisados.size());
+    }
+
+    // Dentro de la transacción: solo los avisos que siguen haciendo falta y no se enviaron ya
+    private List<Notificacion> guardar(Map<Integer, Recordatorio> vigentes, Set<Integer> usuarioIds, LocalDate hoy) {
+        Map<Integer, LocalDateTime> ultimoAviso = new HashMap<>();
+        for (Object[] fila : notificacionRepository.findUltimoAvisoPorTarea(
+                usuarioIds, TIPO_RECORDATORIO, vigentes.keySet())) {
+            ultimoAviso.put((Integer) fila[0], (LocalDateTime) fila[1]);
+        }
+        List<Notificacion> nuevas = new ArrayList<>();
+        for (Tarea t : tareaRepository.findActivasByIdIn(vigentes.keySet(), ESTADOS_ACTIVOS)) {
+            Recordatorio r = vigentes.get(t.getId());
+            LocalDateTime ultimo = ultimoAviso.get(t.getId());
+            if (!r.fechaLimite.equals(t.getFechaLimite()) || (ultimo != null && !ultimo.isBefore(r.momento))) {
+                continue;
+            }
+            nuevas.add(new Notificacion(t.getUsuario(), t, TIPO_RECORDATORIO, mensaje(t, hoy)));
+        }
+        if (!nuevas.isEmpty()) {
+            notificacionRepository.saveAll(nuevas);
+            contadoresUsuarioService.notificacionesCreadas(
+                nuevas.stream().map(n -> n.getUsuario().getId()).toList());
+        }
+        return nuevas;
+    }
+
+    // Sin tocar las generaciones: si la tarea cambia mientras tanto, el reintento se descarta
+    private void reintentar(Collection<Recordatorio> recordatorios, RuntimeException e) {
+        long ahora = System.currentTimeMillis();
+        long espera = reintentoMaxMs;
+        for (Recordatorio r : recordatorios) {
+            Recordatorio otro = r.reintento(ahora, reintentoMs, reintentoMaxMs);
+            espera = Math.min(espera, otro.venceMs - ahora);
+            cola.add(otro);
+        }
+        logger.warn("⚠️ No se pudieron guardar {} recordatorio(s), reintento en {} ms: {}",
+            recordatorios.size(), espera, e.getMessage());
+    }
+
+    // Según lo que falta de verdad (un aviso recuperado tras un reinicio puede llegar tarde)
+    private static String mensaje(Tarea t, LocalDate hoy) {
+        long dias = ChronoUnit.DAYS.between(hoy, t.getFechaLimite());
+        if (dias <= 0) {
+            return String.format("La tarea '%s' vence hoy", t.getTitulo());
+        }
+        if (dias == 1) {
+            return String.format("La tarea '%s' vence mañana", t.getTitulo());
+        }
+        return String.format("La tarea '%s' vence en %d días (el %s)", t.getTitulo(), dias, t.getFechaLimite());
+    }
+
+    private LocalDate limiteCarga(LocalDate hoy) {
+        return hoy.plusDays(diasAntes.get(0) + Math.max(0, ventanaDias));
+    }
+
+    // De mayor a menor, así los momentos de cada tarea quedan en orden
+    private List<Integer> diasAntes() {
+        TreeSet<Integer> dias = new TreeSet<>();
+        for (String parte : diasAntesTexto.split(",")) {
+            try {
+                int d = Integer.parseInt(parte.trim());
+                if (d < 0) {
+                    throw new IllegalArgumentException("negativo");
+                }
+                dias.add(d);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Valor no válido en notificaciones.recordatorios.dias-antes: " + parte, e);
+            }
+        }
+        if (dias.isEmpty()) {
+            throw new IllegalStateException("notificaciones.recordatorios.dias-antes está vacío");
+        }
+        return new ArrayList<>(dias.descendingSet());
+    }
+
+    private static final class Cambio {
+        private final Integer tareaId;
+        private final Integer usuarioId;
+        private final LocalDate fechaLimite;
+
+        // fechaLimite null = la tarea ya no necesita recordatorios
+        private Cambio(Integer tareaId, Integer usuarioId, LocalDate fechaLimite) {
+            this.tareaId = tareaId;
+            this.usuarioId = usuarioId;
+            this.fechaLimite = fechaLimite;
+        }
+    }
+
+    private static final class Recordatorio implements Delayed {
+        private final Integer tareaId;
+        private final Integer usuarioId;
+        private final LocalDate fechaLimite;
+        private final LocalDateTime momento;
+        private final long venceMs;
+        private final int generacion;
+        private final boolean ultimo;
+        private final int fallos;
+
+        private Recordatorio(Integer tareaId, Integer usuarioId, LocalDate fechaLimite, LocalDateTime momento,
+                             int generacion, boolean ultimo) {
+            this(tareaId, usuarioId, fechaLimite, momento, momento.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                generacion, ultimo, 0);
+        }
+
+        private Recordatorio(Integer tareaId, Integer usuarioId, LocalDate fechaLimite, LocalDateTime momento,
+                             long venceMs, int generacion, boolean ultimo, int fallos) {
+            this.tareaId = tareaId;
+            this.usuarioId = usuarioId;
+            this.fechaLimite = fechaLimite;
+            this.momento = momento;
+            this.venceMs = venceMs;
+            this.generacion = generacion;
+            this.ultimo = ultimo;
+            this.fallos = fallos;
+        }
+
+        // El mismo aviso (mismo momento para la comprobación de duplicados), más tarde
+        private Recordatorio reintento(long ahoraMs, long esperaMs, long esperaMaxMs) {
+            long espera = Math.min(esperaMaxMs, esperaMs << Math.min(fallos, 20));
+            return new Recordatorio(tareaId, usuarioId, fechaLimite, momento, ahoraMs + espera, generacion, ultimo,
+                fallos + 1);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(venceMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return Long.compare(venceMs, ((Recordatorio) otro).venceMs);
+        }
+    }
+}
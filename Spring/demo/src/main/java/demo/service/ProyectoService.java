@@ -1,32 +1,52 @@
 package demo.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import demo.model.PaginaCursor;
 import demo.model.Proyecto;
 import demo.model.Proyecto.EstadoProyecto;
+import demo.model.ProyectoResumenDTO;
 import demo.model.Tarea;
+import demo.model.TareaProyectoDTO;
 import demo.model.Usuario;
 import demo.repository.ProyectoRepository;
-import demo.repository.TareaRepository;
+import demo.service.VersionesService.Recurso;
 
 @Service
 public class ProyectoService {
     
+    public static final int SUGERENCIAS_POR_DEFECTO = 20;
+    public static final int SUGERENCIAS_MAXIMO = 50;
+    
     @Autowired
     private ProyectoRepository proyectoRepository;
     
     @Autowired
-    private TareaRepository tareaRepository;
+    private VersionesService versionesService;
+    
+    @Autowired
+    private ContadoresProyectoService contadoresProyectoService;
     
     public List<Proyecto> getProyectosByUsuario(Usuario usuario) {
         return proyectoRepository.findByUsuario(usuario);
     }
     
+    public List<ProyectoResumenDTO> getResumenProyectos(Integer usuarioId) {
+        return proyectoRepository.findResumenByUsuarioId(usuarioId);
+    }
+    
     public List<Proyecto> getProyectosActivosByUsuario(Usuario usuario) {
         return proyectoRepository.findByUsuarioAndEstado(usuario, EstadoProyecto.ACTIVO);
     }
@@ -35,44 +55,126 @@ public class ProyectoService {
         return proyectoRepository.findByIdAndUsuario(id, usuario);
     }
     
-    public Optional<Proyecto> getProyectoWithTareas(Integer id, Usuario usuario) {
-        return proyectoRepository.findByIdAndUsuarioWithTareas(id, usuario);
+    /**
+     * Tareas del proyecto paginadas por cursor, en orden de id, con filtros
+     * opcionales. El cursor es el id de la última tarea de la página anterior.
+     * No comprueba el dueño del proyecto: eso lo hace quien llama.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<TareaProyectoDTO> listarTareas(Integer proyectoId, Tarea.Estado estado,
+                                                       Tarea.Prioridad prioridad, String cursor, Integer limite) {
+        int n = limite == null ? ListadoTareasService.LIMITE_POR_DEFECTO
+            : Math.max(1, Math.min(limite, ListadoTareasService.LIMITE_MAXIMO));
+        int despuesDe = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                despuesDe = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor no válido", e);
+            }
+        }
+        
+        List<TareaProyectoDTO> items = proyectoRepository.findPaginaTareas(proyectoId, despuesDe,
+                estado != null ? estado.name() : null, prioridad != null ? prioridad.name() : null, n + 1)
+            .stream()
+            .map(f -> new TareaProyectoDTO(((Number) f[0]).intValue(), (String) f[1],
+                Tarea.Estado.desde((String) f[2]), Tarea.Prioridad.desde((String) f[3])))
+            .collect(Collectors.toCollection(ArrayList::new));
+        String siguiente = null;
+        if (items.size() > n) {
+            items = items.subList(0, n);
+            String ultimo = String.valueOf(items.get(n - 1).getId());
+            siguiente = Base64.getUrlEncoder().withoutPadding().encodeToString(ultimo.getBytes(StandardCharsets.UTF_8));
+        }
+        return new PaginaCursor<>(items, siguiente);
+    }
+    
+    /**
+     * Buscador del selector "Agregar tarea": tareas del usuario fuera del
+     * proyecto cuyo título contiene el texto (sin distinguir mayúsculas).
+     * Sin texto devuelve las más recientes.
+     */
+    @Transactional(readOnly = true)
+    public List<TareaProyectoDTO> buscarTareasDisponibles(Integer proyectoId, Integer usuarioId, String texto, Integer limite) {
+        int n = limite == null ? SUGERENCIAS_POR_DEFECTO : Math.max(1, Math.min(limite, SUGERENCIAS_MAXIMO));
+        String patron = texto == null ? "" : texto.trim().toLowerCase(Locale.ROOT)
+            .replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        return proyectoRepository.buscarTareasDisponibles(proyectoId, usuarioId, "%" + patron + "%",
+            PageRequest.of(0, n));
     }
     
+    @Transactional
     public Proyecto saveProyecto(Proyecto proyecto) {
-        return proyectoRepository.save(proyecto);
+        boolean nuevo = proyecto.getId() == null;
+        Proyecto guardado = proyectoRepository.save(proyecto);
+        if (nuevo) {
+            contadoresProyectoService.crear(guardado.getId());
+        }
+        versionesService.incrementar(guardado.getUsuario().getId(), Recurso.PROYECTOS);
+        return guardado;
     }
     
     @Transactional
     public void deleteProyecto(Integer id) {
-        proyectoRepository.deleteById(id);
+        proyectoRepository.findById(id).ifPresent(proyecto -> {
+            proyectoRepository.delete(proyecto);
+            versionesService.incrementar(proyecto.getUsuario().getId(), Recurso.PROYECTOS);
+        });
     }
     
     @Transactional
     public void agregarTareaAProyecto(Integer proyectoId, Integer tareaId, Usuario usuario) {
-        Optional<Proyecto> proyectoOpt = proyectoRepository.findByIdAndUsuarioWithTareas(proyectoId, usuario);
-        Optional<Tarea> tareaOpt = tareaRepository.findById(tareaId);
-        
-        if (proyectoOpt.isPresent() && tareaOpt.isPresent()) {
-            Proyecto proyecto = proyectoOpt.get();
-            Tarea tarea = tareaOpt.get();
-            
-            if (!proyecto.getTareas().contains(tarea)) {
-                proyecto.getTareas().add(tarea);
-                proyectoRepository.save(proyecto);
-            }
-        }
+        agregarTareas(proyectoId, List.of(tareaId), usuario);
     }
     
     @Transactional
     public void removerTareaDeProyecto(Integer proyectoId, Integer tareaId, Usuario usuario) {
-        Optional<Proyecto> proyectoOpt = proyectoRepository.findByIdAndUsuarioWithTareas(proyectoId, usuario);
-        
-        if (proyectoOpt.isPresent()) {
-            Proyecto proyecto = proyectoOpt.get();
-            proyecto.getTareas().removeIf(t -> t.getId().equals(tareaId));
-            proyectoRepository.save(proyecto);
+        quitarTareas(proyectoId, List.of(tareaId), usuario);
+    }
+    
+    /**
+     * Añade al proyecto las tareas del usuario que aún no están en él, con un
+     * INSERT directo en proyecto_tareas (sin cargar la colección). Las repetidas,
+     * inexistentes o de otro usuario se ignoran. Devuelve cuántas se añadieron.
+     */
+    @Transactional
+    public int agregarTareas(Integer proyectoId, Collection<Integer> tareaIds, Usuario usuario) {
+        if (tareaIds.isEmpty() || proyectoRepository.bloquear(proyectoId, usuario.getId()).isEmpty()) {
+            return 0;
+        }
+        List<Object[]> nuevas = proyectoRepository.findTareasFueraDeProyecto(proyectoId, tareaIds, usuario.getId());
+        if (nuevas.isEmpty()) {
+            return 0;
         }
+        proyectoRepository.insertarTareas(proyectoId, ids(nuevas));
+        contadoresProyectoService.tareasAgregadas(proyectoId, estados(nuevas));
+        versionesService.incrementar(usuario.getId(), Recurso.PROYECTOS);
+        return nuevas.size();
+    }
+    
+    // Quita del proyecto las tareas indicadas que estén en él. Devuelve cuántas se quitaron.
+    @Transactional
+    public int quitarTareas(Integer proyectoId, Collection<Integer> tareaIds, Usuario usuario) {
+        if (tareaIds.isEmpty() || proyectoRepository.bloquear(proyectoId, usuario.getId()).isEmpty()) {
+            return 0;
+        }
+        List<Object[]> quitadas = proyectoRepository.findTareasEnProyecto(proyectoId, tareaIds);
+        if (quitadas.isEmpty()) {
+            return 0;
+        }
+        proyectoRepository.borrarTareas(proyectoId, ids(quitadas));
+        contadoresProyectoService.tareasQuitadas(proyectoId, estados(quitadas));
+        versionesService.incrementar(usuario.getId(), Recurso.PROYECTOS);
+        return quitadas.size();
+    }
+    
+    // Filas (id, estado) de las consultas de tareas de proyecto
+    private static List<Integer> ids(List<Object[]> filas) {
+        return filas.stream().map(f -> (Integer) f[0]).toList();
+    }
+    
+    private static List<Tarea.Estado> estados(List<Object[]> filas) {
+        return filas.stream().map(f -> (Tarea.Estado) f[1]).toList();
     }
     
     public long countProyectosActivos(Integer usuarioId) {
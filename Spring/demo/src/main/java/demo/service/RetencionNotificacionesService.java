@@ -0,0 +1,218 @@
+package demo.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.model.ResultadoRetencion;
+import demo.repository.NotificacionRepository;
+import demo.service.VersionesService.Recurso;
+
+/**
+ * Retención de notificaciones.
+ * Primero compacta las repetidas (de cada usuario, tipo y tarea solo queda la
+ * más reciente) y después borra las que superan la vida configurada para su
+ * tipo. Todo por lotes, cada lote en su propia transacción junto con el ajuste
+ * de los contadores de no leídas, y con una pausa entre lotes.
+ */
+@Service
+public class RetencionNotificacionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetencionNotificacionesService.class);
+
+    // Tipos que se repiten para la misma tarea
+    static final List<String> TIPOS_COMPACTABLES = List.of(
+        GeneradorNotificacionesService.TIPO_PROXIMA, GeneradorNotificacionesService.TIPO_VENCIDA,
+        PlanificadorRecordatoriosService.TIPO_RECORDATORIO);
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private ContadoresUsuarioService contadoresUsuarioService;
+
+    @Autowired
+    private VersionesService versionesService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Días de vida por tipo ("TIPO:dias,..."); 0 = no caducan
+    @Value("${notificaciones.retencion.ttl-dias:TAREA_PROXIMA:14,TAREA_VENCIDA:30}")
+    private String ttlPorTipo;
+
+    @Value("${notificaciones.retencion.ttl-dias-por-defecto:90}")
+    private int ttlPorDefecto;
+
+    @Value("${notificaciones.retencion.tamano-lote:1000}")
+    private int tamanoLote;
+
+    @Value("${notificaciones.retencion.pausa-ms:50}")
+    private long pausaMs;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+
+    private volatile ResultadoRetencion ultimo = new ResultadoRetencion();
+
+    public ResultadoRetencion getUltimo() {
+        return ultimo;
+    }
+
+    // Se ejecuta todos los días a las 03:15, antes de reconciliar los contadores
+    @Scheduled(cron = "${notificaciones.retencion.cron:0 15 3 * * *}")
+    public ResultadoRetencion ejecutar() {
+        return ejecutar(LocalDateTime.now());
+    }
+
+    public ResultadoRetencion ejecutar(LocalDateTime ahora) {
+        if (!enCurso.compareAndSet(false, true)) {
+            logger.warn("⏳ Ya hay una retención de notificaciones en curso, se omite esta ejecución");
+            return ultimo;
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+            ResultadoRetencion resultado = new ResultadoRetencion();
+            resultado.setInicio(ahora);
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            PageRequest lote = PageRequest.of(0, tamanoLote);
+
+            if (compactar(resultado, tx, lote) && caducar(resultado, tx, lote, ahora)) {
+                resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+                logger.info("🧹 Retención de notificaciones: {} compactadas, {} caducadas {} en {} lote(s), {} ms",
+                    resultado.getCompactadas(), resultado.getCaducadas(), resultado.getCaducadasPorTipo(),
+                    resultado.getLotes(), resultado.getDuracionMs());
+            } else {
+                resultado.setDuracionMs(System.currentTimeMillis() - inicio);
+                logger.warn("Retención de notificaciones interrumpida tras {} fila(s)", resultado.getRecuperadas());
+            }
+            ultimo = resultado;
+            return resultado;
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    /**
+     * Borra notificaciones y descuenta las no leídas de sus usuarios, en la
+     * transacción de quien llama. Devuelve cuántas se borraron.
+     */
+    @Transactional
+    public int borrar(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, Long> noLeidas = new HashMap<>();
+        for (Object[] fila : notificacionRepository.contarNoLeidasPorUsuario(ids)) {
+            noLeidas.put((Integer) fila[0], ((Number) fila[1]).longValue());
+        }
+        int borradas = notificacionRepository.borrarPorIds(ids);
+        contadoresUsuarioService.noLeidasEliminadas(noLeidas);
+        return borradas;
+    }
+
+    // Devuelven false si el hilo fue interrumpido durante una pausa
+    private boolean compactar(ResultadoRetencion resultado, TransactionTemplate tx, PageRequest lote) {
+        int ultimoId = 0;
+        while (true) {
+            final int desde = ultimoId;
+            int[] filas = tx.execute(status -> {
+                List<Integer> ids = notificacionRepository.findIdsRepetidasDesde(desde, TIPOS_COMPACTABLES, lote);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                versionesService.incrementarTodos(Recurso.NOTIFICACIONES);
+                return new int[] {ids.get(ids.size() - 1), borrar(ids)};
+            });
+            if (filas == null) {
+                return true;
+            }
+            ultimoId = filas[0];
+            resultado.registrarCompactadas(filas[1]);
+            if (!pausar()) {
+                return false;
+            }
+        }
+    }
+
+    private boolean caducar(ResultadoRetencion resultado, TransactionTemplate tx, PageRequest lote, LocalDateTime ahora) {
+        Map<String, Integer> ttl = ttlPorTipo();
+        int minimo = ttlPorDefecto > 0 ? ttlPorDefecto : Integer.MAX_VALUE;
+        for (int dias : ttl.values()) {
+            if (dias > 0) {
+                minimo = Math.min(minimo, dias);
+            }
+        }
+        if (minimo == Integer.MAX_VALUE) {
+            return true;
+        }
+
+        for (String tipo : notificacionRepository.findTiposAnterioresA(ahora.minusDays(minimo))) {
+            int dias = ttl.getOrDefault(tipo, ttlPorDefecto);
+            if (dias <= 0) {
+                continue;
+            }
+            LocalDateTime corte = ahora.minusDays(dias);
+            while (true) {
+                Integer filas = tx.execute(status -> {
+                    List<Integer> ids = notificacionRepository.findIdsCaducadas(tipo, corte, lote);
+                    if (ids.isEmpty()) {
+                        return null;
+                    }
+                    versionesService.incrementarTodos(Recurso.NOTIFICACIONES);
+                    return borrar(ids);
+                });
+                if (filas == null) {
+                    break;
+                }
+                resultado.registrarCaducadas(tipo, filas);
+                if (!pausar()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Integer> ttlPorTipo() {
+        Map<String, Integer> ttl = new HashMap<>();
+        if (ttlPorTipo == null || ttlPorTipo.isBlank()) {
+            return ttl;
+        }
+        for (String par : ttlPorTipo.split(",")) {
+            String[] partes = par.split(":");
+            try {
+                ttl.put(partes[0].trim(), Integer.parseInt(partes[1].trim()));
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Valor no válido en notificaciones.retencion.ttl-dias: " + par, e);
+            }
+        }
+        return ttl;
+    }
+
+    private boolean pausar() {
+        if (pausaMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
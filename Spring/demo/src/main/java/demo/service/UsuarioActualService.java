@@ -0,0 +1,128 @@
+package demo.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import demo.model.Usuario;
+import demo.repository.UsuarioRepository;
+
+/**
+ * Resuelve el usuario autenticado como referencia gestionada por JPA
+ * (getReference, sin SELECT) para asociarlo a entidades o filtrar consultas.
+ * Que el usuario sigue existiendo se comprueba una vez por TTL y se guarda en
+ * una caché compartida; dentro de la petición la identidad la da el propio
+ * EntityManager (open-in-view), así que la misma referencia se reutiliza.
+ */
+@Service
+public class UsuarioActualService {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Value("${usuarios.cache.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    @Value("${usuarios.cache.maximo:10000}")
+    private int maximo;
+
+    // usuarioId -> instante (nanoTime) en que caduca la verificación
+    private final Map<Integer, Long> verificados = new ConcurrentHashMap<>();
+    // correo -> id, para principales sin id
+    private final Map<String, Integer> idsPorCorreo = new ConcurrentHashMap<>();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    /**
+     * Referencia al usuario del principal, vacía si ya no existe en la BD.
+     * Solo tiene el id cargado: acceder a otros campos dispara el SELECT.
+     */
+    public Optional<Usuario> referencia(Usuario principal) {
+        Integer id = principal.getId();
+        if (id == null) {
+            id = idPorCorreo(principal.getCorreo());
+            if (id == null) {
+                return Optional.empty();
+            }
+        }
+        return existe(id) ? Optional.of(usuarioRepository.getReferenceById(id)) : Optional.empty();
+    }
+
+    // Llamar cuando cambian los datos del usuario (perfil, correo) o se elimina
+    public void invalidar(Usuario usuario) {
+        if (usuario.getId() != null) {
+            verificados.remove(usuario.getId());
+        }
+        if (usuario.getCorreo() != null) {
+            idsPorCorreo.remove(usuario.getCorreo());
+        }
+        idsPorCorreo.values().removeIf(id -> id.equals(usuario.getId()));
+    }
+
+    public Map<String, Object> getEstadisticas() {
+        long a = aciertos.sum();
+        long f = fallos.sum();
+        return Map.of(
+            "aciertos", a,
+            "fallos", f,
+            "ratioAciertos", a + f == 0 ? 0.0 : (double) a / (a + f),
+            "usuariosEnCache", verificados.size(),
+            "ttlSegundos", ttlSegundos);
+    }
+
+    private boolean existe(Integer id) {
+        long ahora = System.nanoTime();
+        Long expira = verificados.get(id);
+        if (expira != null && expira - ahora > 0) {
+            aciertos.increment();
+            return true;
+        }
+
+        fallos.increment();
+        if (!usuarioRepository.existsById(id)) {
+            verificados.remove(id);
+            return false;
+        }
+        if (verificados.size() >= maximo && !verificados.containsKey(id)) {
+            verificados.values().removeIf(e -> e - ahora <= 0);
+            recortar(verificados);
+        }
+        verificados.put(id, ahora + TimeUnit.SECONDS.toNanos(ttlSegundos));
+        return true;
+    }
+
+    // Llena aun sin caducadas: fuera las que hagan falta, cualesquiera, para dejar sitio
+    private void recortar(Map<?, ?> cache) {
+        Iterator<?> claves = cache.keySet().iterator();
+        while (cache.size() >= maximo && claves.hasNext()) {
+            claves.next();
+            claves.remove();
+        }
+    }
+
+    private Integer idPorCorreo(String correo) {
+        if (correo == null) {
+            return null;
+        }
+        Integer id = idsPorCorreo.get(correo);
+        if (id != null) {
+            return id;
+        }
+        id = usuarioRepository.findByCorreo(correo).map(Usuario::getId).orElse(null);
+        if (id != null) {
+            if (idsPorCorreo.size() >= maximo) {
+                recortar(idsPorCorreo);
+            }
+            idsPorCorreo.put(correo, id);
+        }
+        return id;
+    }
+}
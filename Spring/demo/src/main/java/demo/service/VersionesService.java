@@ -0,0 +1,92 @@
+package demo.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Versión de los listados de cada usuario (tareas, proyectos, categorías y
+ * notificaciones) para responderlos con ETag. Las escrituras la incrementan
+ * cuando su transacción se confirma; los GET la comparan con If-None-Match
+ * antes de consultar nada y, si coincide, contestan 304 sin tocar las tablas.
+ * Está en memoria: el ETag lleva el instante de arranque, así que los de una
+ * ejecución anterior nunca coinciden.
+ */
+@Service
+public class VersionesService {
+
+    public enum Recurso { TAREAS, PROYECTOS, CATEGORIAS, NOTIFICACIONES }
+
+    private static final int RECURSOS = Recurso.values().length;
+
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Integer, AtomicLongArray> porUsuario = new ConcurrentHashMap<>();
+
+    // Cambios que afectan a todos los usuarios (barrido de vencidas)
+    private final AtomicLongArray globales = new AtomicLongArray(RECURSOS);
+
+    public void incrementar(Integer usuarioId, Recurso... recursos) {
+        if (usuarioId == null) {
+            return;
+        }
+        despuesDeConfirmar(() -> {
+            AtomicLongArray versiones = porUsuario.computeIfAbsent(usuarioId, id -> new AtomicLongArray(RECURSOS));
+            for (Recurso r : recursos) {
+                versiones.incrementAndGet(r.ordinal());
+            }
+        });
+    }
+
+    public void incrementarTodos(Recurso recurso) {
+        despuesDeConfirmar(() -> globales.incrementAndGet(recurso.ordinal()));
+    }
+
+    // Lleva el id del usuario: dos sesiones en el mismo navegador comparten la URL
+    public String etag(Integer usuarioId, Recurso... recursos) {
+        AtomicLongArray versiones = porUsuario.get(usuarioId);
+        StringBuilder sb = new StringBuilder(arranque).append('-').append(usuarioId);
+        for (Recurso r : recursos) {
+            long v = globales.get(r.ordinal()) + (versiones != null ? versiones.get(r.ordinal()) : 0);
+            sb.append('-').append(v);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Para los GET de listados: pone ETag y Cache-Control y devuelve true si el
+     * cliente ya tiene esta versión. En ese caso la respuesta ya es un 304 y el
+     * controlador debe devolver null sin consultar nada.
+     */
+    public boolean noModificado(WebRequest peticion, Integer usuarioId, Recurso... recursos) {
+        if (peticion instanceof ServletWebRequest servlet && servlet.getResponse() != null) {
+            // El navegador la guarda pero revalida siempre (Spring Security pondría no-store)
+            servlet.getResponse().setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.noCache().cachePrivate().getHeaderValue());
+        }
+        return peticion.checkNotModified(etag(usuarioId, recursos));
+    }
+
+    // Dentro de una transacción, al confirmarse: si no, un GET concurrente
+    // podría guardar datos viejos con la versión nueva
+    private static void despuesDeConfirmar(Runnable incremento) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incremento.run();
+                }
+            });
+        } else {
+            incremento.run();
+        }
+    }
+}
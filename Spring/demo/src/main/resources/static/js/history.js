@@ -3,6 +3,9 @@
 const csrfToken = document.querySelector("meta[name='_csrf']")?.getAttribute("content");
 const csrfHeader = document.querySelector("meta[name='_csrf_header']")?.getAttribute("content");
 
+let siguienteCursorHistorial = null;
+const HISTORIAL_POR_PAGINA = 50;
+
 function makeHeaders() {
     const headers = { 
         'Content-Type': 'application/json', 
@@ -14,10 +17,15 @@ function makeHeaders() {
     return headers;
 }
 
-// Cargar tareas completadas
-async function loadCompletedTasks() {
+// Cargar tareas completadas por páginas; con append=true añade la siguiente página
+async function loadCompletedTasks(append = false) {
     try {
-        const response = await fetch('/api/tasks/completed', { 
+        const params = new URLSearchParams({ limite: HISTORIAL_POR_PAGINA });
+        if (append && siguienteCursorHistorial) {
+            params.set('cursor', siguienteCursorHistorial);
+        }
+        
+        const response = await fetch(`/api/tasks/completed?${params}`, { 
             headers: makeHeaders() 
         });
         
@@ -25,8 +33,9 @@ async function loadCompletedTasks() {
             throw new Error('No se pudo cargar el historial');
         }
         
-        const tasks = await response.json();
-        renderCompletedTasks(tasks);
+        const pagina = await response.json();
+        siguienteCursorHistorial = pagina.nextCursor;
+        renderCompletedTasks(pagina.items, append);
     } catch (error) {
         console.error('Error al cargar historial:', error);
         const tbody = document.getElementById('historyTableBody');
@@ -37,13 +46,17 @@ async function loadCompletedTasks() {
 }
 
 // Renderizar tareas completadas
-function renderCompletedTasks(tasks) {
+function renderCompletedTasks(tasks, append = false) {
     const tbody = document.getElementById('historyTableBody');
     if (!tbody) return;
 
-    tbody.innerHTML = '';
+    if (append) {
+        document.getElementById('cargarMasHistorialRow')?.remove();
+    } else {
+        tbody.innerHTML = '';
+    }
     
-    if (!tasks || tasks.length === 0) {
+    if (!append && (!tasks || tasks.length === 0)) {
         tbody.innerHTML = '<tr><td colspan="7" class="text-center">No hay tareas completadas aún.</td></tr>';
         return;
     }
@@ -87,6 +100,13 @@ function renderCompletedTasks(tasks) {
         tbody.appendChild(tr);
     });
     
+    if (siguienteCursorHistorial) {
+        const tr = document.createElement('tr');
+        tr.id = 'cargarMasHistorialRow';
+        tr.innerHTML = '<td colspan="7" class="text-center"><button type="button" class="btn-table" onclick="loadCompletedTasks(true)">Cargar más</button></td>';
+        tbody.appendChild(tr);
+    }
+    
     // Recrear iconos de Lucide
     if (typeof lucide !== 'undefined') {
         lucide.createIcons();
@@ -5,6 +5,8 @@ const csrfHeader = document.querySelector("meta[name='_csrf_header']")?.getAttri
 
 // Variables globales
 let proyectosDisponibles = [];
+let siguienteCursorTareas = null;
+const TAREAS_POR_PAGINA = 50;
 
 function makeHeaders() {
     const headers = { 
@@ -193,9 +195,15 @@ window.confirmarAgregarProyecto = async function(tareaId) {
 
 // ========== FUNCIONES DE TAREAS ==========
 
-async function loadTasks() {
+// Carga las tareas activas por páginas; con append=true añade la siguiente página
+async function loadTasks(append = false) {
     try {
-        const response = await fetch('/api/tasks/active', { 
+        const params = new URLSearchParams({ activas: 'true', limite: TAREAS_POR_PAGINA });
+        if (append && siguienteCursorTareas) {
+            params.set('cursor', siguienteCursorTareas);
+        }
+        
+        const response = await fetch(`/api/tasks/pagina?${params}`, { 
             headers: makeHeaders() 
         });
         
@@ -203,8 +211,9 @@ async function loadTasks() {
             throw new Error('No se pudo cargar tareas');
         }
         
-        const tasks = await response.json();
-        renderTasks(tasks);
+        const pagina = await response.json();
+        siguienteCursorTareas = pagina.nextCursor;
+        renderTasks(pagina.items, append);
     } catch (error) {
         console.error('Error al cargar las tareas:', error);
         const tbody = document.getElementById('tasksTableBody');
@@ -239,13 +248,17 @@ async function loadCategoriesSelect() {
     }
 }
 
-function renderTasks(tasks) {
+function renderTasks(tasks, append = false) {
     const tbody = document.getElementById('tasksTableBody');
     if (!tbody) return;
 
-    tbody.innerHTML = '';
+    if (append) {
+        document.getElementById('cargarMasTareasRow')?.remove();
+    } else {
+        tbody.innerHTML = '';
+    }
     
-    if (!tasks || tasks.length === 0) {
+    if (!append && (!tasks || tasks.length === 0)) {
         tbody.innerHTML = '<tr><td colspan="7" class="text-center">No hay tareas activas. <a href="/create-task" class="link-primary">Crea una nueva</a></td></tr>';
         return;
     }
@@ -295,6 +308,13 @@ function renderTasks(tasks) {
         tbody.appendChild(tr);
     });
     
+    if (siguienteCursorTareas) {
+        const tr = document.createElement('tr');
+        tr.id = 'cargarMasTareasRow';
+        tr.innerHTML = '<td colspan="7" class="text-center"><button type="button" class="btn-table" onclick="loadTasks(true)">Cargar más</button></td>';
+        tbody.appendChild(tr);
+    }
+    
     // Recrear iconos de Lucide después de agregar el contenido
     if (typeof lucide !== 'undefined') {
         lucide.createIcons();
@@ -14,20 +14,42 @@ function makeHeaders() {
     return headers;
 }
 
-// Cargar notificaciones
+// Páginas ya cargadas (de la más reciente a la más antigua); el stream SSE
+// y la consulta "desde" les agregan las nuevas por delante
+let notificacionesActuales = [];
+let siguienteCursor = null;
+let soloNoLeidas = false;
+let fuenteNotificaciones = null;
+
+// Ids marcados con la casilla; las acciones sobre ellos van en una sola petición
+const seleccionadas = new Set();
+
+// Contador de no leídas: se lee al conectar y luego se ajusta con los eventos del stream
+let noLeidas = null;
+
+const LIMITE_PAGINA = 30;
+const LIMITE_NUEVAS = 200;
+
+async function fetchPagina(params) {
+    const query = new URLSearchParams(params);
+    if (soloNoLeidas) query.set('noLeidas', 'true');
+    const response = await fetch(`/api/notificaciones/pagina?${query}`, {
+        headers: makeHeaders()
+    });
+    if (!response.ok) {
+        throw new Error('No se pudieron cargar las notificaciones');
+    }
+    return response.json();
+}
+
+// Cargar la primera página (al entrar, al cambiar el filtro o tras una acción masiva)
 async function loadNotificaciones() {
     try {
-        const response = await fetch('/api/notificaciones', { 
-            headers: makeHeaders() 
-        });
-        
-        if (!response.ok) {
-            throw new Error('No se pudieron cargar las notificaciones');
-        }
-        
-        const notificaciones = await response.json();
-        console.log('📬 Notificaciones cargadas:', notificaciones);
-        renderNotificaciones(notificaciones);
+        const pagina = await fetchPagina({ limite: LIMITE_PAGINA });
+        console.log('📬 Notificaciones cargadas:', pagina.items.length);
+        notificacionesActuales = pagina.items;
+        siguienteCursor = pagina.nextCursor;
+        renderNotificaciones(notificacionesActuales);
     } catch (error) {
         console.error('❌ Error al cargar notificaciones:', error);
         const container = document.getElementById('notificacionesContainer');
@@ -44,18 +66,226 @@ async function loadNotificaciones() {
     }
 }
 
+// Siguiente página, más antigua
+async function cargarMas() {
+    if (!siguienteCursor) return;
+    try {
+        const pagina = await fetchPagina({ cursor: siguienteCursor, limite: LIMITE_PAGINA });
+        const ids = new Set(notificacionesActuales.map(n => n.id));
+        notificacionesActuales = notificacionesActuales.concat(pagina.items.filter(n => !ids.has(n.id)));
+        siguienteCursor = pagina.nextCursor;
+        renderNotificaciones(notificacionesActuales);
+    } catch (error) {
+        console.error('❌ Error al cargar más notificaciones:', error);
+        showNotification('Error al cargar más notificaciones', 'error');
+    }
+}
+
+// Solo las creadas desde la más reciente que ya tenemos (la de la misma fecha vuelve y se descarta)
+async function cargarNuevas() {
+    const masReciente = notificacionesActuales[0];
+    if (!masReciente) {
+        return loadNotificaciones();
+    }
+    try {
+        const pagina = await fetchPagina({ desde: masReciente.fechaCreacion, limite: LIMITE_NUEVAS });
+        if (pagina.nextCursor) {
+            // Demasiadas novedades: se empieza de nuevo por la primera página
+            return loadNotificaciones();
+        }
+        const ids = new Set(notificacionesActuales.map(n => n.id));
+        const nuevas = pagina.items.filter(n => !ids.has(n.id));
+        if (nuevas.length > 0) {
+            console.log('📬 Notificaciones nuevas:', nuevas.length);
+            notificacionesActuales = [...nuevas, ...notificacionesActuales];
+        }
+    } catch (error) {
+        console.error('❌ Error al cargar notificaciones nuevas:', error);
+    }
+    renderNotificaciones(notificacionesActuales);
+}
+
+function cambiarFiltro() {
+    soloNoLeidas = !soloNoLeidas;
+    seleccionadas.clear();
+    const btn = document.getElementById('btnSoloNoLeidas');
+    if (btn) {
+        btn.classList.toggle('activo', soloNoLeidas);
+        btn.setAttribute('aria-pressed', String(soloNoLeidas));
+    }
+    loadNotificaciones();
+}
+
+// Escuchar notificaciones nuevas por SSE (solo llegan los cambios).
+// El navegador reconecta solo y pide lo que se perdió con Last-Event-ID.
+function conectarStream() {
+    if (!window.EventSource) {
+        // Sin soporte de SSE: se mantiene la recarga periódica
+        setInterval(() => {
+            console.log('🔄 Buscando notificaciones nuevas...');
+            cargarNuevas();
+        }, 60000);
+        return;
+    }
+
+    const ultimoId = notificacionesActuales.reduce((max, n) => Math.max(max, n.id), 0);
+    fuenteNotificaciones = new EventSource('/api/notificaciones/stream' + (ultimoId ? `?desde=${ultimoId}` : ''));
+
+    // Al (re)conectar se parte del valor guardado; los cambios llegan como variaciones
+    fuenteNotificaciones.onopen = () => cargarContador();
+
+    fuenteNotificaciones.addEventListener('notificacion', (e) => {
+        const notif = JSON.parse(e.data);
+        if (notificacionesActuales.some(n => n.id === notif.id)) return;
+        console.log('🔔 Nueva notificación:', notif);
+        notificacionesActuales = [notif, ...notificacionesActuales];
+        if (!notif.leida) aplicarDeltaContador(1);
+        renderNotificaciones(notificacionesActuales);
+    });
+
+    // No leídas marcadas o eliminadas (desde esta u otra pestaña)
+    fuenteNotificaciones.addEventListener('contador', (e) => {
+        aplicarDeltaContador(JSON.parse(e.data).delta);
+    });
+
+    // El servidor no pudo reenviar todo lo perdido: se piden las creadas desde la última conocida
+    fuenteNotificaciones.addEventListener('recargar', () => cargarNuevas());
+
+    fuenteNotificaciones.onerror = () => {
+        console.warn('⚠️ Conexión de notificaciones interrumpida, reintentando...');
+    };
+}
+
+async function cargarContador() {
+    try {
+        const response = await fetch('/api/notificaciones/count', { headers: makeHeaders() });
+        if (response.ok) {
+            mostrarContador((await response.json()).count);
+        }
+    } catch (error) {
+        console.error('❌ Error al leer el contador de no leídas:', error);
+    }
+}
+
+function aplicarDeltaContador(delta) {
+    if (noLeidas !== null) mostrarContador(Math.max(0, noLeidas + delta));
+}
+
+function mostrarContador(valor) {
+    noLeidas = valor;
+    const span = document.getElementById('contadorNoLeidas');
+    if (span) span.textContent = valor > 0 ? `· ${valor} sin leer` : '';
+}
+
+// Sin stream no llegan las variaciones: se usa el valor que devuelve la acción
+function contadorDesdeRespuesta(resultado) {
+    if (!fuenteNotificaciones && resultado && typeof resultado.noLeidas === 'number') {
+        mostrarContador(resultado.noLeidas);
+    }
+}
+
+// Acción en lote sobre una selección ({ids} o filtro); devuelve el resultado o null si falla
+async function accionEnLote(accion, seleccion) {
+    const response = await fetch(`/api/notificaciones/lote/${accion}`, {
+        method: 'POST',
+        headers: makeHeaders(),
+        body: JSON.stringify(seleccion)
+    });
+    if (!response.ok) return null;
+    const resultado = await response.json();
+    contadorDesdeRespuesta(resultado);
+    return resultado;
+}
+
+function alternarSeleccion(id, marcada) {
+    if (marcada) {
+        seleccionadas.add(id);
+    } else {
+        seleccionadas.delete(id);
+    }
+    actualizarBarraSeleccion();
+}
+
+function actualizarBarraSeleccion() {
+    const barra = document.getElementById('barraSeleccion');
+    if (!barra) return;
+    barra.style.display = seleccionadas.size > 0 ? 'flex' : 'none';
+    const texto = document.getElementById('textoSeleccion');
+    if (texto) {
+        texto.textContent = `${seleccionadas.size} seleccionada${seleccionadas.size !== 1 ? 's' : ''}`;
+    }
+}
+
+function cancelarSeleccion() {
+    seleccionadas.clear();
+    renderNotificaciones(notificacionesActuales);
+}
+
+async function marcarSeleccionadas() {
+    const ids = [...seleccionadas];
+    if (ids.length === 0) return;
+    try {
+        const resultado = await accionEnLote('marcar-leidas', { ids });
+        if (!resultado) {
+            showNotification('Error al marcar las notificaciones', 'error');
+            return;
+        }
+        const marcadas = new Set(ids);
+        notificacionesActuales = soloNoLeidas
+            ? notificacionesActuales.filter(n => !marcadas.has(n.id))
+            : notificacionesActuales.map(n => marcadas.has(n.id) ? { ...n, leida: true } : n);
+        seleccionadas.clear();
+        showNotification(`${resultado.afectadas} notificación(es) marcada(s) como leída(s)`, 'success');
+        renderNotificaciones(notificacionesActuales);
+    } catch (error) {
+        console.error('Error:', error);
+        showNotification('Error al marcar las notificaciones', 'error');
+    }
+}
+
+async function eliminarSeleccionadas() {
+    const ids = [...seleccionadas];
+    if (ids.length === 0) return;
+    if (!confirm(`¿Eliminar ${ids.length} notificación(es)?`)) return;
+    try {
+        const resultado = await accionEnLote('eliminar', { ids });
+        if (!resultado) {
+            showNotification('Error al eliminar las notificaciones', 'error');
+            return;
+        }
+        const eliminadas = new Set(ids);
+        notificacionesActuales = notificacionesActuales.filter(n => !eliminadas.has(n.id));
+        seleccionadas.clear();
+        showNotification(`${resultado.afectadas} notificación(es) eliminada(s)`, 'success');
+        renderNotificaciones(notificacionesActuales);
+    } catch (error) {
+        console.error('Error:', error);
+        showNotification('Error al eliminar las notificaciones', 'error');
+    }
+}
+
 // Renderizar notificaciones
 function renderNotificaciones(notificaciones) {
     const container = document.getElementById('notificacionesContainer');
     if (!container) return;
 
     container.innerHTML = '';
+
+    const btnCargarMas = document.getElementById('btnCargarMas');
+    if (btnCargarMas) {
+        btnCargarMas.style.display = siguienteCursor ? 'block' : 'none';
+    }
+
+    // La selección solo conserva las que siguen en la lista
+    const visibles = new Set((notificaciones || []).map(n => n.id));
+    [...seleccionadas].forEach(id => { if (!visibles.has(id)) seleccionadas.delete(id); });
+    actualizarBarraSeleccion();
     
     if (!notificaciones || notificaciones.length === 0) {
         container.innerHTML = `
             <div class="empty-state">
                 <i data-lucide="bell-off"></i>
-                <h3>No hay notificaciones</h3>
+                <h3>${soloNoLeidas ? 'No hay notificaciones sin leer' : 'No hay notificaciones'}</h3>
                 <p>Cuando tengas alertas o actualizaciones, aparecerán aquí</p>
             </div>
         `;
@@ -63,15 +293,8 @@ function renderNotificaciones(notificaciones) {
         return;
     }
 
-    // Ordenar notificaciones: no leídas primero, luego por fecha
-    const notificacionesOrdenadas = [...notificaciones].sort((a, b) => {
-        if (a.leida === b.leida) {
-            return new Date(b.fechaCreacion) - new Date(a.fechaCreacion);
-        }
-        return a.leida ? 1 : -1;
-    });
-
-    notificacionesOrdenadas.forEach(notif => {
+    // Ya vienen de la más reciente a la más antigua; "Solo no leídas" las filtra en el servidor
+    notificaciones.forEach(notif => {
         const card = createNotificacionCard(notif);
         container.appendChild(card);
     });
@@ -89,6 +312,9 @@ function createNotificacionCard(notif) {
     const iconName = getIconName(notif.tipo);
     
     card.innerHTML = `
+        <input type="checkbox" class="notificacion-seleccion" aria-label="Seleccionar notificación"
+               ${seleccionadas.has(notif.id) ? 'checked' : ''}
+               onchange="alternarSeleccion(${notif.id}, this.checked)">
         <div class="notificacion-icon ${iconType}">
             <i data-lucide="${iconName}"></i>
         </div>
@@ -187,9 +413,13 @@ async function marcarComoLeida(id) {
         });
 
         if (response.ok) {
+            contadorDesdeRespuesta(await response.json());
             console.log('✅ Notificación marcada como leída');
             showNotification('Notificación marcada como leída', 'success');
-            loadNotificaciones();
+            notificacionesActuales = soloNoLeidas
+                ? notificacionesActuales.filter(n => n.id !== id)
+                : notificacionesActuales.map(n => n.id === id ? { ...n, leida: true } : n);
+            renderNotificaciones(notificacionesActuales);
         } else {
             showNotification('Error al marcar la notificación', 'error');
         }
@@ -212,9 +442,11 @@ async function eliminarNotificacion(id) {
         });
 
         if (response.ok) {
+            contadorDesdeRespuesta(await response.json());
             console.log('✅ Notificación eliminada');
             showNotification('Notificación eliminada correctamente', 'success');
-            loadNotificaciones();
+            notificacionesActuales = notificacionesActuales.filter(n => n.id !== id);
+            renderNotificaciones(notificacionesActuales);
         } else {
             showNotification('Error al eliminar la notificación', 'error');
         }
@@ -233,9 +465,15 @@ async function marcarTodasComoLeidas() {
         });
 
         if (response.ok) {
+            contadorDesdeRespuesta(await response.json());
             console.log('✅ Todas las notificaciones marcadas');
             showNotification('Todas las notificaciones marcadas como leídas', 'success');
-            loadNotificaciones();
+            if (soloNoLeidas) {
+                loadNotificaciones();
+            } else {
+                notificacionesActuales = notificacionesActuales.map(n => ({ ...n, leida: true }));
+                renderNotificaciones(notificacionesActuales);
+            }
         } else {
             showNotification('Error al marcar las notificaciones', 'error');
         }
@@ -260,6 +498,7 @@ async function limpiarLeidas() {
         if (response.ok) {
             console.log('✅ Notificaciones leídas eliminadas');
             showNotification('Notificaciones leídas eliminadas', 'success');
+            // Pueden quedar leídas en páginas aún no cargadas: se vuelve a la primera
             loadNotificaciones();
         } else {
             showNotification('Error al limpiar las notificaciones', 'error');
@@ -295,7 +534,7 @@ async function generarNotificaciones() {
             showNotification('Notificaciones generadas correctamente', 'success');
             // Esperar un momento antes de recargar para que el usuario vea el mensaje
             setTimeout(() => {
-                loadNotificaciones();
+                cargarNuevas();
             }, 500);
         } else {
             showNotification('Error al generar notificaciones', 'error');
@@ -389,9 +628,35 @@ function escapeHtml(str) {
 document.addEventListener('DOMContentLoaded', function() {
     console.log('🚀 Inicializando sistema de notificaciones...');
     
-    loadNotificaciones();
+    loadNotificaciones().then(conectarStream);
+    if (!window.EventSource) cargarContador();
     
     // Botones de acción
+    const btnFiltro = document.getElementById('btnSoloNoLeidas');
+    if (btnFiltro) {
+        btnFiltro.addEventListener('click', cambiarFiltro);
+    }
+    
+    const btnCargarMas = document.getElementById('btnCargarMas');
+    if (btnCargarMas) {
+        btnCargarMas.addEventListener('click', cargarMas);
+    }
+    
+    const btnMarcarSeleccionadas = document.getElementById('btnMarcarSeleccionadas');
+    if (btnMarcarSeleccionadas) {
+        btnMarcarSeleccionadas.addEventListener('click', marcarSeleccionadas);
+    }
+    
+    const btnEliminarSeleccionadas = document.getElementById('btnEliminarSeleccionadas');
+    if (btnEliminarSeleccionadas) {
+        btnEliminarSeleccionadas.addEventListener('click', eliminarSeleccionadas);
+    }
+    
+    const btnCancelarSeleccion = document.getElementById('btnCancelarSeleccion');
+    if (btnCancelarSeleccion) {
+        btnCancelarSeleccion.addEventListener('click', cancelarSeleccion);
+    }
+    
     const btnMarcarTodas = document.getElementById('btnMarcarTodasLeidas');
     if (btnMarcarTodas) {
         btnMarcarTodas.addEventListener('click', marcarTodasComoLeidas);
@@ -410,11 +675,5 @@ document.addEventListener('DOMContentLoaded', function() {
         console.log('✅ Botón generar configurado');
     }
     
-    // Recargar cada 60 segundos
-    setInterval(() => {
-        console.log('🔄 Recargando notificaciones automáticamente...');
-        loadNotificaciones();
-    }, 60000);
-    
     console.log('✅ Sistema de notificaciones inicializado');
 });
\ No newline at end of file
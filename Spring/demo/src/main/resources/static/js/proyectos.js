@@ -72,6 +72,9 @@ function createProyectoCard(proyecto) {
     const fechaInicio = proyecto.fechaInicio ? formatFecha(proyecto.fechaInicio) : 'Sin fecha';
     const fechaFin = proyecto.fechaFin ? formatFecha(proyecto.fechaFin) : 'Sin fecha';
     const estadoClass = proyecto.estado.toLowerCase();
+    const total = proyecto.cantidadTareas || 0;
+    const completadas = proyecto.completadas || 0;
+    const porcentaje = total > 0 ? Math.round(completadas * 100 / total) : 0;
     
     card.innerHTML = `
         <div class="proyecto-header-card">
@@ -101,6 +104,16 @@ function createProyectoCard(proyecto) {
             </div>
         </div>
         
+        <div class="proyecto-progreso-card">
+            <div class="progreso-texto-card">
+                <span>${completadas} completadas · ${proyecto.pendientes || 0} pendientes · ${proyecto.enProgreso || 0} en progreso</span>
+                <span>${porcentaje}%</span>
+            </div>
+            <div class="progreso-barra-card">
+                <div class="progreso-relleno-card" style="width: ${porcentaje}%"></div>
+            </div>
+        </div>
+        
         <div class="proyecto-actions-card">
             <button class="btn-card btn-ver" onclick="window.location.href='/view-proyecto/${proyecto.id}'">
                 <i data-lucide="eye"></i>
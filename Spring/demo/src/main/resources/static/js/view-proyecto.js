@@ -15,13 +15,23 @@ const proyectoFechaInicio = document.getElementById('proyectoFechaInicio');
 const proyectoFechaFin = document.getElementById('proyectoFechaFin');
 const proyectoTotalTareas = document.getElementById('proyectoTotalTareas');
 const proyectoEstado = document.getElementById('proyectoEstado');
+const proyectoProgreso = document.getElementById('proyectoProgreso');
 const tareasContainer = document.getElementById('tareasContainer');
+const filtroEstado = document.getElementById('filtroEstado');
+const filtroPrioridad = document.getElementById('filtroPrioridad');
+const buscarTarea = document.getElementById('buscarTarea');
 
 // Botones
 const btnEliminarProyecto = document.getElementById('btnEliminarProyecto');
+const btnCargarMas = document.getElementById('btnCargarMas');
 
-// Variable para guardar las tareas del proyecto
-let tareasDelProyecto = [];
+// Las tareas llegan por páginas: cursor de la siguiente (null = no hay más)
+const TAREAS_POR_PAGINA = 50;
+let cursorTareas = null;
+
+// Buscador del modal: espera a que se deje de escribir y descarta respuestas viejas
+let temporizadorBusqueda = null;
+let busquedaActual = 0;
 
 // Cargar proyecto al iniciar
 document.addEventListener('DOMContentLoaded', () => {
@@ -32,9 +42,20 @@ document.addEventListener('DOMContentLoaded', () => {
     if (btnAgregarTarea) {
         btnAgregarTarea.addEventListener('click', async () => {
             modal.classList.add('show');
-            await cargarTareasDisponibles();
+            buscarTarea.value = '';
+            buscarTarea.focus();
+            await cargarTareasDisponibles('');
         });
     }
+    
+    filtroEstado.addEventListener('change', () => cargarTareas(true));
+    filtroPrioridad.addEventListener('change', () => cargarTareas(true));
+    btnCargarMas.addEventListener('click', () => cargarTareas(false));
+    
+    buscarTarea.addEventListener('input', () => {
+        clearTimeout(temporizadorBusqueda);
+        temporizadorBusqueda = setTimeout(() => cargarTareasDisponibles(buscarTarea.value), 250);
+    });
 });
 
 // Cargar datos del proyecto
@@ -52,6 +73,7 @@ async function cargarProyecto() {
         
         const proyecto = await response.json();
         mostrarProyecto(proyecto);
+        await cargarTareas(true);
         
     } catch (error) {
         console.error('Error al cargar proyecto:', error);
@@ -79,15 +101,13 @@ function mostrarProyecto(proyecto) {
         ? formatearFecha(proyecto.fechaFin) 
         : '-';
     
-    proyectoTotalTareas.textContent = proyecto.tareas ? proyecto.tareas.length : 0;
+    // Contadores mantenidos en el servidor: no hace falta recorrer las tareas
+    const contadores = proyecto.contadores || { total: 0, completadas: 0 };
+    proyectoTotalTareas.textContent = contadores.total;
+    const porcentaje = contadores.total > 0 ? Math.round(contadores.completadas * 100 / contadores.total) : 0;
+    proyectoProgreso.textContent = `${porcentaje}% (${contadores.completadas}/${contadores.total})`;
     proyectoEstado.textContent = formatearEstado(proyecto.estado);
     
-    // Guardar tareas del proyecto
-    tareasDelProyecto = proyecto.tareas || [];
-    
-    // Mostrar tareas
-    mostrarTareas(tareasDelProyecto);
-    
     // Ocultar loading y mostrar contenido
     loadingState.style.display = 'none';
     proyectoContent.style.display = 'block';
@@ -95,14 +115,50 @@ function mostrarProyecto(proyecto) {
     lucide.createIcons();
 }
 
-// Mostrar lista de tareas
-function mostrarTareas(tareas) {
-    if (tareas.length === 0) {
-        tareasContainer.innerHTML = '<p class="empty-message">No hay tareas en este proyecto</p>';
+// Cargar una página de tareas (reiniciar = primera página con los filtros actuales)
+async function cargarTareas(reiniciar) {
+    const params = new URLSearchParams({ limite: TAREAS_POR_PAGINA });
+    if (filtroEstado.value) params.set('estado', filtroEstado.value);
+    if (filtroPrioridad.value) params.set('prioridad', filtroPrioridad.value);
+    if (!reiniciar && cursorTareas) params.set('cursor', cursorTareas);
+    
+    btnCargarMas.disabled = true;
+    try {
+        const response = await fetch(`/api/proyectos/${proyectoId}/tareas?${params}`, {
+            headers: {
+                [csrfHeader]: csrfToken
+            }
+        });
+        
+        if (!response.ok) {
+            throw new Error(`HTTP ${response.status}`);
+        }
+        
+        const pagina = await response.json();
+        cursorTareas = pagina.nextCursor;
+        mostrarTareas(pagina.items, !reiniciar);
+        btnCargarMas.style.display = pagina.hasMore ? 'block' : 'none';
+        
+    } catch (error) {
+        console.error('Error al cargar tareas del proyecto:', error);
+        tareasContainer.innerHTML = '<p class="empty-message">Error al cargar las tareas</p>';
+        btnCargarMas.style.display = 'none';
+    } finally {
+        btnCargarMas.disabled = false;
+    }
+}
+
+// Mostrar lista de tareas (agregar = añadir al final de las ya mostradas)
+function mostrarTareas(tareas, agregar) {
+    if (!agregar && tareas.length === 0) {
+        const filtrado = filtroEstado.value || filtroPrioridad.value;
+        tareasContainer.innerHTML = filtrado
+            ? '<p class="empty-message">No hay tareas con estos filtros</p>'
+            : '<p class="empty-message">No hay tareas en este proyecto</p>';
         return;
     }
     
-    tareasContainer.innerHTML = tareas.map(tarea => `
+    const html = tareas.map(tarea => `
         <div class="tarea-item">
             <div class="tarea-info">
                 <span class="tarea-titulo">${tarea.titulo}</span>
@@ -122,6 +178,12 @@ function mostrarTareas(tareas) {
         </div>
     `).join('');
     
+    if (agregar) {
+        tareasContainer.insertAdjacentHTML('beforeend', html);
+    } else {
+        tareasContainer.innerHTML = html;
+    }
+    
     lucide.createIcons();
 }
 
@@ -174,59 +236,47 @@ modal.addEventListener('click', (e) => {
     }
 });
 
-// Cargar tareas disponibles
-async function cargarTareasDisponibles() {
+// Cargar tareas disponibles: el servidor busca por título entre las que no están en el proyecto
+async function cargarTareasDisponibles(texto) {
     const selectTarea = document.getElementById('selectTarea');
-    selectTarea.innerHTML = '<option value="">Cargando tareas...</option>';
-    
-    console.log('=== INICIANDO CARGA DE TAREAS ===');
+    const busqueda = ++busquedaActual;
+    selectTarea.innerHTML = '<option value="">Buscando tareas...</option>';
     
     try {
-        // Cargar todas las tareas del usuario
-        const response = await fetch('/tasks', {
+        const params = new URLSearchParams({ q: texto.trim() });
+        const response = await fetch(`/api/proyectos/${proyectoId}/tareas/disponibles?${params}`, {
             method: 'GET',
             headers: {
                 [csrfHeader]: csrfToken
             }
         });
         
-        console.log('Response status:', response.status);
-        
         if (!response.ok) {
             throw new Error(`HTTP ${response.status}`);
         }
         
-        const todasLasTareas = await response.json();
-        console.log('✅ Tareas cargadas:', todasLasTareas.length);
-        
-        if (!Array.isArray(todasLasTareas)) {
-            throw new Error('La respuesta no es un array');
+        const tareasDisponibles = await response.json();
+        if (busqueda !== busquedaActual) {
+            return; // Ya hay una búsqueda más reciente
         }
         
-        // Filtrar tareas que NO están en el proyecto
-        const tareasDisponibles = todasLasTareas.filter(tarea => {
-            const estaEnProyecto = tareasDelProyecto.some(t => t.id === tarea.id);
-            return !estaEnProyecto;
-        });
-        
-        console.log('✅ Tareas disponibles:', tareasDisponibles.length);
-        
         if (tareasDisponibles.length === 0) {
-            selectTarea.innerHTML = '<option value="">No hay tareas disponibles para agregar</option>';
+            selectTarea.innerHTML = texto.trim()
+                ? '<option value="">Ninguna tarea coincide con la búsqueda</option>'
+                : '<option value="">No hay tareas disponibles para agregar</option>';
             return;
         }
         
-        const options = '<option value="">Selecciona una tarea</option>' +
-            tareasDisponibles.map(tarea => 
-                `<option value="${tarea.id}">${tarea.title || 'Sin título'}</option>`
-            ).join('');
-        
-        selectTarea.innerHTML = options;
-        console.log('✅ Select actualizado correctamente');
+        selectTarea.innerHTML = '<option value="">Selecciona una tarea</option>';
+        tareasDisponibles.forEach(tarea => {
+            selectTarea.add(new Option(tarea.titulo || 'Sin título', tarea.id));
+        });
             
     } catch (error) {
         console.error('❌ ERROR:', error.message);
-        selectTarea.innerHTML = '<option value="">Error al cargar tareas</option>';
+        if (busqueda === busquedaActual) {
+            selectTarea.innerHTML = '<option value="">Error al cargar tareas</option>';
+        }
     }
 }
 
@@ -0,0 +1,26 @@
+package demo;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Igual que DemoApplication para los tests (@SpringBootTest(classes = AplicacionTest.class)),
+ * pero sin escanear el DemoApplication generado de src/test (demo.demo) ni los
+ * benchmarks, que con -Pjmh comparten classpath.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@AutoConfigurationPackage(basePackages = "demo")
+@EnableScheduling
+@ComponentScan(basePackages = "demo", excludeFilters = {
+    @ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+    @ComponentScan.Filter(type = FilterType.REGEX,
+        pattern = {"demo\\.DemoApplication", "demo\\.AplicacionTest", "demo\\.demo\\..*", "demo\\.benchmark\\..*"})
+})
+public class AplicacionTest {
+}
@@ -0,0 +1,32 @@
+package demo;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Filas de prueba sembradas por JDBC. Cada test crea su propio usuario con un
+ * correo único, así los datos de un test no aparecen en los listados de otro
+ * aunque compartan el contexto de Spring y la base de datos.
+ */
+public final class DatosPrueba {
+
+    private DatosPrueba() {}
+
+    public static Integer usuario(JdbcTemplate jdbc, String prefijo) {
+        String correo = prefijo + "-" + System.nanoTime() + "@local";
+        jdbc.update("INSERT INTO usuarios (nombre, correo, contraseña, fecha_registro) VALUES (?, ?, ?, ?)",
+            prefijo, correo, "x", Timestamp.valueOf(LocalDateTime.now()));
+        return jdbc.queryForObject("SELECT id FROM usuarios WHERE correo = ?", Integer.class, correo);
+    }
+
+    public static Integer tarea(JdbcTemplate jdbc, Integer usuarioId, String titulo, LocalDate fechaLimite, String estado) {
+        jdbc.update("INSERT INTO tareas (usuario_id, titulo, fecha_limite, fecha_creacion, estado, prioridad) "
+            + "VALUES (?, ?, ?, ?, ?, ?)", usuarioId, titulo, fechaLimite != null ? Date.valueOf(fechaLimite) : null,
+            Timestamp.valueOf(LocalDateTime.now()), estado, "Media");
+        return jdbc.queryForObject("SELECT MAX(id) FROM tareas WHERE usuario_id = ?", Integer.class, usuarioId);
+    }
+}
@@ -0,0 +1,62 @@
+package demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import demo.model.PaginaCursor;
+
+/**
+ * Recorre un listado paginado por cursor de principio a fin. En cada página
+ * comprueba lo que debe cumplir cualquier listado con cursor: ninguna pasa del
+ * límite, las que traen cursor van llenas y un cursor nunca lleva a una página
+ * vacía (así se detecta el cursor de más cuando el total es justo el límite).
+ */
+public final class RecorridoPaginas {
+
+    private RecorridoPaginas() {}
+
+    /**
+     * Ids de todas las páginas, en orden. {@code consulta} recibe el cursor
+     * (null en la primera) y el límite.
+     */
+    public static <T> List<Integer> recorrer(BiFunction<String, Integer, PaginaCursor<T>> consulta,
+                                             Function<T, Integer> id, int limite) {
+        List<Integer> vistos = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaCursor<T> pagina = consulta.apply(cursor, limite);
+            assertThat(pagina.getItems()).as("página con límite %d", limite).hasSizeLessThanOrEqualTo(limite);
+            if (cursor != null) {
+                assertThat(pagina.getItems()).as("página tras un cursor, límite %d", limite).isNotEmpty();
+            }
+            if (pagina.getNextCursor() != null) {
+                assertThat(pagina.getItems()).as("página con cursor, límite %d", limite).hasSize(limite);
+            }
+            pagina.getItems().forEach(item -> vistos.add(id.apply(item)));
+            cursor = pagina.getNextCursor();
+        } while (cursor != null);
+        return vistos;
+    }
+
+    /**
+     * Recorre el listado con límites alrededor del total n (1, 2, 3, n - 1, n
+     * y n + 1, más los indicados) y comprueba que siempre salen los esperados,
+     * en orden, sin huecos ni repetidos.
+     */
+    public static <T> void comprobar(BiFunction<String, Integer, PaginaCursor<T>> consulta,
+                                     Function<T, Integer> id, List<Integer> esperado, int... otrosLimites) {
+        int n = esperado.size();
+        TreeSet<Integer> limites = new TreeSet<>(List.of(1, 2, 3, Math.max(1, n - 1), Math.max(1, n), n + 1));
+        for (int limite : otrosLimites) {
+            limites.add(limite);
+        }
+        for (int limite : limites) {
+            assertThat(recorrer(consulta, id, limite)).as("límite %d", limite).containsExactlyElementsOf(esperado);
+        }
+    }
+}
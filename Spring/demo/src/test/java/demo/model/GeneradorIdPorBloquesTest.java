@@ -0,0 +1,96 @@
+package demo.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.AplicacionTest;
+import demo.DatosPrueba;
+import demo.repository.NotificacionRepository;
+import demo.repository.UsuarioRepository;
+
+/**
+ * Ids por bloques con el pool de conexiones lleno: cada hilo tiene ya su
+ * conexión (como una petición con open-in-view) cuando se agota el bloque.
+ * Con el TableGenerator de Hibernate, que pide otra conexión al mismo pool,
+ * todos esperarían hasta el connection-timeout.
+ */
+@SpringBootTest(classes = AplicacionTest.class, properties = {
+    "spring.datasource.hikari.maximum-pool-size=" + GeneradorIdPorBloquesTest.POOL,
+    "spring.datasource.hikari.connection-timeout=20000"
+})
+@ActiveProfiles("test")
+class GeneradorIdPorBloquesTest {
+
+    static final int POOL = 4;
+    private static final int HILOS = 12;
+    // Varios bloques de 50 por hilo
+    private static final int POR_HILO = 60;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void conElPoolLlenoLasAltasNoEsperanUnaConexionParaElBloque() throws Exception {
+        Integer usuarioId = DatosPrueba.usuario(jdbc, "ids");
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch poolLleno = new CountDownLatch(POOL);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> resultados = new ArrayList<>();
+        long inicio = System.nanoTime();
+
+        for (int h = 0; h < HILOS; h++) {
+            resultados.add(hilos.submit(() -> tx.executeWithoutResult(status -> {
+                // Toma la conexión y espera a que las demás del pool también estén ocupadas
+                jdbc.queryForObject("SELECT 1", Integer.class);
+                poolLleno.countDown();
+                try {
+                    poolLleno.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                Usuario usuario = usuarioRepository.getReferenceById(usuarioId);
+                for (int i = 0; i < POR_HILO; i++) {
+                    ids.add(notificacionRepository.save(new Notificacion(usuario, "PRUEBA", "Aviso " + i)).getId());
+                }
+            })));
+        }
+        hilos.shutdown();
+        assertThat(hilos.awaitTermination(15, TimeUnit.SECONDS)).as("Altas bloqueadas esperando conexión").isTrue();
+        for (Future<?> resultado : resultados) {
+            resultado.get();
+        }
+
+        assertThat(ids).hasSize(HILOS * POR_HILO);
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - inicio)).isLessThan(15);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM notificaciones WHERE usuario_id = ?", Integer.class, usuarioId))
+            .isEqualTo(HILOS * POR_HILO);
+    }
+}
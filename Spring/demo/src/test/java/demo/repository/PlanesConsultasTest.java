@@ -0,0 +1,391 @@
+package demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import demo.AlineadorGeneradoresId;
+import demo.AplicacionTest;
+import demo.model.Tarea;
+import demo.model.Tarea.Estado;
+
+/**
+ * Plan (EXPLAIN de H2) de cada consulta de TareaRepository, HistorialRepository
+ * y NotificacionRepository sobre datos sembrados: ninguna puede recorrer entera
+ * tareas, historial ni notificaciones, y las de las pantallas más usadas deben
+ * entrar por la columna (usuario, fecha, id...) que les corresponde.
+ * Se analiza el SQL que genera Hibernate al llamar al método, no una copia.
+ * Un método nuevo en esos repositorios hace fallar el test hasta que se añade aquí.
+ */
+@SpringBootTest(classes = {AplicacionTest.class, PlanesConsultasTest.Configuracion.class})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PlanesConsultasTest {
+
+    private static final int USUARIOS = 20;
+    private static final int TAREAS_POR_USUARIO = 250;
+
+    private static final Set<String> TABLAS_VIGILADAS = Set.of("TAREAS", "HISTORIAL", "NOTIFICACIONES");
+
+    // "PUBLIC"."TAREAS" "T1_0" /* PUBLIC.IDX_...: USUARIO_ID = ?1 */  (sin condición = recorrido completo)
+    private static final Pattern ACCESO = Pattern.compile(
+        "\"PUBLIC\"\\.\"(\\w+)\"(?:\\s+\"\\w+\")?\\s*/\\* PUBLIC\\.([\\w.]+?)(?:: ([^*]+?))? \\*/");
+
+    /**
+     * Consultas que recorren la tabla a propósito: agregados globales del proceso
+     * nocturno y métodos antiguos sin uso que filtran solo por estado o prioridad.
+     */
+    private static final Set<String> RECORRIDOS_ADMITIDOS = Set.of(
+        "TareaRepository.findByEstado",
+        "TareaRepository.findByPrioridad",
+        "TareaRepository.contarVencidasPorUsuario"
+    );
+
+    private static final CapturaSql CAPTURA = new CapturaSql();
+
+    @TestConfiguration
+    static class Configuracion {
+        @Bean
+        HibernatePropertiesCustomizer capturaSql() {
+            return propiedades -> propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, CAPTURA);
+        }
+    }
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private HistorialRepository historialRepository;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AlineadorGeneradoresId alineador;
+
+    private final Set<String> comprobadas = new TreeSet<>();
+
+    private Integer usuarioId;
+    private final LocalDate hoy = LocalDate.now();
+    private final LocalDateTime ahora = LocalDateTime.now();
+    private final Pageable pagina = PageRequest.of(0, 20);
+    private final List<Estado> activas = List.of(Estado.Pendiente, Estado.En_progreso);
+
+    @BeforeAll
+    void sembrar() {
+        LocalDateTime creacion = ahora.minusDays(20);
+        List<Object[]> filas = new ArrayList<>();
+        for (int u = 0; u < USUARIOS; u++) {
+            filas.add(new Object[] {"Usuario " + u, "planes" + u + "@local", "x", Timestamp.valueOf(creacion)});
+        }
+        jdbc.batchUpdate("INSERT INTO usuarios (nombre, correo, contraseña, fecha_registro) VALUES (?, ?, ?, ?)", filas);
+        List<Integer> usuarios = jdbc.queryForList(
+            "SELECT id FROM usuarios WHERE correo LIKE 'planes%' ORDER BY id", Integer.class);
+        usuarioId = usuarios.get(0);
+
+        String[] estados = {"Pendiente", "En_progreso", "Completada", "Incompleta"};
+        String[] prioridades = {"Alta", "Media", "Baja"};
+        filas.clear();
+        for (Integer u : usuarios) {
+            for (int t = 0; t < TAREAS_POR_USUARIO; t++) {
+                Date limite = t % 10 == 0 ? null : Date.valueOf(hoy.plusDays(t % 61 - 30));
+                filas.add(new Object[] {u, "Tarea " + t, limite, Timestamp.valueOf(creacion),
+                    estados[t % estados.length], prioridades[t % prioridades.length]});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO tareas (usuario_id, titulo, fecha_limite, fecha_creacion, estado, prioridad) "
+            + "VALUES (?, ?, ?, ?, ?, ?)", filas);
+
+        jdbc.update("INSERT INTO historial (tarea_id, usuario_id, accion, fecha, prioridad) "
+            + "SELECT id, usuario_id, 'CREADA', fecha_creacion, prioridad FROM tareas");
+        jdbc.update("INSERT INTO historial (tarea_id, usuario_id, accion, fecha, titulo, fecha_limite, prioridad) "
+            + "SELECT id, usuario_id, '', DATEADD('HOUR', MOD(id, 400), fecha_creacion), titulo, fecha_limite, prioridad "
+            + "FROM tareas WHERE estado = 'Completada'");
+
+        // Las notificaciones no tienen AUTO_INCREMENT: ids explícitos y luego se alinea el generador
+        jdbc.update("INSERT INTO notificaciones (id, usuario_id, tarea_id, tipo, mensaje, leida, fecha_creacion) "
+            + "SELECT id, usuario_id, id, CASE MOD(id, 3) WHEN 0 THEN 'RECORDATORIO' WHEN 1 THEN 'TAREA_PROXIMA' "
+            + "ELSE 'TAREA_VENCIDA' END, 'Aviso', MOD(id, 4) = 0, DATEADD('HOUR', MOD(id, 400), fecha_creacion) "
+            + "FROM tareas");
+        alineador.alinear();
+        jdbc.execute("ANALYZE");
+    }
+
+    @Test
+    void tareaRepositorySinRecorridosCompletos() {
+        LocalDate desde = hoy.minusDays(5);
+        comprobar("TareaRepository.findByUsuarioId", null, () -> tareaRepository.findByUsuarioId(usuarioId));
+        comprobar("TareaRepository.findByEstado", null, () -> tareaRepository.findByEstado(Estado.Pendiente));
+        comprobar("TareaRepository.findByUsuarioIdAndEstadoNot", null,
+            () -> tareaRepository.findByUsuarioIdAndEstadoNot(usuarioId, Estado.Completada));
+        comprobar("TareaRepository.findByUsuarioIdAndEstado", "USUARIO_ID",
+            () -> tareaRepository.findByUsuarioIdAndEstado(usuarioId, Estado.Pendiente));
+        comprobar("TareaRepository.findByCategoriaId", null, () -> tareaRepository.findByCategoriaId(1));
+        comprobar("TareaRepository.findByPrioridad", null, () -> tareaRepository.findByPrioridad(Tarea.Prioridad.Alta));
+        comprobar("TareaRepository.findByUsuarioIdAndPrioridad", null,
+            () -> tareaRepository.findByUsuarioIdAndPrioridad(usuarioId, Tarea.Prioridad.Alta));
+        comprobar("TareaRepository.bloquear", "ID", () -> tareaRepository.bloquear(1));
+        comprobar("TareaRepository.countActivasByUsuarioId", null,
+            () -> tareaRepository.countActivasByUsuarioId(usuarioId));
+        comprobar("TareaRepository.countVencenHoyByUsuarioId", null,
+            () -> tareaRepository.countVencenHoyByUsuarioId(usuarioId, hoy));
+        comprobar("TareaRepository.countPrioridadAltaByUsuarioId", null,
+            () -> tareaRepository.countPrioridadAltaByUsuarioId(usuarioId));
+        comprobar("TareaRepository.countCompletadasEnFecha", "USUARIO_ID",
+            () -> tareaRepository.countCompletadasEnFecha(usuarioId, hoy));
+        comprobar("TareaRepository.calcularEstadisticas", null,
+            () -> tareaRepository.calcularEstadisticas(usuarioId, hoy, hoy.atStartOfDay(), hoy.plusDays(1).atStartOfDay()));
+        comprobar("TareaRepository.findProximasAVencer", null,
+            () -> tareaRepository.findProximasAVencer(usuarioId, hoy, hoy.plusDays(3)));
+        comprobar("TareaRepository.findVencidas", "USUARIO_ID",
+            () -> tareaRepository.findVencidas(usuarioId, hoy));
+        comprobar("TareaRepository.contarProximasAVencerPorUsuario", "FECHA_LIMITE",
+            () -> tareaRepository.contarProximasAVencerPorUsuario(hoy, hoy.plusDays(3)));
+        comprobar("TareaRepository.contarVencidasPorUsuario", null, () -> tareaRepository.contarVencidasPorUsuario());
+        comprobar("TareaRepository.findDtoByUsuarioId", null, () -> tareaRepository.findDtoByUsuarioId(usuarioId));
+        comprobar("TareaRepository.findDtoProximasAVencer", null,
+            () -> tareaRepository.findDtoProximasAVencer(usuarioId, hoy, hoy.plusDays(3)));
+        comprobar("TareaRepository.findDtoVencidas", "USUARIO_ID",
+            () -> tareaRepository.findDtoVencidas(usuarioId));
+        comprobar("TareaRepository.findIdsVencidasDesde", "ID",
+            () -> tareaRepository.findIdsVencidasDesde(0, hoy, activas, pagina));
+        comprobar("TareaRepository.findIdsVencidasDeUsuarioDesde", null,
+            () -> tareaRepository.findIdsVencidasDeUsuarioDesde(usuarioId, 0, hoy, activas, pagina));
+        comprobar("TareaRepository.marcarVencidasEnRango", "ID",
+            () -> tareaRepository.marcarVencidasEnRango(0, 100, desde, activas, Estado.Incompleta));
+        comprobar("TareaRepository.marcarVencidasDeUsuarioEnRango", null,
+            () -> tareaRepository.marcarVencidasDeUsuarioEnRango(usuarioId, 0, 100, desde, activas, Estado.Incompleta));
+        comprobar("TareaRepository.findVencimientosDesde", "FECHA_LIMITE",
+            () -> tareaRepository.findVencimientosDesde(hoy, 0, hoy.plusDays(4), activas, pagina));
+        comprobar("TareaRepository.findActivasByIdIn", "ID",
+            () -> tareaRepository.findActivasByIdIn(List.of(1, 2, 3), activas));
+        comprobar("TareaRepository.streamParaExportar", null, () -> {
+            try (Stream<Tarea> s = tareaRepository.streamParaExportar(usuarioId)) {
+                s.findFirst();
+            }
+        });
+
+        assertTodasComprobadas(TareaRepository.class);
+    }
+
+    @Test
+    void historialRepositorySinRecorridosCompletos() {
+        comprobar("HistorialRepository.findByTareaId", null, () -> historialRepository.findByTareaId(1));
+        comprobar("HistorialRepository.findByUsuarioId", null, () -> historialRepository.findByUsuarioId(usuarioId));
+        comprobar("HistorialRepository.findByTareaIdOrderByFechaDesc", null,
+            () -> historialRepository.findByTareaIdOrderByFechaDesc(1));
+        comprobar("HistorialRepository.findByUsuarioIdAndTituloIsNotNullOrderByFechaDesc", "USUARIO_ID",
+            () -> historialRepository.findByUsuarioIdAndTituloIsNotNullOrderByFechaDesc(usuarioId));
+        comprobar("HistorialRepository.findCompletadas", "USUARIO_ID",
+            () -> historialRepository.findCompletadas(usuarioId, pagina));
+        comprobar("HistorialRepository.findCompletadasAntesDe", "USUARIO_ID",
+            () -> historialRepository.findCompletadasAntesDe(usuarioId, ahora, Integer.MAX_VALUE, pagina));
+        comprobar("HistorialRepository.findByTareaIdAndTituloIsNotNull", null,
+            () -> historialRepository.findByTareaIdAndTituloIsNotNull(1));
+        comprobar("HistorialRepository.borrarCompletadasDeTarea", "TAREA_ID",
+            () -> historialRepository.borrarCompletadasDeTarea(1));
+        comprobar("HistorialRepository.streamParaExportar", "USUARIO_ID", () -> {
+            try (Stream<?> s = historialRepository.streamParaExportar(usuarioId)) {
+                s.findFirst();
+            }
+        });
+
+        assertTodasComprobadas(HistorialRepository.class);
+    }
+
+    @Test
+    void notificacionRepositorySinRecorridosCompletos() {
+        LocalDateTime desde = ahora.minusDays(30);
+        List<Integer> ids = List.of(1, 2, 3);
+        comprobar("NotificacionRepository.findByUsuarioIdOrderByFechaCreacionDesc", "USUARIO_ID",
+            () -> notificacionRepository.findByUsuarioIdOrderByFechaCreacionDesc(usuarioId));
+        comprobar("NotificacionRepository.findByUsuarioIdAndLeidaOrderByFechaCreacionDesc",
+            "USUARIO_ID",
+            () -> notificacionRepository.findByUsuarioIdAndLeidaOrderByFechaCreacionDesc(usuarioId, false));
+        comprobar("NotificacionRepository.countNoLeidasByUsuarioId", "USUARIO_ID",
+            () -> notificacionRepository.countNoLeidasByUsuarioId(usuarioId));
+        comprobar("NotificacionRepository.marcarLeidasPorIds", null,
+            () -> notificacionRepository.marcarLeidasPorIds(usuarioId, ids));
+        comprobar("NotificacionRepository.marcarLeidasPorFiltro", "USUARIO_ID",
+            () -> notificacionRepository.marcarLeidasPorFiltro(usuarioId, null, desde));
+        comprobar("NotificacionRepository.borrarDelUsuarioPorIds", null,
+            () -> notificacionRepository.borrarDelUsuarioPorIds(usuarioId, ids, true));
+        comprobar("NotificacionRepository.borrarDelUsuarioPorFiltro", "USUARIO_ID",
+            () -> notificacionRepository.borrarDelUsuarioPorFiltro(usuarioId, null, desde, true));
+        comprobar("NotificacionRepository.borrarDeTarea", null,
+            () -> notificacionRepository.borrarDeTarea(usuarioId, 1, true));
+        comprobar("NotificacionRepository.findRecentesByUsuarioId", "USUARIO_ID",
+            () -> notificacionRepository.findRecentesByUsuarioId(usuarioId, desde, pagina));
+        comprobar("NotificacionRepository.findRecentesAntesDe", "USUARIO_ID",
+            () -> notificacionRepository.findRecentesAntesDe(usuarioId, desde, ahora, Integer.MAX_VALUE, pagina));
+        comprobar("NotificacionRepository.findNoLeidasRecientes", "USUARIO_ID",
+            () -> notificacionRepository.findNoLeidasRecientes(usuarioId, desde, pagina));
+        comprobar("NotificacionRepository.findNoLeidasRecientesAntesDe", "USUARIO_ID",
+            () -> notificacionRepository.findNoLeidasRecientesAntesDe(usuarioId, desde, ahora, Integer.MAX_VALUE, pagina));
+        comprobar("NotificacionRepository.findResumenesCreadosDesde", null,
+            () -> notificacionRepository.findResumenesCreadosDesde(List.of("RESUMEN_DIARIO"), ahora.minusHours(1)));
+        comprobar("NotificacionRepository.findTiposAnterioresA", "FECHA_CREACION",
+            () -> notificacionRepository.findTiposAnterioresA(desde));
+        comprobar("NotificacionRepository.findIdsCaducadas", "FECHA_CREACION",
+            () -> notificacionRepository.findIdsCaducadas("TAREA_PROXIMA", desde, pagina));
+        comprobar("NotificacionRepository.findIdsRepetidasDesde", "ID",
+            () -> notificacionRepository.findIdsRepetidasDesde(0, List.of("TAREA_PROXIMA"), pagina));
+        comprobar("NotificacionRepository.findIdsResumenesAnteriores", null,
+            () -> notificacionRepository.findIdsResumenesAnteriores("RESUMEN_DIARIO", List.of(usuarioId), ahora));
+        comprobar("NotificacionRepository.contarNoLeidasPorUsuario", "ID",
+            () -> notificacionRepository.contarNoLeidasPorUsuario(ids));
+        comprobar("NotificacionRepository.borrarPorIds", "ID", () -> notificacionRepository.borrarPorIds(ids));
+        comprobar("NotificacionRepository.findUltimoAvisoPorTarea", null,
+            () -> notificacionRepository.findUltimoAvisoPorTarea(List.of(usuarioId), "RECORDATORIO", ids));
+        comprobar("NotificacionRepository.findPosterioresA", null,
+            () -> notificacionRepository.findPosterioresA(usuarioId, 0, pagina));
+
+        assertTodasComprobadas(NotificacionRepository.class);
+    }
+
+    /**
+     * Ejecuta la llamada (en una transacción que se deshace), toma el SQL que
+     * generó Hibernate y comprueba el plan de cada sentencia.
+     * columna: una de las condiciones de la clave por la que debe entrar el primer acceso a una
+     * tabla vigilada, o null si vale cualquier búsqueda. Se comprueba la columna y no el
+     * nombre del índice: con varios índices que empiezan por ella, H2 y MySQL pueden elegir distinto.
+     */
+    private void comprobar(String metodo, String columna, Runnable llamada) {
+        CAPTURA.sentencias.clear();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            llamada.run();
+            status.setRollbackOnly();
+        });
+        List<String> sentencias = new ArrayList<>(CAPTURA.sentencias);
+        assertThat(sentencias).as("SQL de %s", metodo).isNotEmpty();
+        comprobadas.add(metodo);
+        if (RECORRIDOS_ADMITIDOS.contains(metodo)) {
+            return;
+        }
+
+        List<Acceso> accesos = new ArrayList<>();
+        for (String sql : sentencias) {
+            String plan = explicar(sql);
+            List<Acceso> deSentencia = accesos(plan);
+            assertThat(deSentencia).as("Plan de %s:%n%s", metodo, plan).isNotEmpty();
+            for (Acceso a : deSentencia) {
+                if (TABLAS_VIGILADAS.contains(a.tabla)) {
+                    assertThat(a.esBusqueda())
+                        .as("%s recorre %s entera (%s):%n%s", metodo, a.tabla, a.indice, plan)
+                        .isTrue();
+                }
+            }
+            accesos.addAll(deSentencia);
+        }
+        if (columna != null) {
+            Acceso principal = accesos.stream().filter(a -> TABLAS_VIGILADAS.contains(a.tabla)).findFirst().orElseThrow();
+            assertThat(principal.condicion).as("Clave de %s (%s)", metodo, principal.indice)
+                .containsPattern("(^|\\s)" + columna + "\\b");
+        }
+    }
+
+    // Los parámetros quedan sin valor: H2 elige el plan igualmente
+    private String explicar(String sql) {
+        return jdbc.execute((ConnectionCallback<String>) conexion -> {
+            try (PreparedStatement ps = conexion.prepareStatement("EXPLAIN " + sql);
+                 ResultSet rs = ps.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private static List<Acceso> accesos(String plan) {
+        List<Acceso> accesos = new ArrayList<>();
+        Matcher m = ACCESO.matcher(plan);
+        while (m.find()) {
+            accesos.add(new Acceso(m.group(1).toUpperCase(), m.group(2), m.group(3)));
+        }
+        return accesos;
+    }
+
+    private void assertTodasComprobadas(Class<?> repositorio) {
+        String prefijo = repositorio.getSimpleName() + ".";
+        Set<String> declaradas = Arrays.stream(repositorio.getDeclaredMethods())
+            .filter(m -> !m.isDefault() && !m.isSynthetic() && !java.lang.reflect.Modifier.isStatic(m.getModifiers()))
+            .map(Method::getName)
+            .map(nombre -> prefijo + nombre)
+            .collect(Collectors.toCollection(TreeSet::new));
+        Set<String> cubiertas = comprobadas.stream().filter(n -> n.startsWith(prefijo))
+            .collect(Collectors.toCollection(TreeSet::new));
+        assertThat(cubiertas).as("Consultas de %s sin plan comprobado", repositorio.getSimpleName())
+            .containsAll(declaradas);
+    }
+
+    // Un acceso a tabla del plan: índice usado y condición sobre él
+    private static final class Acceso {
+        private final String tabla;
+        private final String indice;
+        private final String condicion;
+
+        private Acceso(String tabla, String indice, String condicion) {
+            this.tabla = tabla;
+            this.indice = indice;
+            this.condicion = condicion;
+        }
+
+        // tableScan, o un índice sin condición, es leer la tabla entera
+        private boolean esBusqueda() {
+            return !indice.endsWith("tableScan") && condicion != null && !condicion.isBlank();
+        }
+    }
+
+    static final class CapturaSql implements StatementInspector {
+        private final List<String> sentencias = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            sentencias.add(sql);
+            return sql;
+        }
+    }
+}
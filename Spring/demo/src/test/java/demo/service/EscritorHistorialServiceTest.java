@@ -0,0 +1,181 @@
+package demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import demo.AplicacionTest;
+import demo.DatosPrueba;
+import demo.model.EventoHistorial;
+import demo.model.Historial;
+import demo.model.Tarea;
+import demo.model.Usuario;
+
+/**
+ * Escritor de historial en modo asíncrono, con su propio fichero y fila de
+ * checkpoint en cada test (el del contexto sigue en modo síncrono): reenvío de
+ * lo pendiente al arrancar, orden de las restauraciones respecto a la cola y
+ * eventos derramados al fichero con la cola llena.
+ */
+@SpringBootTest(classes = AplicacionTest.class)
+@ActiveProfiles("test")
+class EscritorHistorialServiceTest {
+
+    private static final long ESPERA_MS = 10_000;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path directorio;
+
+    private final List<EscritorHistorialService> escritores = new ArrayList<>();
+    private Usuario usuario;
+    private Integer tareaId;
+
+    @BeforeEach
+    void sembrar() {
+        usuario = new Usuario();
+        usuario.setId(DatosPrueba.usuario(jdbc, "escritor"));
+        tareaId = DatosPrueba.tarea(jdbc, usuario.getId(), "Tarea del escritor", null, "Completada");
+    }
+
+    @AfterEach
+    void detener() throws IOException {
+        for (EscritorHistorialService escritor : escritores) {
+            escritor.detener();
+        }
+    }
+
+    @Test
+    void alArrancarEscribeLoPendienteTrasElCheckpoint() throws IOException {
+        String nombre = "reenvio-" + tareaId;
+        jdbc.update("INSERT INTO historial_escritor_checkpoints (nombre, ultima_secuencia, fecha_actualizacion) "
+            + "VALUES (?, 1, ?)", nombre, Timestamp.valueOf(LocalDateTime.now()));
+
+        // Secuencia 1 ya escrita antes de la caída; la última línea quedó a medias
+        Path fichero = directorio.resolve("pendiente.ndjson");
+        StringBuilder contenido = new StringBuilder();
+        for (long secuencia = 1; secuencia <= 3; secuencia++) {
+            contenido.append(objectMapper.writeValueAsString(evento(secuencia, "Paso " + secuencia, false))).append('\n');
+        }
+        contenido.append("{\"secuencia\":4,\"tareaId\":");
+        Files.writeString(fichero, contenido, StandardCharsets.UTF_8);
+
+        EscritorHistorialService escritor = iniciar(nombre, fichero, 100);
+        esperarVacio(escritor);
+
+        assertThat(jdbc.queryForList("SELECT accion FROM historial WHERE tarea_id = ? ORDER BY fecha", String.class, tareaId))
+            .containsExactly("Paso 2", "Paso 3");
+        assertThat(jdbc.queryForObject("SELECT ultima_secuencia FROM historial_escritor_checkpoints WHERE nombre = ?",
+            Long.class, nombre)).isEqualTo(3L);
+        // Con todo escrito el fichero se vacía
+        esperar("fichero compactado", () -> fichero.toFile().length() == 0);
+    }
+
+    @Test
+    void laRestauracionBorraTambienLasCompletadasQueSeguianEnCola() {
+        EscritorHistorialService escritor = iniciar("restaurar-" + tareaId, directorio.resolve("restaurar.ndjson"), 100);
+        Tarea tarea = tarea(Tarea.Estado.Completada);
+
+        escritor.registrar(new Historial(tarea, usuario));
+        escritor.registrar(new Historial(tarea, usuario));
+        tarea.setEstado(Tarea.Estado.Pendiente);
+        escritor.registrarRestauracion(new Historial(tarea, usuario));
+        esperarVacio(escritor);
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM historial WHERE tarea_id = ? AND titulo IS NOT NULL",
+            Integer.class, tareaId)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM historial WHERE tarea_id = ? AND titulo IS NULL",
+            Integer.class, tareaId)).isEqualTo(1);
+    }
+
+    @Test
+    void conLaColaLlenaLosEventosSeLeenDelFichero() {
+        EscritorHistorialService escritor = iniciar("derrame-" + tareaId, directorio.resolve("derrame.ndjson"), 1);
+        Tarea tarea = tarea(Tarea.Estado.Pendiente);
+
+        for (int i = 0; i < 200; i++) {
+            escritor.registrar(new Historial(tarea, usuario));
+        }
+        esperarVacio(escritor);
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM historial WHERE tarea_id = ?", Integer.class, tareaId))
+            .isEqualTo(200);
+        assertThat(escritor.getMetricas().get("escritos")).isEqualTo(200L);
+    }
+
+    // Una instancia propia, en modo asíncrono, con su fichero y su checkpoint
+    private EscritorHistorialService iniciar(String nombre, Path fichero, int cola) {
+        EscritorHistorialService escritor = new EscritorHistorialService();
+        beanFactory.autowireBean(escritor);
+        ReflectionTestUtils.setField(escritor, "modoConfigurado", "asincrono");
+        ReflectionTestUtils.setField(escritor, "nombre", nombre);
+        ReflectionTestUtils.setField(escritor, "rutaFichero", fichero.toString());
+        ReflectionTestUtils.setField(escritor, "capacidadCola", cola);
+        try {
+            escritor.iniciar();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        escritores.add(escritor);
+        return escritor;
+    }
+
+    private void esperarVacio(EscritorHistorialService escritor) {
+        esperar("historial escrito", () -> ((Number) escritor.getMetricas().get("pendientes")).longValue() == 0);
+    }
+
+    private static void esperar(String que, BooleanSupplier condicion) {
+        long limite = System.currentTimeMillis() + ESPERA_MS;
+        while (!condicion.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("Sin %s tras %d ms", que, ESPERA_MS).isLessThan(limite);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private Tarea tarea(Tarea.Estado estado) {
+        Tarea tarea = new Tarea(usuario, "Tarea " + tareaId);
+        tarea.setId(tareaId);
+        tarea.setEstado(estado);
+        tarea.setPrioridad(Tarea.Prioridad.Media);
+        return tarea;
+    }
+
+    private EventoHistorial evento(long secuencia, String accion, boolean restauracion) {
+        return new EventoHistorial(secuencia, tareaId, usuario.getId(), accion,
+            LocalDateTime.now().plusSeconds(secuencia), null, null, null, null, null, Tarea.Prioridad.Media, restauracion);
+    }
+}
@@ -0,0 +1,163 @@
+package demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import demo.AplicacionTest;
+import demo.DatosPrueba;
+import demo.RecorridoPaginas;
+import demo.model.FiltroTareas;
+import demo.model.PaginaCursor;
+import demo.model.Tarea;
+import demo.model.TareaCompletadaDTO;
+import demo.service.ListadoTareasService.Orden;
+
+/**
+ * Paginación por cursor del listado de tareas: paso del tramo con fecha límite
+ * al tramo sin fecha y empates de fecha; lo mismo para las completadas del
+ * historial, con cursor (fecha, id).
+ */
+@SpringBootTest(classes = AplicacionTest.class)
+@ActiveProfiles("test")
+class ListadoTareasServiceTest {
+
+    @Autowired
+    private ListadoTareasService listadoTareasService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final LocalDate hoy = LocalDate.now();
+    private Integer usuarioId;
+
+    @BeforeEach
+    void sembrarUsuario() {
+        usuarioId = DatosPrueba.usuario(jdbc, "listado");
+    }
+
+    @Test
+    void lasPaginasPasanDelTramoConFechaAlTramoSinFecha() {
+        // Fechas repetidas para que el desempate por id cuente dentro del tramo con fecha
+        int[] dias = {3, 1, 3, 2, 1, 3, 2};
+        List<Integer> conFecha = new ArrayList<>();
+        for (int i = 0; i < dias.length; i++) {
+            conFecha.add(tarea("Con fecha " + i, hoy.plusDays(dias[i])));
+        }
+        List<Integer> sinFecha = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            sinFecha.add(tarea("Sin fecha " + i, null));
+        }
+
+        List<Integer> ascendente = ordenarPorFecha(conFecha, dias, false);
+        ascendente.addAll(sinFecha);
+        List<Integer> descendente = ordenarPorFecha(conFecha, dias, true);
+        for (int i = sinFecha.size() - 1; i >= 0; i--) {
+            descendente.add(sinFecha.get(i));
+        }
+        List<Integer> recientes = new ArrayList<>(conFecha);
+        recientes.addAll(sinFecha);
+        recientes.sort((a, b) -> Integer.compare(b, a));
+
+        // Con 4 y 7 por página el tramo con fecha termina justo al final de una página
+        RecorridoPaginas.comprobar(consulta(Orden.VENCIMIENTO), Tarea::getId, ascendente, 4, 7);
+        RecorridoPaginas.comprobar(consulta(Orden.VENCIMIENTO_DESC), Tarea::getId, descendente, 4, 7);
+        RecorridoPaginas.comprobar(consulta(Orden.RECIENTES), Tarea::getId, recientes);
+    }
+
+    @Test
+    void elTramoConFechaTerminaJustoEnElLimite() {
+        List<Integer> conFecha = List.of(
+            tarea("A", hoy.plusDays(1)), tarea("B", hoy.plusDays(2)), tarea("C", hoy.plusDays(3)));
+        List<Integer> sinFecha = List.of(tarea("D", null), tarea("E", null));
+
+        PaginaCursor<Tarea> primera = consulta(Orden.VENCIMIENTO).apply(null, 3);
+        assertThat(primera.getItems()).extracting(Tarea::getId).containsExactlyElementsOf(conFecha);
+        // Queda el tramo sin fecha: tiene que haber cursor aunque no queden tareas con fecha
+        assertThat(primera.getNextCursor()).isNotNull();
+
+        PaginaCursor<Tarea> segunda = consulta(Orden.VENCIMIENTO).apply(primera.getNextCursor(), 3);
+        assertThat(segunda.getItems()).extracting(Tarea::getId).containsExactlyElementsOf(sinFecha);
+        assertThat(segunda.getNextCursor()).isNull();
+    }
+
+    @Test
+    void unCursorDeOtroOrdenSeRechaza() {
+        tarea("A", hoy.plusDays(1));
+        tarea("B", hoy.plusDays(2));
+        String cursor = consulta(Orden.VENCIMIENTO).apply(null, 1).getNextCursor();
+
+        assertThatThrownBy(() -> consulta(Orden.VENCIMIENTO_DESC).apply(cursor, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> consulta(Orden.VENCIMIENTO).apply("no-es-un-cursor", 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void lasCompletadasConLaMismaFechaSeDesempatanPorId() {
+        Integer tareaId = tarea("Completada", null);
+        LocalDateTime fecha = LocalDateTime.now().withNano(0);
+        // Tres registros en el mismo instante, uno antes y uno después
+        List<Integer> esperado = new ArrayList<>();
+        esperado.add(completada(tareaId, fecha.plusMinutes(1)));
+        List<Integer> empatados = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            empatados.add(completada(tareaId, fecha));
+        }
+        for (int i = empatados.size() - 1; i >= 0; i--) {
+            esperado.add(empatados.get(i));
+        }
+        esperado.add(completada(tareaId, fecha.minusMinutes(1)));
+        // Un registro sin título no es una completada y no cuenta para el límite
+        jdbc.update("INSERT INTO historial (tarea_id, usuario_id, accion, fecha, prioridad) VALUES (?, ?, ?, ?, ?)",
+            tareaId, usuarioId, "CREADA", Timestamp.valueOf(fecha.minusDays(1)), "Media");
+
+        RecorridoPaginas.comprobar((cursor, limite) -> listadoTareasService.listarCompletadas(usuarioId, cursor, limite),
+            TareaCompletadaDTO::getHistorialId, esperado);
+        assertThatThrownBy(() -> listadoTareasService.listarCompletadas(usuarioId, "no-es-un-cursor", 3))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BiFunction<String, Integer, PaginaCursor<Tarea>> consulta(Orden orden) {
+        return (cursor, limite) -> listadoTareasService.listar(usuarioId, new FiltroTareas(), orden, cursor, limite);
+    }
+
+    private List<Integer> ordenarPorFecha(List<Integer> ids, int[] dias, boolean desc) {
+        List<Integer> posiciones = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            posiciones.add(i);
+        }
+        posiciones.sort((a, b) -> {
+            int c = dias[a] != dias[b] ? Integer.compare(dias[a], dias[b]) : Integer.compare(ids.get(a), ids.get(b));
+            return desc ? -c : c;
+        });
+        List<Integer> ordenados = new ArrayList<>();
+        for (int p : posiciones) {
+            ordenados.add(ids.get(p));
+        }
+        return ordenados;
+    }
+
+    private Integer completada(Integer tareaId, LocalDateTime fecha) {
+        jdbc.update("INSERT INTO historial (tarea_id, usuario_id, accion, fecha, titulo, prioridad) "
+            + "VALUES (?, ?, ?, ?, ?, ?)", tareaId, usuarioId, "", Timestamp.valueOf(fecha), "Completada", "Media");
+        return jdbc.queryForObject("SELECT MAX(id) FROM historial WHERE usuario_id = ?", Integer.class, usuarioId);
+    }
+
+    private Integer tarea(String titulo, LocalDate fechaLimite) {
+        return DatosPrueba.tarea(jdbc, usuarioId, titulo, fechaLimite, "Pendiente");
+    }
+}
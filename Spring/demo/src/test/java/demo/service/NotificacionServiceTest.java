@@ -0,0 +1,141 @@
+package demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import demo.AplicacionTest;
+import demo.DatosPrueba;
+import demo.RecorridoPaginas;
+import demo.model.Notificacion;
+import demo.model.NotificacionDTO;
+import demo.model.PaginaCursor;
+import demo.model.SeleccionNotificaciones;
+import demo.model.Usuario;
+import demo.repository.NotificacionRepository;
+import demo.repository.UsuarioRepository;
+
+/**
+ * Paginación por cursor (fecha de creación, id) de las notificaciones: empates
+ * de fecha, solo no leídas y filtro "desde". Las acciones en lote solo alcanzan
+ * a las notificaciones del propio usuario.
+ */
+@SpringBootTest(classes = AplicacionTest.class)
+@ActiveProfiles("test")
+class NotificacionServiceTest {
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final LocalDateTime ahora = LocalDateTime.now().withNano(0);
+    private Usuario usuario;
+
+    @BeforeEach
+    void sembrarUsuario() {
+        usuario = usuarioRepository.getReferenceById(DatosPrueba.usuario(jdbc, "notificaciones"));
+    }
+
+    @Test
+    void lasPaginasRecorrenTodoSinHuecosNiRepetidos() {
+        // Dos grupos con la misma fecha: el id decide dentro de cada uno
+        List<Integer> esperado = new ArrayList<>();
+        for (int minutos : new int[] {0, 5, 5, 5, 10, 10, 20}) {
+            esperado.add(notificacion(ahora.minusMinutes(minutos), false));
+        }
+        esperado.sort((a, b) -> {
+            int c = fecha(b).compareTo(fecha(a));
+            return c != 0 ? c : Integer.compare(b, a);
+        });
+
+        RecorridoPaginas.comprobar(consulta(false, null), NotificacionDTO::getId, esperado);
+    }
+
+    @Test
+    void soloNoLeidasYDesdeFiltranAntesDePaginar() {
+        List<Integer> noLeidas = new ArrayList<>();
+        List<Integer> todas = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Integer id = notificacion(ahora.minusHours(i), i % 2 == 1);
+            todas.add(id);
+            if (i % 2 == 0) {
+                noLeidas.add(id);
+            }
+        }
+        // Anterior a "desde": no debe salir aunque esté sin leer
+        notificacion(ahora.minusDays(2), false);
+        String desde = ahora.minusHours(5).toString();
+
+        RecorridoPaginas.comprobar(consulta(true, desde), NotificacionDTO::getId, noLeidas);
+        RecorridoPaginas.comprobar(consulta(false, desde), NotificacionDTO::getId, todas);
+    }
+
+    @Test
+    void cursorODesdeMalFormadosSeRechazan() {
+        assertThatThrownBy(() -> consulta(false, null).apply("no-es-un-cursor", 2))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> consulta(false, "ayer").apply(null, 2))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(consulta(false, null).apply(null, 2).getItems()).isEmpty();
+    }
+
+    @Test
+    void lasAccionesEnLoteNoTocanLasNotificacionesDeOtroUsuario() {
+        Usuario otro = usuarioRepository.getReferenceById(DatosPrueba.usuario(jdbc, "otro"));
+        List<Integer> ajenas = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ajenas.add(notificacionService.crearNotificacion(otro, "PRUEBA", "Ajena " + i).getId());
+        }
+        assertThat(notificacionService.countNotificacionesNoLeidas(otro.getId())).isEqualTo(3);
+
+        // Por ids de las ajenas y por un filtro que sí las alcanzaría si fueran propias
+        SeleccionNotificaciones porIds = SeleccionNotificaciones.porIds(ajenas);
+        SeleccionNotificaciones porFiltro = new SeleccionNotificaciones();
+        porFiltro.setTipo("PRUEBA");
+        for (SeleccionNotificaciones seleccion : List.of(porIds, porFiltro)) {
+            assertThat(notificacionService.marcarLeidas(usuario.getId(), seleccion).getAfectadas()).isZero();
+            assertThat(notificacionService.eliminar(usuario.getId(), seleccion).getAfectadas()).isZero();
+        }
+
+        assertThat(notificacionService.countNotificacionesNoLeidas(otro.getId())).isEqualTo(3);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM notificaciones WHERE usuario_id = ? AND leida = FALSE",
+            Integer.class, otro.getId())).isEqualTo(3);
+    }
+
+    private BiFunction<String, Integer, PaginaCursor<NotificacionDTO>> consulta(boolean soloNoLeidas, String desde) {
+        return (cursor, limite) -> notificacionService.listar(usuario.getId(), soloNoLeidas, desde, cursor, limite);
+    }
+
+    // La fecha de creación la pone @PrePersist: se fija después con JDBC
+    private Integer notificacion(LocalDateTime fechaCreacion, boolean leida) {
+        Integer id = notificacionRepository.save(new Notificacion(usuario, "PRUEBA", "Aviso")).getId();
+        jdbc.update("UPDATE notificaciones SET fecha_creacion = ?, leida = ? WHERE id = ?",
+            Timestamp.valueOf(fechaCreacion), leida, id);
+        return id;
+    }
+
+    private LocalDateTime fecha(Integer id) {
+        return jdbc.queryForObject("SELECT fecha_creacion FROM notificaciones WHERE id = ?", Timestamp.class, id)
+            .toLocalDateTime();
+    }
+}
@@ -0,0 +1,158 @@
+package demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import demo.AplicacionTest;
+import demo.DatosPrueba;
+import demo.model.Notificacion;
+import demo.model.Tarea;
+import demo.repository.NotificacionRepository;
+import demo.repository.TareaRepository;
+import demo.repository.UsuarioRepository;
+
+/**
+ * Recordatorios de vencimiento con un aviso por tarea el mismo día. Cada
+ * arranque es una instancia nueva del planificador (memoria vacía, como tras
+ * un reinicio) a la hora que indique el test; el del contexto está desactivado.
+ */
+@SpringBootTest(classes = AplicacionTest.class, properties = "notificaciones.recordatorios.dias-antes=0")
+@ActiveProfiles("test")
+class PlanificadorRecordatoriosServiceTest {
+
+    private static final long ESPERA_MS = 10_000;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final LocalDate hoy = LocalDate.now();
+    private final List<PlanificadorRecordatoriosService> arrancados = new ArrayList<>();
+    private Integer usuarioId;
+
+    @BeforeEach
+    void sembrarUsuario() {
+        usuarioId = DatosPrueba.usuario(jdbc, "recordatorios");
+    }
+
+    // Las tareas activas de este test no deben entrar en los arranques del siguiente
+    @AfterEach
+    void detener() {
+        arrancados.forEach(PlanificadorRecordatoriosService::detener);
+        jdbc.update("UPDATE tareas SET estado = 'Completada' WHERE usuario_id = ?", usuarioId);
+    }
+
+    @Test
+    void elAvisoPerdidoSeRecuperaAlArrancarUnaSolaVez() throws InterruptedException {
+        // El aviso de hoy a las 00:00 tocó mientras la aplicación estaba parada
+        Integer tareaId = DatosPrueba.tarea(jdbc, usuarioId, "Vence hoy", hoy, "Pendiente");
+
+        PlanificadorRecordatoriosService primero = arrancar(LocalTime.MIDNIGHT);
+        esperar(() -> primero.getEstado().getEnviados() == 1);
+        assertThat(recordatorios(tareaId)).isEqualTo(1);
+
+        // Otro reinicio dentro de la ventana de recuperación: ya está enviado
+        PlanificadorRecordatoriosService segundo = arrancar(LocalTime.MIDNIGHT);
+        esperar(() -> segundo.getEstado().getDescartados() == 1);
+        assertThat(segundo.getEstado().getEnviados()).isZero();
+        assertThat(recordatorios(tareaId)).isEqualTo(1);
+    }
+
+    @Test
+    void unAvisoYaEnviadoDespuesDelMomentoNoSeRepite() throws InterruptedException {
+        Integer enviadaId = DatosPrueba.tarea(jdbc, usuarioId, "Ya avisada", hoy, "Pendiente");
+        Integer antiguaId = DatosPrueba.tarea(jdbc, usuarioId, "Avisada ayer", hoy, "Pendiente");
+        // Uno posterior a las 00:00 de hoy (cuenta como enviado) y otro de ayer (no cuenta)
+        recordatorioEnviado(enviadaId, LocalDateTime.now());
+        recordatorioEnviado(antiguaId, hoy.minusDays(1).atTime(12, 0));
+
+        PlanificadorRecordatoriosService planificador = arrancar(LocalTime.MIDNIGHT);
+        esperar(() -> planificador.getEstado().getEnviados() + planificador.getEstado().getDescartados() == 2);
+
+        assertThat(planificador.getEstado().getEnviados()).isEqualTo(1);
+        assertThat(recordatorios(enviadaId)).isEqualTo(1);
+        assertThat(recordatorios(antiguaId)).isEqualTo(2);
+    }
+
+    @Test
+    void alCambiarLaFechaElAvisoEnColaSeInvalida() throws InterruptedException {
+        LocalTime hora = LocalTime.now().plusSeconds(2).truncatedTo(ChronoUnit.SECONDS);
+        assumeTrue(hora.isAfter(LocalTime.now()), "demasiado cerca de medianoche");
+        Integer tareaId = DatosPrueba.tarea(jdbc, usuarioId, "Se aplaza", hoy, "Pendiente");
+
+        PlanificadorRecordatoriosService planificador = arrancar(hora);
+        assertThat(planificador.getEstado().getPendientes()).isEqualTo(1);
+
+        // Se aplaza a mañana antes de que salga el aviso de hoy
+        jdbc.update("UPDATE tareas SET fecha_limite = ? WHERE id = ?", Date.valueOf(hoy.plusDays(1)), tareaId);
+        Tarea tarea = tareaRepository.findById(tareaId).orElseThrow();
+        planificador.tareaCambiada(tarea);
+
+        esperar(() -> planificador.getEstado().getDescartados() == 1);
+        assertThat(planificador.getEstado().getEnviados()).isZero();
+        assertThat(recordatorios(tareaId)).isZero();
+        // Queda el de mañana
+        assertThat(planificador.getEstado().getPendientes()).isEqualTo(1);
+    }
+
+    private PlanificadorRecordatoriosService arrancar(LocalTime hora) {
+        PlanificadorRecordatoriosService planificador = (PlanificadorRecordatoriosService) beanFactory.autowire(
+            PlanificadorRecordatoriosService.class, AutowireCapableBeanFactory.AUTOWIRE_NO, false);
+        ReflectionTestUtils.setField(planificador, "activo", true);
+        ReflectionTestUtils.setField(planificador, "horaTexto", hora.toString());
+        planificador.iniciar();
+        arrancados.add(planificador);
+        return planificador;
+    }
+
+    private void recordatorioEnviado(Integer tareaId, LocalDateTime fecha) {
+        Integer id = notificacionRepository.save(new Notificacion(usuarioRepository.getReferenceById(usuarioId),
+            tareaRepository.getReferenceById(tareaId), PlanificadorRecordatoriosService.TIPO_RECORDATORIO, "Aviso"))
+            .getId();
+        jdbc.update("UPDATE notificaciones SET fecha_creacion = ? WHERE id = ?", Timestamp.valueOf(fecha), id);
+    }
+
+    private int recordatorios(Integer tareaId) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM notificaciones WHERE tarea_id = ? AND tipo = ?",
+            Integer.class, tareaId, PlanificadorRecordatoriosService.TIPO_RECORDATORIO);
+    }
+
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MS;
+        while (!condicion.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("tiempo de espera agotado").isLessThan(limite);
+            Thread.sleep(50);
+        }
+    }
+}
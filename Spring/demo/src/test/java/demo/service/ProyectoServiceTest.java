@@ -0,0 +1,104 @@
+package demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import demo.AplicacionTest;
+import demo.DatosPrueba;
+import demo.RecorridoPaginas;
+import demo.model.PaginaCursor;
+import demo.model.Proyecto;
+import demo.model.Tarea;
+import demo.model.TareaProyectoDTO;
+import demo.model.Usuario;
+import demo.repository.UsuarioRepository;
+
+/**
+ * Paginación por cursor (id de tarea) de las tareas de un proyecto, con los
+ * filtros aplicados antes de cortar la página, y filas con estado o prioridad a NULL.
+ */
+@SpringBootTest(classes = AplicacionTest.class)
+@ActiveProfiles("test")
+class ProyectoServiceTest {
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Usuario usuario;
+    private Integer proyectoId;
+
+    @BeforeEach
+    void sembrarProyecto() {
+        usuario = usuarioRepository.findById(DatosPrueba.usuario(jdbc, "proyecto")).orElseThrow();
+        proyectoId = proyectoService.saveProyecto(new Proyecto("Proyecto " + usuario.getId(), usuario)).getId();
+    }
+
+    @Test
+    void lasPaginasRecorrenTodasLasTareasEnOrdenDeId() {
+        List<Integer> tareas = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            tareas.add(tarea("Tarea " + i, "Pendiente"));
+        }
+        // Una tarea del usuario fuera del proyecto no cuenta
+        tarea("Fuera", "Pendiente");
+        proyectoService.agregarTareas(proyectoId, tareas, usuario);
+
+        RecorridoPaginas.comprobar(consulta(null), TareaProyectoDTO::getId, tareas);
+    }
+
+    @Test
+    void elFiltroDeEstadoSeAplicaAntesDePaginar() {
+        List<Integer> tareas = new ArrayList<>();
+        List<Integer> completadas = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            boolean completada = i % 3 == 0;
+            Integer id = tarea("Tarea " + i, completada ? "Completada" : "Pendiente");
+            tareas.add(id);
+            if (completada) {
+                completadas.add(id);
+            }
+        }
+        proyectoService.agregarTareas(proyectoId, tareas, usuario);
+
+        RecorridoPaginas.comprobar(consulta(Tarea.Estado.Completada), TareaProyectoDTO::getId, completadas);
+        assertThatThrownBy(() -> consulta(null).apply("no-es-un-cursor", 2))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void lasTareasSinEstadoNiPrioridadTambienSeListan() {
+        Integer id = tarea("Sin estado", "Pendiente");
+        proyectoService.agregarTareas(proyectoId, List.of(id), usuario);
+        jdbc.update("UPDATE tareas SET estado = NULL, prioridad = NULL WHERE id = ?", id);
+
+        TareaProyectoDTO tarea = consulta(null).apply(null, 10).getItems().get(0);
+        assertThat(tarea.getId()).isEqualTo(id);
+        assertThat(tarea.getEstado()).isNull();
+        assertThat(tarea.getPrioridad()).isNull();
+    }
+
+    private BiFunction<String, Integer, PaginaCursor<TareaProyectoDTO>> consulta(Tarea.Estado estado) {
+        return (cursor, limite) -> proyectoService.listarTareas(proyectoId, estado, null, cursor, limite);
+    }
+
+    private Integer tarea(String titulo, String estado) {
+        return DatosPrueba.tarea(jdbc, usuario.getId(), titulo, null, estado);
+    }
+}
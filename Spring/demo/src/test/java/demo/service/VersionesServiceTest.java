@@ -0,0 +1,96 @@
+package demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import demo.AplicacionTest;
+import demo.service.VersionesService.Recurso;
+
+/**
+ * ETag de los listados: un GET con la versión que ya tiene el cliente se
+ * contesta 304, y solo las escrituras confirmadas cambian la versión.
+ * Usuarios con ids altos para no cruzarse con los de otros tests.
+ */
+@SpringBootTest(classes = AplicacionTest.class)
+@ActiveProfiles("test")
+class VersionesServiceTest {
+
+    @Autowired
+    private VersionesService versionesService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void conLaMismaVersionContesta304() {
+        Integer usuarioId = 900_001;
+        MockHttpServletResponse primera = new MockHttpServletResponse();
+        assertThat(versionesService.noModificado(peticion(null, primera), usuarioId, Recurso.TAREAS)).isFalse();
+        String etag = primera.getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        assertThat(primera.getHeader(HttpHeaders.CACHE_CONTROL)).contains("no-cache");
+
+        MockHttpServletResponse segunda = new MockHttpServletResponse();
+        assertThat(versionesService.noModificado(peticion(etag, segunda), usuarioId, Recurso.TAREAS)).isTrue();
+        assertThat(segunda.getStatus()).isEqualTo(304);
+
+        // Mismo ETag de otro usuario: no vale
+        MockHttpServletResponse otro = new MockHttpServletResponse();
+        assertThat(versionesService.noModificado(peticion(etag, otro), usuarioId + 1, Recurso.TAREAS)).isFalse();
+        assertThat(otro.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void soloLasEscriturasConfirmadasCambianLaVersion() {
+        Integer usuarioId = 900_010;
+        String tareas = versionesService.etag(usuarioId, Recurso.TAREAS);
+        String categorias = versionesService.etag(usuarioId, Recurso.CATEGORIAS);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        tx.executeWithoutResult(status -> {
+            versionesService.incrementar(usuarioId, Recurso.TAREAS);
+            // Hasta el commit un GET concurrente sigue viendo la versión anterior
+            assertThat(versionesService.etag(usuarioId, Recurso.TAREAS)).isEqualTo(tareas);
+            status.setRollbackOnly();
+        });
+        assertThat(versionesService.etag(usuarioId, Recurso.TAREAS)).isEqualTo(tareas);
+
+        tx.executeWithoutResult(status -> versionesService.incrementar(usuarioId, Recurso.TAREAS));
+        assertThat(versionesService.etag(usuarioId, Recurso.TAREAS)).isNotEqualTo(tareas);
+        assertThat(versionesService.etag(usuarioId, Recurso.CATEGORIAS)).isEqualTo(categorias);
+
+        // Un cambio de categorías invalida también los listados que las incluyen
+        String tareasYCategorias = versionesService.etag(usuarioId, Recurso.TAREAS, Recurso.CATEGORIAS);
+        versionesService.incrementar(usuarioId, Recurso.CATEGORIAS);
+        assertThat(versionesService.etag(usuarioId, Recurso.TAREAS, Recurso.CATEGORIAS)).isNotEqualTo(tareasYCategorias);
+    }
+
+    @Test
+    void losCambiosGlobalesCambianLaVersionDeTodos() {
+        String uno = versionesService.etag(900_020, Recurso.NOTIFICACIONES);
+        String otro = versionesService.etag(900_021, Recurso.NOTIFICACIONES);
+
+        versionesService.incrementarTodos(Recurso.NOTIFICACIONES);
+
+        assertThat(versionesService.etag(900_020, Recurso.NOTIFICACIONES)).isNotEqualTo(uno);
+        assertThat(versionesService.etag(900_021, Recurso.NOTIFICACIONES)).isNotEqualTo(otro);
+    }
+
+    private static ServletWebRequest peticion(String ifNoneMatch, MockHttpServletResponse respuesta) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, respuesta);
+    }
+}